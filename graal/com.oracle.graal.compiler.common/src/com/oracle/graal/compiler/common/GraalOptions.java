@@ -51,6 +51,13 @@ public final class GraalOptions {
     @Option(help = "Minimum probability for methods to be inlined for megamorphic type profiles.", type = OptionType.Expert)
     public static final OptionValue<Double> MegamorphicInliningMinMethodProbability = new OptionValue<>(0.33D);
 
+    @Option(help = "Maximum number of profiled receiver methods that are called directly behind a type switch at an interface call site that is not inlined. " +
+                   "Other receivers use the regular interface dispatch. 0 disables this.", type = OptionType.Expert)
+    public static final OptionValue<Integer> PolymorphicCallSiteMaxTargets = new OptionValue<>(2);
+
+    @Option(help = "Minimum profiled probability of a receiver method to be called directly at a polymorphic interface call site that is not inlined.", type = OptionType.Expert)
+    public static final OptionValue<Double> PolymorphicCallSiteMinProbability = new OptionValue<>(0.1D);
+
     @Option(help = "Maximum level of recursive inlining.", type = OptionType.Expert)
     public static final OptionValue<Integer> MaximumRecursiveInlining = new OptionValue<>(5);
 
@@ -106,6 +113,12 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> LoopUnswitch = new OptionValue<>(true);
 
+    @Option(help = "Unswitch loops on conditions that depend on field values which are speculated not to change while the loop runs.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> LoopSpeculativeUnswitch = new OptionValue<>(true);
+
+    @Option(help = "Version counted loops on a range check so that the fast copy needs no bounds checks.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> LoopVersioning = new OptionValue<>(true);
+
     @Option(help = "", type = OptionType.Expert)
     public static final OptionValue<Float> MinimumPeelProbability = new OptionValue<>(0.35f);
 
@@ -115,6 +128,15 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> UseLoopLimitChecks = new OptionValue<>(true);
 
+    @Option(help = "Speculatively hoist guards with loop-invariant conditions into the loop pre-header.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> OptLoopGuardHoisting = new OptionValue<>(true);
+
+    @Option(help = "Minimum frequency of a guard relative to the loop entry for the guard to be hoisted.", type = OptionType.Expert)
+    public static final OptionValue<Double> LoopGuardHoistingMinimumFrequency = new OptionValue<>(0.9);
+
+    @Option(help = "Strength reduce address computations on induction variables in counted loops.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> LoopStrengthReduction = new OptionValue<>(true);
+
     // debugging settings
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> ZapStackOnMethodEntry = new OptionValue<>(false);
@@ -284,6 +306,15 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptEliminatePartiallyRedundantGuards = new OptionValue<>(true);
 
+    @Option(help = "Merge a monitor exit with a following monitor enter of the same object across a short run of side-effect free nodes.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> OptLockCoarsening = new OptionValue<>(true);
+
+    @Option(help = "Maximum number of fixed nodes between two adjacent synchronized regions that are merged by lock coarsening.", type = OptionType.Expert)
+    public static final OptionValue<Integer> LockCoarseningMaxNodes = new OptionValue<>(16);
+
+    @Option(help = "Eliminate a monitor enter/exit pair when an enclosing lock on the same object is already held.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> OptEliminateNestedLocks = new OptionValue<>(true);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptFilterProfiledTypes = new OptionValue<>(true);
 
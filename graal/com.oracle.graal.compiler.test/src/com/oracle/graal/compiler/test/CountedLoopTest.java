@@ -22,14 +22,18 @@
  */
 package com.oracle.graal.compiler.test;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.oracle.graal.api.directives.GraalDirectives;
+import com.oracle.graal.compiler.common.calc.UnsignedMath;
 import com.oracle.graal.graph.NodeClass;
 import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.LoopEx;
 import com.oracle.graal.loop.LoopsData;
 import com.oracle.graal.nodeinfo.NodeInfo;
 import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.calc.FloatingNode;
 import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
@@ -194,6 +198,126 @@ public class CountedLoopTest extends GraalCompilerTest {
         test("decrementEqSnippet", 256, 0, 3);
     }
 
+    public static Result incrementDoWhileSnippet(int start, int limit, int step) {
+        int i = start;
+        int inc = ((step - 1) & 0xFFFF) + 1; // make sure this value is always strictly positive
+        Result ret = new Result();
+        do {
+            GraalDirectives.controlFlowAnchor();
+            ret.extremum = get(InductionVariable::extremumNode, i);
+            i += inc;
+        } while (i < limit);
+        ret.exitValue = get(InductionVariable::exitValueNode, i);
+        return ret;
+    }
+
+    @Test
+    public void incrementDoWhile1() {
+        test("incrementDoWhileSnippet", 0, 256, 1);
+    }
+
+    @Test
+    public void incrementDoWhile3() {
+        test("incrementDoWhileSnippet", 0, 256, 3);
+    }
+
+    @Test
+    public void incrementDoWhileOneIteration() {
+        test("incrementDoWhileSnippet", 256, 0, 3);
+    }
+
+    public static Result decrementDoWhileSnippet(int start, int limit, int step) {
+        int i = start;
+        int dec = ((step - 1) & 0xFFFF) + 1; // make sure this value is always strictly positive
+        Result ret = new Result();
+        do {
+            GraalDirectives.controlFlowAnchor();
+            ret.extremum = get(InductionVariable::extremumNode, i);
+            i -= dec;
+        } while (i >= limit);
+        ret.exitValue = get(InductionVariable::exitValueNode, i);
+        return ret;
+    }
+
+    @Test
+    public void decrementDoWhile1() {
+        test("decrementDoWhileSnippet", 256, 0, 1);
+    }
+
+    @Test
+    public void decrementDoWhile3() {
+        test("decrementDoWhileSnippet", 256, 0, 3);
+    }
+
+    public static Result incrementUnsignedSnippet(int start, int limit, int step) {
+        int i;
+        int inc = ((step - 1) & 0xFFFF) + 1; // make sure this value is always strictly positive
+        int posLimit = limit & 0xFFFF; // make sure limit is never negative
+        Result ret = new Result();
+        for (i = start & 0xFFFF; UnsignedMath.belowThan(i, posLimit); i += inc) {
+            GraalDirectives.controlFlowAnchor();
+            ret.extremum = get(InductionVariable::extremumNode, i);
+        }
+        ret.exitValue = get(InductionVariable::exitValueNode, i);
+        return ret;
+    }
+
+    @Test
+    public void incrementUnsigned1() {
+        test("incrementUnsignedSnippet", 0, 256, 1);
+    }
+
+    @Test
+    public void incrementUnsigned3() {
+        test("incrementUnsignedSnippet", 0, 256, 3);
+    }
+
+    @Test
+    public void incrementUnsignedNoIteration() {
+        test("incrementUnsignedSnippet", 256, 0, 3);
+    }
+
+    public static int constantStrideUpSnippet() {
+        int sum = 0;
+        for (int i = 0; i < 10; i += 3) {
+            GraalDirectives.controlFlowAnchor();
+            sum += i;
+        }
+        return sum;
+    }
+
+    public static int constantStrideDownSnippet() {
+        int sum = 0;
+        for (int i = 10; i > 0; i -= 3) {
+            GraalDirectives.controlFlowAnchor();
+            sum += i;
+        }
+        return sum;
+    }
+
+    private void checkConstantMaxTripCount(String snippet, long expected) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        LoopsData loops = new LoopsData(graph);
+        loops.detectedCountedLoops();
+        Assert.assertEquals(1, loops.countedLoops().size());
+        LoopEx loop = loops.countedLoops().iterator().next();
+        Assert.assertTrue(loop.counted().isConstantMaxTripCount());
+        Assert.assertEquals(expected, loop.counted().constantMaxTripCount());
+        test(snippet);
+    }
+
+    @Test
+    public void constantStrideUp() {
+        // i = 0, 3, 6, 9
+        checkConstantMaxTripCount("constantStrideUpSnippet", 4);
+    }
+
+    @Test
+    public void constantStrideDown() {
+        // i = 10, 7, 4, 1
+        checkConstantMaxTripCount("constantStrideDownSnippet", 4);
+    }
+
     public static Result twoVariablesSnippet() {
         Result ret = new Result();
         int j = 0;
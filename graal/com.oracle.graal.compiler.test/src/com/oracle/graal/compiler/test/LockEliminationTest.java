@@ -92,6 +92,23 @@ public class LockEliminationTest extends GraalCompilerTest {
         assertDeepEquals(1, graph.getNodes().filter(MonitorExitNode.class).count());
     }
 
+    public static void testNestedSynchronizedSnippet(A x) {
+        synchronized (x) {
+            synchronized (x) {
+                field1 = x.value;
+            }
+        }
+    }
+
+    @Test
+    public void testNestedLock() {
+        test("testNestedSynchronizedSnippet", new A());
+
+        StructuredGraph graph = getGraph("testNestedSynchronizedSnippet");
+        assertDeepEquals(1, graph.getNodes().filter(RawMonitorEnterNode.class).count());
+        assertDeepEquals(1, graph.getNodes().filter(MonitorExitNode.class).count());
+    }
+
     private StructuredGraph getGraph(String snippet) {
         ResolvedJavaMethod method = getResolvedJavaMethod(snippet);
         StructuredGraph graph = parseEager(method, AllowAssumptions.YES);
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.meta.DeoptimizationReason;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.debug.DebugDumpScope;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.loop.phases.LoopGuardHoistingPhase;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.memory.FloatingReadNode;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.FloatingReadPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class LoopGuardHoistingTest extends GraalCompilerTest {
+
+    public static class Container {
+
+        public int a;
+    }
+
+    public static int test1Snippet(Container c, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += c.a;
+        }
+        return sum;
+    }
+
+    public static int test2Snippet(Container c, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            c.a = i;
+            sum += c.a;
+        }
+        return sum;
+    }
+
+    @Test
+    public void test1() {
+        StructuredGraph graph = test("test1Snippet", OptimisticOptimizations.ALL);
+        LoopEx loop = new LoopsData(graph).loops().iterator().next();
+        for (GuardNode guard : graph.getNodes().filter(GuardNode.class)) {
+            Assert.assertTrue("guard should have been hoisted: " + guard, loop.isOutsideLoop(guard));
+            // failing hoisted guards must not disable the other loop speculations
+            Assert.assertEquals(LoopGuardHoistingPhase.HOISTED_GUARD_REASON, guard.getReason());
+            Assert.assertNotEquals(DeoptimizationReason.LoopLimitCheck, guard.getReason());
+        }
+        for (FloatingReadNode read : graph.getNodes().filter(FloatingReadNode.class)) {
+            Assert.assertTrue("read should be loop invariant: " + read, loop.isOutsideLoop(read));
+        }
+    }
+
+    @Test
+    public void test1Disabled() {
+        StructuredGraph graph = test("test1Snippet", OptimisticOptimizations.ALL.remove(OptimisticOptimizations.Optimization.UseLoopGuardHoisting));
+        LoopEx loop = new LoopsData(graph).loops().iterator().next();
+        Assert.assertTrue(graph.getNodes().filter(GuardNode.class).filter(loop::isOutsideLoop).isEmpty());
+    }
+
+    @Test
+    public void test2() {
+        StructuredGraph graph = test("test2Snippet", OptimisticOptimizations.ALL);
+        LoopEx loop = new LoopsData(graph).loops().iterator().next();
+        for (GuardNode guard : graph.getNodes().filter(GuardNode.class)) {
+            Assert.assertTrue("guard should have been hoisted: " + guard, loop.isOutsideLoop(guard));
+        }
+        // the field is written in the loop so the read itself has to stay there
+        for (FloatingReadNode read : graph.getNodes().filter(FloatingReadNode.class)) {
+            Assert.assertFalse("read should not be loop invariant: " + read, loop.isOutsideLoop(read));
+        }
+    }
+
+    @SuppressWarnings("try")
+    private StructuredGraph test(String snippet, OptimisticOptimizations optimisticOpts) {
+        try (Scope s = Debug.scope("LoopGuardHoistingTest", new DebugDumpScope(snippet))) {
+            StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+            PhaseContext context = new PhaseContext(getProviders());
+            new LoweringPhase(new CanonicalizerPhase(), LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, context);
+            new FloatingReadPhase().apply(graph);
+            MidTierContext midContext = new MidTierContext(getProviders(), getTargetProvider(), optimisticOpts, graph.getProfilingInfo());
+            new LoopGuardHoistingPhase().apply(graph, midContext);
+            new CanonicalizerPhase().apply(graph, context);
+            Debug.dump(graph, "After guard hoisting");
+            return graph;
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.loop.phases.LoopSafepointEliminationPhase;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.LoopEndNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class LoopSafepointEliminationTest extends GraalCompilerTest {
+
+    public static long smallLongRangeSnippet(int start, int end) {
+        long sum = 0;
+        long limit = end & 0xFFFF;
+        for (long i = start & 0xFFFF; i < limit; i++) {
+            sum += i;
+        }
+        return sum;
+    }
+
+    public static long largeLongRangeSnippet(long start, long end) {
+        long sum = 0;
+        for (long i = start; i < end; i++) {
+            sum += i;
+        }
+        return sum;
+    }
+
+    private boolean loopCanSafepoint(String snippet) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        new CanonicalizerPhase().apply(graph, new PhaseContext(getProviders()));
+        MidTierContext midContext = new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.getProfilingInfo());
+        new LoopSafepointEliminationPhase().apply(graph, midContext);
+
+        LoopBeginNode loopBegin = graph.getNodes(LoopBeginNode.TYPE).first();
+        Assert.assertNotNull(loopBegin);
+        boolean canSafepoint = false;
+        for (LoopEndNode loopEnd : loopBegin.loopEnds()) {
+            canSafepoint |= loopEnd.canSafepoint();
+        }
+        return canSafepoint;
+    }
+
+    /**
+     * A loop with a 64-bit counter whose trip count fits into an int does not need a safepoint.
+     */
+    @Test
+    public void testSmallLongRange() {
+        Assert.assertFalse(loopCanSafepoint("smallLongRangeSnippet"));
+        test("smallLongRangeSnippet", 0, 1000);
+        test("smallLongRangeSnippet", 1000, 0);
+    }
+
+    @Test
+    public void testLargeLongRange() {
+        Assert.assertTrue(loopCanSafepoint("largeLongRangeSnippet"));
+        test("largeLongRangeSnippet", 0L, 1000L);
+    }
+}
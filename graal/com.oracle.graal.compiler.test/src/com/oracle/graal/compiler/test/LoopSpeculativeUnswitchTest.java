@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.debug.DebugDumpScope;
+import com.oracle.graal.loop.DefaultLoopPolicies;
+import com.oracle.graal.loop.phases.LoopSpeculativeInvariantPhase;
+import com.oracle.graal.loop.phases.LoopUnswitchingPhase;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.tiers.HighTierContext;
+
+import jdk.vm.ci.meta.DeoptimizationReason;
+
+public class LoopSpeculativeUnswitchTest extends GraalCompilerTest {
+
+    static int mode;
+    static volatile int volatileMode;
+
+    public static int test1Snippet(int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            if (mode == 0) {
+                sum += i;
+            } else {
+                sum -= i;
+            }
+        }
+        return sum;
+    }
+
+    public static int test2Snippet(int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            if (volatileMode == 0) {
+                sum += i;
+            } else {
+                sum -= i;
+            }
+        }
+        return sum;
+    }
+
+    @Test
+    public void test1() {
+        StructuredGraph graph = unswitch("test1Snippet", OptimisticOptimizations.ALL);
+        Assert.assertEquals(2, graph.getNodes(LoopBeginNode.TYPE).count());
+        Assert.assertEquals(2, countSpeculationGuards(graph));
+        for (int m = 0; m < 2; m++) {
+            mode = m;
+            test("test1Snippet", 100);
+        }
+    }
+
+    @Test
+    public void test1Disabled() {
+        StructuredGraph graph = unswitch("test1Snippet", OptimisticOptimizations.NONE);
+        Assert.assertEquals(1, graph.getNodes(LoopBeginNode.TYPE).count());
+        Assert.assertEquals(0, countSpeculationGuards(graph));
+    }
+
+    @Test
+    public void test2() {
+        StructuredGraph graph = unswitch("test2Snippet", OptimisticOptimizations.ALL);
+        Assert.assertEquals(1, graph.getNodes(LoopBeginNode.TYPE).count());
+        Assert.assertEquals(0, countSpeculationGuards(graph));
+    }
+
+    private static int countSpeculationGuards(StructuredGraph graph) {
+        int count = 0;
+        for (FixedGuardNode guard : graph.getNodes(FixedGuardNode.TYPE)) {
+            if (guard.getReason() == DeoptimizationReason.Aliasing) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @SuppressWarnings("try")
+    private StructuredGraph unswitch(String snippet, OptimisticOptimizations optimisticOpts) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.NO);
+        try (Scope s = Debug.scope("LoopSpeculativeUnswitchTest", new DebugDumpScope(snippet))) {
+            HighTierContext context = new HighTierContext(getProviders(), getDefaultGraphBuilderSuite(), optimisticOpts);
+            DefaultLoopPolicies policies = new DefaultLoopPolicies();
+            new LoopSpeculativeInvariantPhase(policies).apply(graph, context);
+            new LoopUnswitchingPhase(policies).apply(graph);
+            return graph;
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+}
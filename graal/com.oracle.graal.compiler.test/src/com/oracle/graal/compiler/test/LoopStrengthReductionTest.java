@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.debug.DebugDumpScope;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.loop.phases.LoopStrengthReductionPhase;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.calc.SignExtendNode;
+import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.FloatingReadPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class LoopStrengthReductionTest extends GraalCompilerTest {
+
+    public static long sumSnippet(long[] array, int n) {
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    public static void copySnippet(int[] src, int[] dst, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = src[i];
+        }
+    }
+
+    @Test
+    public void testSum() {
+        test("sumSnippet");
+        test("sumSnippet", new long[]{1, 2, 3, 4, 5}, 5);
+        test("sumSnippet", new long[0], 0);
+        test("sumSnippet", new long[]{1, 2}, 3);
+    }
+
+    @Test
+    public void testCopy() {
+        test("copySnippet");
+        test("copySnippet", new int[]{1, 2, 3}, new int[3], 3);
+        test("copySnippet", new int[]{1, 2, 3}, new int[2], 3);
+    }
+
+    @SuppressWarnings("try")
+    private void test(String snippet) {
+        try (Scope s = Debug.scope("LoopStrengthReductionTest", new DebugDumpScope(snippet))) {
+            StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+            PhaseContext context = new PhaseContext(getProviders());
+            new LoweringPhase(new CanonicalizerPhase(), LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, context);
+            new FloatingReadPhase().apply(graph);
+            MidTierContext midContext = new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.getProfilingInfo());
+            new LoopStrengthReductionPhase().apply(graph, midContext);
+            new CanonicalizerPhase().apply(graph, context);
+            Debug.dump(graph, "After strength reduction");
+
+            LoopEx loop = new LoopsData(graph).loops().iterator().next();
+            for (OffsetAddressNode address : graph.getNodes().filter(OffsetAddressNode.class)) {
+                if (!loop.isOutsideLoop(address)) {
+                    Assert.assertFalse("address offset should not be recomputed in the loop: " + address, address.getOffset() instanceof SignExtendNode);
+                }
+            }
+            Assert.assertTrue(graph.getNodes().filter(SignExtendNode.class).filter(n -> !loop.isOutsideLoop(n)).isEmpty());
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+}
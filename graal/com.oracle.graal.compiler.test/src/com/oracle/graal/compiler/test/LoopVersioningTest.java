@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.debug.DebugDumpScope;
+import com.oracle.graal.loop.DefaultLoopPolicies;
+import com.oracle.graal.loop.phases.LoopGuardHoistingPhase;
+import com.oracle.graal.loop.phases.LoopVersioningPhase;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.FloatingReadPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+import jdk.vm.ci.meta.DeoptimizationReason;
+
+public class LoopVersioningTest extends GraalCompilerTest {
+
+    public static int sumSnippet(int[] array, int start, int end) {
+        int sum = 0;
+        for (int i = start; i < end; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    public static void addSnippet(int[] a, int[] b, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i] += b[i + 1];
+        }
+    }
+
+    @Test
+    public void testSum() {
+        testVersioned("sumSnippet");
+        int[] array = {1, 2, 3, 4, 5};
+        test("sumSnippet", array, 0, 5);
+        test("sumSnippet", array, 2, 4);
+        test("sumSnippet", array, 3, 7);
+        test("sumSnippet", array, -1, 2);
+        test("sumSnippet", array, 4, 0);
+    }
+
+    @Test
+    public void testAdd() {
+        testVersioned("addSnippet");
+        test("addSnippet", new int[]{1, 2, 3}, new int[]{4, 5, 6, 7}, 3);
+        test("addSnippet", new int[]{1, 2, 3}, new int[]{4, 5, 6}, 3);
+    }
+
+    @SuppressWarnings("try")
+    private void testVersioned(String snippet) {
+        try (Scope s = Debug.scope("LoopVersioningTest", new DebugDumpScope(snippet))) {
+            StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+            PhaseContext context = new PhaseContext(getProviders());
+            new LoweringPhase(new CanonicalizerPhase(), LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, context);
+            new FloatingReadPhase().apply(graph);
+            MidTierContext midContext = new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.getProfilingInfo());
+            // hoists the null checks of the arrays so that their lengths become loop invariant
+            new LoopGuardHoistingPhase().apply(graph, midContext);
+            int boundsChecks = countBoundsChecks(graph);
+            new LoopVersioningPhase(new DefaultLoopPolicies()).apply(graph, midContext);
+            new CanonicalizerPhase().apply(graph, context);
+            Debug.dump(graph, "After versioning");
+
+            Assert.assertEquals(2, graph.getNodes(LoopBeginNode.TYPE).count());
+            // only the slow version of the loop keeps its bounds checks
+            Assert.assertEquals(boundsChecks, countBoundsChecks(graph));
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+
+    private static int countBoundsChecks(StructuredGraph graph) {
+        return graph.getNodes().filter(GuardNode.class).filter(g -> ((GuardNode) g).getReason() == DeoptimizationReason.BoundsCheckException).count();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.inlining;
+
+import static com.oracle.graal.compiler.common.GraalOptions.PolymorphicCallSiteMaxTargets;
+import static com.oracle.graal.compiler.common.GraalOptions.PolymorphicCallSiteMinProbability;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.nodes.CallTargetNode.InvokeKind;
+import com.oracle.graal.nodes.Invoke;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.extended.TypeSwitchNode;
+import com.oracle.graal.nodes.java.MethodCallTargetNode;
+import com.oracle.graal.nodes.spi.Replacements;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.inlining.InliningPhase;
+import com.oracle.graal.phases.common.inlining.policy.InliningPolicy;
+import com.oracle.graal.phases.common.inlining.walker.MethodInvocation;
+import com.oracle.graal.phases.tiers.HighTierContext;
+
+/**
+ * Tests that a polymorphic interface call site that is not inlined calls the most frequent
+ * receiver methods directly behind a type switch, with the interface call as the fallback.
+ */
+public class PolymorphicCallSiteTest extends GraalCompilerTest {
+
+    interface Shape {
+        int sides();
+    }
+
+    static final class Triangle implements Shape {
+        @Override
+        public int sides() {
+            return 3;
+        }
+    }
+
+    static final class Square implements Shape {
+        @Override
+        public int sides() {
+            return 4;
+        }
+    }
+
+    static final class Pentagon implements Shape {
+        @Override
+        public int sides() {
+            return 5;
+        }
+    }
+
+    private static final InliningPolicy NEVER_INLINE = new InliningPolicy() {
+        @Override
+        public boolean continueInlining(StructuredGraph graph) {
+            return true;
+        }
+
+        @Override
+        public boolean isWorthInlining(Replacements replacements, MethodInvocation invocation, int inliningDepth, boolean fullyProcessed) {
+            return false;
+        }
+    };
+
+    public static int sidesSnippet(Shape shape) {
+        return shape.sides();
+    }
+
+    @Before
+    public void profile() {
+        Shape triangle = new Triangle();
+        Shape square = new Square();
+        for (int i = 0; i < 10000; i++) {
+            sidesSnippet(i % 10 < 7 ? triangle : square);
+        }
+    }
+
+    private StructuredGraph devirtualize() {
+        ResolvedJavaMethod method = getResolvedJavaMethod("sidesSnippet");
+        StructuredGraph graph = parseProfiled(method, AllowAssumptions.YES);
+        HighTierContext context = new HighTierContext(getProviders(), getDefaultGraphBuilderSuite(), OptimisticOptimizations.ALL);
+        new InliningPhase(NEVER_INLINE, new CanonicalizerPhase()).apply(graph, context);
+        return graph;
+    }
+
+    /**
+     * Gets the names of the holders of the directly called methods and checks that exactly one
+     * interface call remains.
+     */
+    private static Set<String> directCallHolders(StructuredGraph graph) {
+        Set<String> holders = new HashSet<>();
+        int interfaceCalls = 0;
+        for (Invoke invoke : graph.getInvokes()) {
+            MethodCallTargetNode callTarget = (MethodCallTargetNode) invoke.callTarget();
+            if (callTarget.invokeKind() == InvokeKind.Special) {
+                holders.add(callTarget.targetMethod().getDeclaringClass().toJavaName(false));
+            } else {
+                Assert.assertEquals(InvokeKind.Interface, callTarget.invokeKind());
+                interfaceCalls++;
+            }
+        }
+        Assert.assertEquals("interface call fallback", 1, interfaceCalls);
+        return holders;
+    }
+
+    @Test
+    public void testGuardedDirectCalls() {
+        StructuredGraph graph = devirtualize();
+        Assert.assertEquals(1, graph.getNodes().filter(TypeSwitchNode.class).count());
+        Set<String> expected = new HashSet<>();
+        expected.add("PolymorphicCallSiteTest$Triangle");
+        expected.add("PolymorphicCallSiteTest$Square");
+        Assert.assertEquals(expected, directCallHolders(graph));
+    }
+
+    @Test
+    public void testMaxTargets() {
+        try (OverrideScope s = OptionValue.override(PolymorphicCallSiteMaxTargets, 1)) {
+            Set<String> holders = directCallHolders(devirtualize());
+            Assert.assertEquals(1, holders.size());
+            Assert.assertTrue(holders.toString(), holders.contains("PolymorphicCallSiteTest$Triangle"));
+        }
+    }
+
+    @Test
+    public void testMinProbability() {
+        try (OverrideScope s = OptionValue.override(PolymorphicCallSiteMinProbability, 0.5)) {
+            Set<String> holders = directCallHolders(devirtualize());
+            Assert.assertEquals(1, holders.size());
+            Assert.assertTrue(holders.toString(), holders.contains("PolymorphicCallSiteTest$Triangle"));
+        }
+    }
+
+    /**
+     * Receivers that were not profiled take the interface call instead of deoptimizing.
+     */
+    @Test
+    public void testUnprofiledReceiver() throws InvalidInstalledCodeException {
+        InstalledCode code = getCode(getResolvedJavaMethod("sidesSnippet"), devirtualize(), true);
+        Assert.assertEquals(3, code.executeVarargs(new Triangle()));
+        Assert.assertEquals(4, code.executeVarargs(new Square()));
+        Assert.assertEquals(5, code.executeVarargs(new Pentagon()));
+        Assert.assertTrue(code.isValid());
+    }
+}
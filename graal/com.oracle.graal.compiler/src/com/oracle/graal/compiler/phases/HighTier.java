@@ -26,6 +26,7 @@ import static com.oracle.graal.compiler.common.GraalOptions.ConditionalEliminati
 import static com.oracle.graal.compiler.common.GraalOptions.FullUnroll;
 import static com.oracle.graal.compiler.common.GraalOptions.ImmutableCode;
 import static com.oracle.graal.compiler.common.GraalOptions.LoopPeeling;
+import static com.oracle.graal.compiler.common.GraalOptions.LoopSpeculativeUnswitch;
 import static com.oracle.graal.compiler.common.GraalOptions.LoopUnswitch;
 import static com.oracle.graal.compiler.common.GraalOptions.OptCanonicalizer;
 import static com.oracle.graal.compiler.common.GraalOptions.OptConvertDeoptsToGuards;
@@ -38,6 +39,7 @@ import com.oracle.graal.loop.DefaultLoopPolicies;
 import com.oracle.graal.loop.LoopPolicies;
 import com.oracle.graal.loop.phases.LoopFullUnrollPhase;
 import com.oracle.graal.loop.phases.LoopPeelingPhase;
+import com.oracle.graal.loop.phases.LoopSpeculativeInvariantPhase;
 import com.oracle.graal.loop.phases.LoopUnswitchingPhase;
 import com.oracle.graal.nodes.spi.LoweringTool;
 import com.oracle.graal.options.Option;
@@ -99,6 +101,9 @@ public class HighTier extends PhaseSuite<HighTierContext> {
                 appendPhase(new LoopPeelingPhase(loopPolicies));
             }
             if (LoopUnswitch.getValue()) {
+                if (LoopSpeculativeUnswitch.getValue()) {
+                    appendPhase(new LoopSpeculativeInvariantPhase(loopPolicies));
+                }
                 appendPhase(new LoopUnswitchingPhase(loopPolicies));
             }
         }
@@ -24,6 +24,8 @@ package com.oracle.graal.compiler.phases;
 
 import static com.oracle.graal.compiler.common.GraalOptions.ConditionalElimination;
 import static com.oracle.graal.compiler.common.GraalOptions.ImmutableCode;
+import static com.oracle.graal.compiler.common.GraalOptions.LoopStrengthReduction;
+import static com.oracle.graal.compiler.common.GraalOptions.LoopVersioning;
 import static com.oracle.graal.compiler.common.GraalOptions.OptCanonicalizer;
 import static com.oracle.graal.compiler.common.GraalOptions.OptDeoptimizationGrouping;
 import static com.oracle.graal.compiler.common.GraalOptions.OptEliminatePartiallyRedundantGuards;
@@ -34,7 +36,12 @@ import static com.oracle.graal.compiler.common.GraalOptions.ReassociateInvariant
 import static com.oracle.graal.compiler.common.GraalOptions.UseGraalInstrumentation;
 import static com.oracle.graal.compiler.common.GraalOptions.VerifyHeapAtReturn;
 
+import com.oracle.graal.loop.DefaultLoopPolicies;
+import com.oracle.graal.loop.LoopPolicies;
+import com.oracle.graal.loop.phases.LoopGuardHoistingPhase;
 import com.oracle.graal.loop.phases.LoopSafepointEliminationPhase;
+import com.oracle.graal.loop.phases.LoopStrengthReductionPhase;
+import com.oracle.graal.loop.phases.LoopVersioningPhase;
 import com.oracle.graal.loop.phases.ReassociateInvariantPhase;
 import com.oracle.graal.nodes.spi.LoweringTool;
 import com.oracle.graal.phases.PhaseSuite;
@@ -104,8 +111,18 @@ public class MidTier extends PhaseSuite<MidTierContext> {
             appendPhase(canonicalizer);
         }
 
+        appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopGuardHoistingPhase()));
+
+        if (LoopVersioning.getValue()) {
+            appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopVersioningPhase(createLoopPolicies())));
+        }
+
         appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopSafepointEliminationPhase()));
 
+        if (LoopStrengthReduction.getValue()) {
+            appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopStrengthReductionPhase()));
+        }
+
         appendPhase(new LoopSafepointInsertionPhase());
 
         appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new GuardLoweringPhase()));
@@ -133,4 +150,8 @@ public class MidTier extends PhaseSuite<MidTierContext> {
             appendPhase(canonicalizer);
         }
     }
+
+    public LoopPolicies createLoopPolicies() {
+        return new DefaultLoopPolicies();
+    }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Adler32;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.hotspot.replacements.Adler32Substitutions;
+
+/**
+ * Tests compiled calls to {@link Adler32#update}. The calls are compiled inline only if the VM is
+ * run with {@code -Dgraal.UseAdler32Substitutions=true}, so the {@link Adler32Substitutions} are
+ * also tested directly against {@link Adler32}.
+ */
+@SuppressWarnings("javadoc")
+public class Adler32SubstitutionsTest extends GraalCompilerTest {
+
+    public static long update(byte[] input) {
+        Adler32 adler = new Adler32();
+        for (byte b : input) {
+            adler.update(b);
+        }
+        return adler.getValue();
+    }
+
+    @Test
+    public void test1() {
+        test("update", "some string".getBytes());
+    }
+
+    public static long updateBytes(byte[] input, int offset, int length) {
+        Adler32 adler = new Adler32();
+        adler.update(input, offset, length);
+        return adler.getValue();
+    }
+
+    @Test
+    public void test2() throws Throwable {
+        String classfileName = Adler32SubstitutionsTest.class.getSimpleName().replace('.', '/') + ".class";
+        InputStream s = Adler32SubstitutionsTest.class.getResourceAsStream(classfileName);
+        byte[] buf = new byte[s.available()];
+        new DataInputStream(s).readFully(buf);
+        test("updateBytes", buf, 0, buf.length);
+        for (int offset = 1; offset < buf.length; offset++) {
+            test("updateBytes", buf, offset, buf.length - offset);
+        }
+    }
+
+    /**
+     * Uses input that is longer than the number of bytes summed up between modulo reductions and
+     * consists of bytes with the high bit set.
+     */
+    @Test
+    public void test3() {
+        byte[] buf = new byte[20000];
+        new Random(42).nextBytes(buf);
+        test("updateBytes", buf, 0, buf.length);
+        Arrays.fill(buf, (byte) 0xff);
+        test("updateBytes", buf, 0, buf.length);
+        test("updateBytes", buf, 3, 5552);
+    }
+
+    public static long updateByteBuffer(ByteBuffer buffer) {
+        Adler32 adler = new Adler32();
+        buffer.rewind();
+        adler.update(buffer);
+        return adler.getValue();
+    }
+
+    @Test
+    public void test4() {
+        byte[] buf = new byte[20000];
+        new Random(43).nextBytes(buf);
+
+        ByteBuffer directBuf = ByteBuffer.allocateDirect(buf.length);
+        directBuf.put(buf);
+        ByteBuffer heapBuf = ByteBuffer.wrap(buf);
+
+        test("updateByteBuffer", directBuf);
+        test("updateByteBuffer", heapBuf);
+    }
+
+    private ResolvedJavaMethod getSubstitution(String name, Class<?>... parameterTypes) {
+        try {
+            return getMetaAccess().lookupJavaMethod(Adler32Substitutions.class.getDeclaredMethod(name, parameterTypes));
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static int adler32(byte[] buf, int offset, int length) {
+        Adler32 adler = new Adler32();
+        adler.update(buf, offset, length);
+        return (int) adler.getValue();
+    }
+
+    @Test
+    public void testJavaUpdate() {
+        ResolvedJavaMethod method = getSubstitution("update", int.class, int.class);
+        for (int b : new int[]{0, 1, 0x7f, 0x80, 0xff, -1}) {
+            Adler32 adler = new Adler32();
+            adler.update(b);
+            Assert.assertEquals((int) adler.getValue(), Adler32Substitutions.update(1, b));
+            test(method, null, 1, b);
+            // largest running sums that are still reduced modulo 65521
+            test(method, null, 0xfff0fff0, b);
+        }
+    }
+
+    /**
+     * Covers inputs shorter than, equal to and longer than the number of bytes summed up between
+     * modulo reductions, with bytes that have the high bit set.
+     */
+    @Test
+    public void testJavaUpdateBytes() {
+        ResolvedJavaMethod method = getSubstitution("updateBytes", int.class, byte[].class, int.class, int.class);
+        byte[] random = new byte[20000];
+        new Random(44).nextBytes(random);
+        byte[] ones = new byte[20000];
+        Arrays.fill(ones, (byte) 0xff);
+        for (byte[] buf : new byte[][]{random, ones}) {
+            for (int[] range : new int[][]{{0, 0}, {0, 1}, {5, 100}, {0, 5552}, {3, 5552}, {0, 5553}, {1, buf.length - 1}}) {
+                Assert.assertEquals(adler32(buf, range[0], range[1]), Adler32Substitutions.updateBytes(1, buf, range[0], range[1]));
+                test(method, null, 1, buf, range[0], range[1]);
+            }
+        }
+    }
+
+    /**
+     * The byte buffer substitution reads native memory through a word, so it can only be run
+     * compiled.
+     */
+    @Test
+    public void testJavaUpdateByteBuffer() throws InvalidInstalledCodeException {
+        InstalledCode code = getCode(getSubstitution("updateByteBuffer", int.class, long.class, int.class, int.class));
+        byte[] buf = new byte[20000];
+        new Random(45).nextBytes(buf);
+        long address = UNSAFE.allocateMemory(buf.length);
+        try {
+            for (int i = 0; i < buf.length; i++) {
+                UNSAFE.putByte(address + i, buf[i]);
+            }
+            for (int[] range : new int[][]{{0, 0}, {0, 1}, {5, 100}, {3, 5552}, {0, 5553}, {1, buf.length - 1}}) {
+                Assert.assertEquals(adler32(buf, range[0], range[1]), code.executeVarargs(1, address, range[0], range[1]));
+            }
+        } finally {
+            UNSAFE.freeMemory(address);
+        }
+    }
+}
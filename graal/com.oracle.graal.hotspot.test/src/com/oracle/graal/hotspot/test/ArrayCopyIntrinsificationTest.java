@@ -264,6 +264,45 @@ public class ArrayCopyIntrinsificationTest extends GraalCompilerTest {
         return dst;
     }
 
+    /**
+     * A fresh array may still be aliased by the other operand, so the copy must not be treated as
+     * disjoint.
+     */
+    @Test
+    public void testOverlappingCopyOfFreshArray() {
+        test("overlappingCopyOfFreshArray", true, supply(() -> new int[8]));
+        test("overlappingCopyOfFreshArray", false, supply(() -> new int[8]));
+    }
+
+    public static int[] overlappingCopyOfFreshArray(boolean alias, int[] other) {
+        int[] fresh = {1, 2, 3, 4, 5, 6, 7, 8};
+        int[] dst = alias ? fresh : other;
+        System.arraycopy(fresh, 0, dst, 1, 7);
+        return dst;
+    }
+
+    /**
+     * The stamps of the positions decide the copy direction.
+     */
+    @Test
+    public void testCopyDirectionFromStamps() {
+        for (int i = 0; i < 4; i++) {
+            test("forwardCopyFromStamps", supply(() -> new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}), i);
+            test("backwardCopyFromStamps", supply(() -> new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}), i);
+        }
+    }
+
+    public static int[] forwardCopyFromStamps(int[] array, int i) {
+        // the source range [4, 7] is above the destination range [0, 3]
+        System.arraycopy(array, (i & 3) + 4, array, i & 3, 8);
+        return array;
+    }
+
+    public static int[] backwardCopyFromStamps(int[] array, int i) {
+        System.arraycopy(array, i & 3, array, (i & 3) + 4, 8);
+        return array;
+    }
+
     /**
      * Test case derived from assertion while compiling <a href=
      * "https://code.google.com/r/baggiogamp-guava/source/browse/guava/src/com/google/common/collect/ArrayTable.java?r=d2e06112416223cb5437d43c12a989c0adc7345b#181"
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.TLAB_TOP_LOCATION;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.memory.FloatingReadNode;
+import com.oracle.graal.nodes.memory.ReadNode;
+
+/**
+ * Tests that the allocations materialized together by escape analysis share one TLAB reservation.
+ */
+public class MergedAllocationTest extends GraalCompilerTest {
+
+    static class Box {
+        final int value;
+
+        Box(int value) {
+            this.value = value;
+        }
+    }
+
+    static class Pair {
+        final Box first;
+        final Box second;
+        final long[] data;
+
+        Pair(Box first, Box second, long[] data) {
+            this.first = first;
+            this.second = second;
+            this.data = data;
+        }
+    }
+
+    static Object sink;
+    static Object sink2;
+
+    private int tlabTopReads = -1;
+
+    @Override
+    protected boolean checkLowTierGraph(StructuredGraph graph) {
+        tlabTopReads = 0;
+        for (Node n : graph.getNodes()) {
+            if (n instanceof ReadNode && ((ReadNode) n).getLocationIdentity().equals(TLAB_TOP_LOCATION)) {
+                tlabTopReads++;
+            } else if (n instanceof FloatingReadNode && ((FloatingReadNode) n).getLocationIdentity().equals(TLAB_TOP_LOCATION)) {
+                tlabTopReads++;
+            }
+        }
+        return true;
+    }
+
+    public static Pair mergedSnippet(int a, int b) {
+        Pair pair = new Pair(new Box(a), new Box(b), new long[4]);
+        pair.data[1] = b;
+        sink = pair;
+        return pair;
+    }
+
+    @Test
+    public void testMerged() {
+        test("mergedSnippet", 1, 2);
+        Assert.assertEquals("one TLAB top check for all four allocations", 1, tlabTopReads);
+    }
+
+    public static int separateSnippet(int n, int m) {
+        sink = new int[n];
+        sink2 = new int[m];
+        return n + m;
+    }
+
+    /**
+     * Arrays of dynamic length are not materialized by escape analysis and keep their own TLAB
+     * check.
+     */
+    @Test
+    public void testSeparate() {
+        test("separateSnippet", 3, 5);
+        Assert.assertEquals(2, tlabTopReads);
+    }
+
+    /**
+     * Runs the merged allocations often enough to exhaust the TLAB several times, so that some
+     * reservations fail and the allocations take their slow paths.
+     */
+    @Test
+    public void testFallback() throws InvalidInstalledCodeException {
+        ResolvedJavaMethod method = getResolvedJavaMethod("mergedSnippet");
+        InstalledCode code = getCode(method);
+        for (int i = 0; i < 200_000; i++) {
+            Pair pair = (Pair) code.executeVarargs(i, -i);
+            Assert.assertEquals(i, pair.first.value);
+            Assert.assertEquals(-i, pair.second.value);
+            Assert.assertEquals(-i, pair.data[1]);
+            Assert.assertEquals(4, pair.data.length);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.profileSiteName;
+
+import jdk.vm.ci.meta.JavaKind;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.hotspot.nodes.ReservedNewArrayNode;
+import com.oracle.graal.hotspot.nodes.ReservedNewInstanceNode;
+import com.oracle.graal.hotspot.nodes.TlabReservationNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.java.AbstractNewObjectNode;
+import com.oracle.graal.nodes.java.NewInstanceNode;
+
+/**
+ * Tests the names of the allocation and lock site counters of
+ * {@link com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions#ProfileAllocationSites}.
+ */
+public class ProfileSiteNameTest extends GraalCompilerTest {
+
+    static Object sink;
+
+    public static Object allocationSnippet(int n) {
+        sink = new Object();
+        return new Object[n];
+    }
+
+    @Test
+    public void testStateBefore() {
+        StructuredGraph graph = parseEager("allocationSnippet", AllowAssumptions.YES);
+        FrameState state = graph.getNodes(FrameState.TYPE).first();
+        AbstractNewObjectNode allocation = graph.getNodes().filter(AbstractNewObjectNode.class).first();
+        String site = profileSiteName(allocation, state);
+        Assert.assertTrue(site, site.endsWith(".allocationSnippet(int) bci " + state.bci));
+    }
+
+    /**
+     * Allocations without a state of their own, such as allocations materialized by escape
+     * analysis or formatted into a TLAB reservation, are attributed to the closest preceding
+     * state.
+     */
+    @Test
+    public void testWithoutStateBefore() {
+        StructuredGraph graph = parseEager("allocationSnippet", AllowAssumptions.YES);
+        for (AbstractNewObjectNode allocation : graph.getNodes().filter(AbstractNewObjectNode.class)) {
+            String site = profileSiteName(allocation, null);
+            Assert.assertTrue(site, site.contains(".allocationSnippet(int) bci "));
+        }
+    }
+
+    /**
+     * Allocations formatted into a TLAB reservation have no state of their own, since there is no
+     * safepoint between the reservation and their formatting.
+     */
+    @Test
+    public void testReservedAllocations() {
+        StructuredGraph graph = parseEager("allocationSnippet", AllowAssumptions.YES);
+        NewInstanceNode newInstance = graph.getNodes().filter(NewInstanceNode.class).first();
+        TlabReservationNode reservation = graph.add(new TlabReservationNode(JavaKind.Long, 64));
+        graph.addBeforeFixed(newInstance, reservation);
+        ReservedNewInstanceNode reservedInstance = graph.add(new ReservedNewInstanceNode(newInstance.instanceClass(), true, reservation, 0));
+        graph.replaceFixedWithFixed(newInstance, reservedInstance);
+        ReservedNewArrayNode reservedArray = graph.add(new ReservedNewArrayNode(getMetaAccess().lookupJavaType(long.class), ConstantNode.forInt(4, graph), true, reservation, 32));
+        graph.addAfterFixed(reservedInstance, reservedArray);
+
+        Assert.assertNull(reservedInstance.stateBefore());
+        Assert.assertNull(reservedArray.stateBefore());
+        for (AbstractNewObjectNode allocation : new AbstractNewObjectNode[]{reservedInstance, reservedArray}) {
+            String site = profileSiteName(allocation, allocation.stateBefore());
+            Assert.assertTrue(site, site.contains(".allocationSnippet(int) bci "));
+        }
+    }
+
+    @Test
+    public void testUnknownSite() {
+        StructuredGraph graph = parseEager("allocationSnippet", AllowAssumptions.YES);
+        NewInstanceNode detached = graph.add(new NewInstanceNode(getMetaAccess().lookupJavaType(Object.class), true));
+        Assert.assertEquals("unknown", profileSiteName(detached, null));
+    }
+}
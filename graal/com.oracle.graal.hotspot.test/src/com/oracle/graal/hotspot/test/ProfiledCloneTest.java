@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.hotspot.replacements.ObjectCloneNode;
+import com.oracle.graal.nodes.Invoke;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.type.StampTool;
+
+/**
+ * Tests {@link Object#clone()} call sites whose receiver type is only known from the profile.
+ */
+public class ProfiledCloneTest extends GraalCompilerTest {
+
+    static class Point implements Cloneable {
+        int x;
+        long y;
+        Object tag;
+
+        Point(int x, long y, Object tag) {
+            this.x = x;
+            this.y = y;
+            this.tag = tag;
+        }
+
+        @Override
+        protected Point clone() throws CloneNotSupportedException {
+            return (Point) super.clone();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Point) {
+                Point other = (Point) obj;
+                return other != this && x == other.x && y == other.y && tag == other.tag;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return x;
+        }
+    }
+
+    static class ColoredPoint extends Point {
+        int color;
+
+        ColoredPoint(int x, long y, Object tag, int color) {
+            super(x, y, tag);
+            this.color = color;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof ColoredPoint && super.equals(obj) && color == ((ColoredPoint) obj).color;
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode() ^ color;
+        }
+    }
+
+    public static Object cloneSnippet(Point p) throws CloneNotSupportedException {
+        return p.clone();
+    }
+
+    public static int[] arrayCloneSnippet(Object o) {
+        return ((int[]) o).clone();
+    }
+
+    @Test
+    public void testMonomorphicProfile() throws CloneNotSupportedException {
+        Point p = new Point(1, 2L, "tag");
+        for (int i = 0; i < 10000; i++) {
+            cloneSnippet(p);
+        }
+        test("cloneSnippet", p);
+        // a receiver of another type must fall back to the generic clone
+        test("cloneSnippet", new ColoredPoint(3, 4L, null, 5));
+    }
+
+    @Test
+    public void testArray() {
+        int[] array = {1, 2, 3, 4, 5};
+        for (int i = 0; i < 10000; i++) {
+            arrayCloneSnippet(array);
+        }
+        test("arrayCloneSnippet", array);
+    }
+
+    /**
+     * {@code p.clone()} inlines {@link Point#clone()}, whose {@code super.clone()} has no profile of
+     * its own. The profile of {@code p.clone()} must give the clone an exact receiver type, so that
+     * it is lowered to an allocation and field copy instead of a call into the runtime.
+     */
+    @Test
+    public void testProfiledCloneGraph() throws CloneNotSupportedException {
+        // a loaded subclass keeps Point from being a leaf type
+        Assert.assertNotNull(new ColoredPoint(0, 0L, null, 0));
+        Point p = new Point(1, 2L, "tag");
+        for (int i = 0; i < 10000; i++) {
+            cloneSnippet(p);
+        }
+
+        ResolvedJavaMethod method = getResolvedJavaMethod("cloneSnippet");
+        StructuredGraph graph = parseProfiled(method, AllowAssumptions.YES);
+        ObjectCloneNode clone = graph.getNodes().filter(ObjectCloneNode.class).first();
+        Assert.assertNotNull("clone() must be intrinsified", clone);
+        Assert.assertTrue(StampTool.isExactType(clone.getObject()));
+        Assert.assertEquals(getMetaAccess().lookupJavaType(Point.class), StampTool.typeOrNull(clone.getObject()));
+
+        compile(method, graph);
+        Assert.assertTrue("clone must not call into the runtime", graph.getNodes().filter(Invoke.class).isEmpty());
+    }
+}
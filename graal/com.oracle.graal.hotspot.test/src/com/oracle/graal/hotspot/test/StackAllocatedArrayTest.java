@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.hotspot.nodes.AllocaNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.java.NewArrayNode;
+
+/**
+ * Tests that non-escaping primitive arrays of bounded length are allocated in the stack frame.
+ */
+public class StackAllocatedArrayTest extends GraalCompilerTest {
+
+    /**
+     * Number of array allocations that reached lowering in the last compilation, i.e., that were
+     * not removed by escape analysis.
+     */
+    private int arrayAllocations = -1;
+    private int stackAllocations = -1;
+
+    @Override
+    protected boolean checkMidTierGraph(StructuredGraph graph) {
+        arrayAllocations = graph.getNodes().filter(NewArrayNode.class).count();
+        return true;
+    }
+
+    @Override
+    protected boolean checkLowTierGraph(StructuredGraph graph) {
+        stackAllocations = graph.getNodes().filter(AllocaNode.class).count();
+        return true;
+    }
+
+    /**
+     * Compiles and runs {@code name} and checks how many of its arrays were allocated in the stack
+     * frame and on the heap.
+     */
+    private void testAllocations(String name, int expectedStackAllocations, int expectedHeapAllocations, Object... args) {
+        arrayAllocations = -1;
+        stackAllocations = -1;
+        test(name, args);
+        Assert.assertEquals("stack allocations", expectedStackAllocations, stackAllocations);
+        Assert.assertEquals("heap allocations", expectedHeapAllocations, arrayAllocations - stackAllocations);
+    }
+
+    public static int boundedLengthSnippet(int n) {
+        byte[] buffer = new byte[(n & 3) + 4];
+        buffer[0] = 1;
+        buffer[3] = (byte) n;
+        return buffer[0] + buffer[1] + buffer[3] + buffer.length;
+    }
+
+    @Test
+    public void testBoundedLength() {
+        testAllocations("boundedLengthSnippet", 1, 0, 0);
+        test("boundedLengthSnippet", 7);
+        test("boundedLengthSnippet", -5);
+    }
+
+    public static int loopSnippet(int n) {
+        int sum = 0;
+        for (int j = 0; j < (n & 3); j++) {
+            int[] buffer = new int[(n + j) & 15];
+            for (int i = 0; i < buffer.length; i++) {
+                buffer[i] += i * j;
+            }
+            for (int i = 0; i < buffer.length; i++) {
+                sum += buffer[i];
+            }
+        }
+        return sum;
+    }
+
+    @Test
+    public void testLoop() {
+        testAllocations("loopSnippet", 1, 0, 3);
+        test("loopSnippet", 13);
+        test("loopSnippet", 100);
+    }
+
+    public static byte[] escapingSnippet(int n) {
+        byte[] buffer = new byte[n & 7];
+        if (buffer.length > 0) {
+            buffer[0] = (byte) n;
+        }
+        return buffer;
+    }
+
+    @Test
+    public void testEscaping() {
+        testAllocations("escapingSnippet", 0, 1, 5);
+    }
+
+    /**
+     * Arrays of constant length that do not escape are removed by escape analysis before they
+     * could be allocated anywhere.
+     */
+    public static int constantLengthSnippet(int n) {
+        int[] buffer = new int[4];
+        buffer[n & 3] = n;
+        return buffer[0] + buffer[3];
+    }
+
+    @Test
+    public void testConstantLength() {
+        testAllocations("constantLengthSnippet", 0, 0, 3);
+    }
+
+    public static int objectArraySnippet(int n) {
+        Object[] buffer = new Object[(n & 3) + 1];
+        buffer[0] = "element";
+        return buffer.length;
+    }
+
+    @Test
+    public void testObjectArray() {
+        testAllocations("objectArraySnippet", 0, 1, 6);
+    }
+
+    public static long largeArraySnippet(int n) {
+        long[] buffer = new long[(n & 63) + 1];
+        buffer[0] = n;
+        return buffer[0] + buffer.length;
+    }
+
+    @Test
+    public void testLargeArray() {
+        testAllocations("largeArraySnippet", 0, 1, 40);
+    }
+
+    public static int unboundedLengthSnippet(int n) {
+        byte[] buffer = new byte[n];
+        return buffer.length;
+    }
+
+    @Test
+    public void testUnboundedLength() {
+        testAllocations("unboundedLengthSnippet", 0, 1, 10);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+
+/**
+ * Tests the per-site cache of secondary type check results used by
+ * {@link com.oracle.graal.hotspot.replacements.InstanceOfSnippets#instanceofSecondaryCached}.
+ */
+public class TypeCheckInlineCacheTest extends GraalCompilerTest {
+
+    public static final class LocalList extends AbstractList<Object> {
+
+        @Override
+        public Object get(int index) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+    }
+
+    public static boolean isListSnippet(Object o) {
+        return o instanceof List;
+    }
+
+    private InstalledCode compileWithCache(Object[][] cacheOut) {
+        ResolvedJavaMethod method = getResolvedJavaMethod("isListSnippet");
+        StructuredGraph graph = parseEager(method, AllowAssumptions.YES);
+        InstalledCode code = getCode(method, graph, true);
+        for (ConstantNode c : graph.getNodes().filter(ConstantNode.class)) {
+            JavaConstant constant = c.asJavaConstant();
+            if (constant != null && constant.getJavaKind() == JavaKind.Object && !constant.isNull()) {
+                Object[] cache = getSnippetReflection().asObject(Object[].class, constant);
+                if (cache != null) {
+                    Assert.assertNull("more than one type check cache", cacheOut[0]);
+                    cacheOut[0] = cache;
+                }
+            }
+        }
+        Assert.assertNotNull("no type check cache", cacheOut[0]);
+        return code;
+    }
+
+    private static int countEntries(Object[] cache, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (cache[i] != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Repeated checks against more receiver types than there are cache entries must keep
+     * returning the right result while entries are replaced. The receivers include a lambda,
+     * whose VM anonymous class can be unloaded independently of its loader.
+     */
+    @Test
+    public void testCachedResults() throws InvalidInstalledCodeException {
+        Object[][] cacheOut = new Object[1][];
+        InstalledCode code = compileWithCache(cacheOut);
+        Object[] cache = cacheOut[0];
+        int cacheSize = cache.length / 2;
+        Runnable lambda = () -> {
+        };
+        Object[] receivers = {new ArrayList<>(), "string", new LinkedList<>(), 42, new LocalList(), new Object(), Collections.emptyList(), new HashMap<>(), lambda};
+        for (int round = 0; round < 3; round++) {
+            for (Object receiver : receivers) {
+                Assert.assertEquals(receiver.getClass().getName(), receiver instanceof List, code.executeVarargs(receiver));
+            }
+        }
+        Assert.assertNotEquals("no positive entries", 0, countEntries(cache, 0, cacheSize));
+        Assert.assertNotEquals("no negative entries", 0, countEntries(cache, cacheSize, cache.length));
+    }
+
+    @Test
+    public void testNull() throws InvalidInstalledCodeException {
+        Object[][] cacheOut = new Object[1][];
+        InstalledCode code = compileWithCache(cacheOut);
+        Assert.assertEquals(false, code.executeVarargs((Object) null));
+        Assert.assertEquals(0, countEntries(cacheOut[0], 0, cacheOut[0].length));
+    }
+
+    /**
+     * Types from a loader that may be unloaded while the compiled code is alive must not be cached,
+     * since the cache would keep the loader alive.
+     */
+    @Test
+    public void testForeignLoaderNotCached() throws Exception {
+        Object receiver = loadIsolated(LocalList.class).newInstance();
+        Assert.assertNotEquals(LocalList.class, receiver.getClass());
+        Object[][] cacheOut = new Object[1][];
+        InstalledCode code = compileWithCache(cacheOut);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(true, code.executeVarargs(receiver));
+        }
+        Assert.assertEquals(0, countEntries(cacheOut[0], 0, cacheOut[0].length));
+    }
+
+    private static Class<?> loadIsolated(Class<?> c) throws IOException {
+        String resource = c.getName().replace('.', '/') + ".class";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = c.getClassLoader().getResourceAsStream(resource)) {
+            byte[] buffer = new byte[4096];
+            for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+                bytes.write(buffer, 0, n);
+            }
+        }
+        byte[] classfile = bytes.toByteArray();
+        return new ClassLoader(null) {
+            Class<?> define() {
+                return defineClass(c.getName(), classfile, 0, classfile.length);
+            }
+        }.define();
+    }
+}
@@ -22,6 +22,8 @@
  */
 package com.oracle.graal.hotspot.test;
 
+import static com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase.Options.CoalesceCardMarks;
+import static com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase.Options.EliminateFreshObjectBarriers;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.config;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.referentOffset;
 
@@ -44,6 +46,7 @@ import com.oracle.graal.hotspot.nodes.G1PreWriteBarrier;
 import com.oracle.graal.hotspot.nodes.G1ReferentFieldReadBarrier;
 import com.oracle.graal.hotspot.nodes.SerialWriteBarrier;
 import com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase;
+import com.oracle.graal.hotspot.phases.WriteBarrierVerificationPhase;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.memory.HeapAccess.BarrierType;
@@ -51,6 +54,8 @@ import com.oracle.graal.nodes.memory.ReadNode;
 import com.oracle.graal.nodes.memory.WriteNode;
 import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
 import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
 import com.oracle.graal.phases.OptimisticOptimizations;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.GuardLoweringPhase;
@@ -241,6 +246,36 @@ public class WriteBarrierAdditionTest extends HotSpotGraalCompilerTest {
         test2("testArrayCopy", src, dst, dst.length);
     }
 
+    /**
+     * Expected no barriers if the VM defers the card marks of slow path allocations, since the
+     * object is written before any safepoint following its allocation.
+     */
+    @Test
+    public void test12() throws Exception {
+        testHelper("test12Snippet", config.useDeferredInitBarriers ? 0 : (config.useG1GC ? 4 : 1), true);
+    }
+
+    public static Container test12Snippet(Container value) {
+        Container main = new Container();
+        main.a = value;
+        main.b = value;
+        return main;
+    }
+
+    /**
+     * Expected 1 barrier for the Serial GC since both stores mark the same card, and 4 for G1 (2 pre
+     * + 2 post).
+     */
+    @Test
+    public void test13() throws Exception {
+        testHelper("test13Snippet", config.useG1GC ? 4 : 1, true);
+    }
+
+    public static void test13Snippet(Container main, Container temp1, Container temp2) {
+        main.a = temp1;
+        main.b = temp2;
+    }
+
     public static Object testUnsafeLoad(Unsafe theUnsafe, Object a, Object b, Object c) throws Exception {
         final int offset = (c == null ? 0 : ((Integer) c).intValue());
         final long displacement = (b == null ? 0 : ((Long) b).longValue());
@@ -254,10 +289,15 @@ public class WriteBarrierAdditionTest extends HotSpotGraalCompilerTest {
         return installedCode;
     }
 
-    @SuppressWarnings("try")
     private void testHelper(final String snippetName, final int expectedBarriers) throws Exception, SecurityException {
+        testHelper(snippetName, expectedBarriers, false);
+    }
+
+    @SuppressWarnings("try")
+    private void testHelper(final String snippetName, final int expectedBarriers, boolean optimizeBarriers) throws Exception, SecurityException {
         ResolvedJavaMethod snippet = getResolvedJavaMethod(snippetName);
-        try (Scope s = Debug.scope("WriteBarrierAdditionTest", snippet)) {
+        try (Scope s = Debug.scope("WriteBarrierAdditionTest", snippet);
+                        OverrideScope o = OptionValue.override(EliminateFreshObjectBarriers, optimizeBarriers, CoalesceCardMarks, optimizeBarriers)) {
             StructuredGraph graph = parseEager(snippet, AllowAssumptions.NO);
             HighTierContext highContext = getDefaultHighTierContext();
             MidTierContext midContext = new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.getProfilingInfo());
@@ -268,6 +308,9 @@ public class WriteBarrierAdditionTest extends HotSpotGraalCompilerTest {
             new LoweringPhase(new CanonicalizerPhase(), LoweringTool.StandardLoweringStage.MID_TIER).apply(graph, midContext);
             new WriteBarrierAdditionPhase(config).apply(graph);
             Debug.dump(graph, "After Write Barrier Addition");
+            if (optimizeBarriers) {
+                new WriteBarrierVerificationPhase(config).apply(graph);
+            }
 
             int barriers = 0;
             if (config.useG1GC) {
@@ -277,6 +320,9 @@ public class WriteBarrierAdditionTest extends HotSpotGraalCompilerTest {
                 barriers = graph.getNodes().filter(SerialWriteBarrier.class).count();
             }
             Assert.assertEquals(expectedBarriers, barriers);
+            if (optimizeBarriers) {
+                return;
+            }
             for (WriteNode write : graph.getNodes().filter(WriteNode.class)) {
                 if (config.useG1GC) {
                     if (write.getBarrierType() != BarrierType.NONE) {
@@ -22,6 +22,8 @@
  */
 package com.oracle.graal.hotspot.test;
 
+import static com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase.Options.CoalesceCardMarks;
+import static com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase.Options.EliminateFreshObjectBarriers;
 import static jdk.vm.ci.hotspot.HotSpotVMConfig.config;
 
 import java.util.List;
@@ -58,6 +60,8 @@ import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.memory.WriteNode;
 import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
 import com.oracle.graal.phases.OptimisticOptimizations;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.GuardLoweringPhase;
@@ -649,7 +653,8 @@ public class WriteBarrierVerificationTest extends HotSpotGraalCompilerTest {
 
     @SuppressWarnings("try")
     private void testPredicate(final String snippet, final GraphPredicate expectedBarriers, final int... removedBarrierIndices) {
-        try (Scope d = Debug.scope("WriteBarrierVerificationTest", new DebugDumpScope(snippet))) {
+        try (Scope d = Debug.scope("WriteBarrierVerificationTest", new DebugDumpScope(snippet));
+                        OverrideScope o = OptionValue.override(EliminateFreshObjectBarriers, false, CoalesceCardMarks, false)) {
             final StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
             HighTierContext highTierContext = getDefaultHighTierContext();
             new InliningPhase(new CanonicalizerPhase()).apply(graph, highTierContext);
@@ -40,6 +40,8 @@ import jdk.vm.ci.common.JVMCIError;
 import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
 import jdk.vm.ci.hotspot.HotSpotVMConfig;
 import jdk.vm.ci.inittimer.SuppressFBWarnings;
+import sun.misc.Signal;
+import sun.misc.SignalHandler;
 
 import com.oracle.graal.debug.TTY;
 import com.oracle.graal.hotspot.replacements.NewObjectSnippets;
@@ -53,8 +55,8 @@ import com.oracle.graal.options.StableOptionValue;
 
 /**
  * This class contains infrastructure to maintain counters based on {@link DynamicCounterNode}s. The
- * infrastructure is enabled by specifying either the GenericDynamicCounters or
- * BenchmarkDynamicCounters option.
+ * infrastructure is enabled by specifying either the GenericDynamicCounters,
+ * BenchmarkDynamicCounters, TimedDynamicCounters or DynamicCountersDumpSignal option.
  * <p>
  *
  * The counters are kept in a special area allocated for each native JavaThread object, and the
@@ -80,7 +82,8 @@ import com.oracle.graal.options.StableOptionValue;
  * {@code -G:+ProfileAllocations}.</li>
  * <li>The numbers will only include allocation from compiled code!</li>
  * <li>The counters can be further configured by modifying the
- * {@link NewObjectSnippets#PROFILE_MODE} field.</li>
+ * {@link NewObjectSnippets#PROFILE_MODE} field, or attributed to individual allocation sites with
+ * {@code -G:+ProfileAllocationSites}.</li>
  * </ul>
  */
 public class BenchmarkCounters {
@@ -92,6 +95,9 @@ public class BenchmarkCounters {
         public static final OptionValue<Boolean> GenericDynamicCounters = new OptionValue<>(false);
         @Option(help = "Turn on the benchmark counters, and displays the results every n milliseconds", type = OptionType.Debug)
         public static final OptionValue<Integer> TimedDynamicCounters = new OptionValue<>(-1);
+        @Option(help = "Turn on the benchmark counters, and displays the results accumulated since the previous dump " +
+                       "whenever the VM receives the named signal (e.g. USR2)", type = OptionType.Debug)
+        public static final OptionValue<String> DynamicCountersDumpSignal = new OptionValue<>(null);
 
         @Option(help = "Turn on the benchmark counters, and listen for specific patterns on System.out/System.err:%n" +
                        "Format: (err|out),start pattern,end pattern (~ matches multiple digits)%n" +
@@ -420,6 +426,21 @@ public class BenchmarkCounters {
             thread.start();
             enabled = true;
         }
+        if (Options.DynamicCountersDumpSignal.getValue() != null) {
+            Signal.handle(new Signal(Options.DynamicCountersDumpSignal.getValue()), new SignalHandler() {
+                long lastTime = System.nanoTime();
+                PrintStream out = getPrintStream();
+
+                @Override
+                public void handle(Signal signal) {
+                    long time = System.nanoTime();
+                    dump(out, (time - lastTime) / 1000000000d, jvmciRuntime.collectCounters(), 100);
+                    out.flush();
+                    lastTime = time;
+                }
+            });
+            enabled = true;
+        }
         if (enabled) {
             clear(jvmciRuntime.collectCounters());
         }
@@ -38,6 +38,7 @@ import static jdk.vm.ci.hotspot.HotSpotVMConfig.config;
 import static jdk.vm.ci.meta.LocationIdentity.any;
 
 import java.lang.ref.Reference;
+import java.util.List;
 
 import jdk.vm.ci.code.TargetDescription;
 import jdk.vm.ci.common.JVMCIError;
@@ -73,8 +74,11 @@ import com.oracle.graal.hotspot.nodes.G1ReferentFieldReadBarrier;
 import com.oracle.graal.hotspot.nodes.GetObjectAddressNode;
 import com.oracle.graal.hotspot.nodes.HotSpotDirectCallTargetNode;
 import com.oracle.graal.hotspot.nodes.HotSpotIndirectCallTargetNode;
+import com.oracle.graal.hotspot.nodes.ReservedNewArrayNode;
+import com.oracle.graal.hotspot.nodes.ReservedNewInstanceNode;
 import com.oracle.graal.hotspot.nodes.SerialArrayRangeWriteBarrier;
 import com.oracle.graal.hotspot.nodes.SerialWriteBarrier;
+import com.oracle.graal.hotspot.nodes.TlabReservationNode;
 import com.oracle.graal.hotspot.nodes.type.KlassPointerStamp;
 import com.oracle.graal.hotspot.nodes.type.MethodPointerStamp;
 import com.oracle.graal.hotspot.nodes.type.NarrowOopStamp;
@@ -127,6 +131,7 @@ import com.oracle.graal.nodes.extended.OSRLocalNode;
 import com.oracle.graal.nodes.extended.OSRStartNode;
 import com.oracle.graal.nodes.extended.StoreHubNode;
 import com.oracle.graal.nodes.extended.UnsafeLoadNode;
+import com.oracle.graal.nodes.java.AbstractNewObjectNode;
 import com.oracle.graal.nodes.java.CheckCastDynamicNode;
 import com.oracle.graal.nodes.java.ClassIsAssignableFromNode;
 import com.oracle.graal.nodes.java.DynamicNewArrayNode;
@@ -228,6 +233,18 @@ public class DefaultHotSpotLoweringProvider extends DefaultJavaLoweringProvider
             if (graph.getGuardsStage().areDeoptsFixed()) {
                 instanceofSnippets.lower((ClassIsAssignableFromNode) n, tool);
             }
+        } else if (n instanceof TlabReservationNode) {
+            if (graph.getGuardsStage().areFrameStatesAtDeopts()) {
+                newObjectSnippets.lower((TlabReservationNode) n, registers, tool);
+            }
+        } else if (n instanceof ReservedNewInstanceNode) {
+            if (graph.getGuardsStage().areFrameStatesAtDeopts()) {
+                newObjectSnippets.lower((ReservedNewInstanceNode) n, tool);
+            }
+        } else if (n instanceof ReservedNewArrayNode) {
+            if (graph.getGuardsStage().areFrameStatesAtDeopts()) {
+                newObjectSnippets.lower((ReservedNewArrayNode) n, tool);
+            }
         } else if (n instanceof NewInstanceNode) {
             if (graph.getGuardsStage().areFrameStatesAtDeopts()) {
                 newObjectSnippets.lower((NewInstanceNode) n, registers, tool);
@@ -237,7 +254,7 @@ public class DefaultHotSpotLoweringProvider extends DefaultJavaLoweringProvider
                 newObjectSnippets.lower((DynamicNewInstanceNode) n, registers, tool);
             }
         } else if (n instanceof NewArrayNode) {
-            if (graph.getGuardsStage().areFrameStatesAtDeopts()) {
+            if (graph.getGuardsStage().areFrameStatesAtDeopts() && !newObjectSnippets.lowerOnStack((NewArrayNode) n, tool)) {
                 newObjectSnippets.lower((NewArrayNode) n, registers, tool);
             }
         } else if (n instanceof DynamicNewArrayNode) {
@@ -618,6 +635,12 @@ public class DefaultHotSpotLoweringProvider extends DefaultJavaLoweringProvider
         return graph.add(new WriteNode(address, HUB_WRITE_LOCATION, writeValue, BarrierType.NONE));
     }
 
+    @Override
+    protected void lowerCommittedAllocations(List<AbstractNewObjectNode> newObjects, LoweringTool tool) {
+        newObjectSnippets.mergeAllocations(newObjects);
+        super.lowerCommittedAllocations(newObjects, tool);
+    }
+
     @Override
     protected BarrierType fieldLoadBarrierType(ResolvedJavaField f) {
         HotSpotResolvedJavaField loadField = (HotSpotResolvedJavaField) f;
@@ -30,25 +30,33 @@ import static com.oracle.graal.java.BytecodeParserOptions.InlineDuringParsing;
 import java.lang.invoke.ConstantCallSite;
 import java.lang.invoke.MutableCallSite;
 import java.lang.invoke.VolatileCallSite;
+import java.util.zip.Adler32;
 import java.util.zip.CRC32;
 
 import jdk.vm.ci.code.CodeUtil;
 import jdk.vm.ci.hotspot.HotSpotVMConfig;
 import jdk.vm.ci.meta.ConstantReflectionProvider;
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
 import jdk.vm.ci.meta.JavaConstant;
 import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.JavaTypeProfile;
 import jdk.vm.ci.meta.LocationIdentity;
 import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ProfilingInfo;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
 import jdk.vm.ci.services.Services;
 import sun.reflect.ConstantPool;
 import sun.reflect.Reflection;
 
 import com.oracle.graal.api.replacements.SnippetReflectionProvider;
 import com.oracle.graal.compiler.common.spi.ForeignCallsProvider;
+import com.oracle.graal.compiler.common.type.StampFactory;
 import com.oracle.graal.hotspot.nodes.ClassCastNode;
 import com.oracle.graal.hotspot.nodes.CurrentJavaThreadNode;
 import com.oracle.graal.hotspot.replacements.AESCryptSubstitutions;
+import com.oracle.graal.hotspot.replacements.Adler32Substitutions;
 import com.oracle.graal.hotspot.replacements.CRC32Substitutions;
 import com.oracle.graal.hotspot.replacements.CallSiteTargetNode;
 import com.oracle.graal.hotspot.replacements.CipherBlockChainingSubstitutions;
@@ -63,7 +71,10 @@ import com.oracle.graal.hotspot.replacements.ReflectionSubstitutions;
 import com.oracle.graal.hotspot.replacements.ThreadSubstitutions;
 import com.oracle.graal.hotspot.replacements.arraycopy.ArrayCopyNode;
 import com.oracle.graal.hotspot.word.HotSpotWordTypes;
+import com.oracle.graal.nodes.CallTargetNode.InvokeKind;
 import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.LogicNode;
 import com.oracle.graal.nodes.NamedLocationIdentity;
 import com.oracle.graal.nodes.PiNode;
 import com.oracle.graal.nodes.ValueNode;
@@ -77,12 +88,15 @@ import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugin.Receiver;
 import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugins;
 import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugins.Registration;
 import com.oracle.graal.nodes.graphbuilderconf.NodeIntrinsicPluginFactory;
+import com.oracle.graal.nodes.java.TypeCheckNode;
 import com.oracle.graal.nodes.memory.HeapAccess.BarrierType;
 import com.oracle.graal.nodes.memory.address.AddressNode;
 import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
 import com.oracle.graal.nodes.spi.StampProvider;
+import com.oracle.graal.nodes.type.StampTool;
 import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.options.StableOptionValue;
+import com.oracle.graal.phases.OptimisticOptimizations;
 import com.oracle.graal.replacements.InlineDuringParsingPlugin;
 import com.oracle.graal.replacements.MethodHandlePlugin;
 import com.oracle.graal.replacements.NodeIntrinsificationProvider;
@@ -135,6 +149,7 @@ public class HotSpotGraphBuilderPlugins {
                 registerStableOptionPlugins(invocationPlugins, snippetReflection);
                 registerAESPlugins(invocationPlugins, config);
                 registerCRC32Plugins(invocationPlugins, config);
+                registerAdler32Plugins(invocationPlugins);
                 StandardGraphBuilderPlugins.registerInvocationPlugins(metaAccess, invocationPlugins, true);
 
                 for (NodeIntrinsicPluginFactory factory : Services.load(NodeIntrinsicPluginFactory.class)) {
@@ -146,11 +161,57 @@ public class HotSpotGraphBuilderPlugins {
         return plugins;
     }
 
+    /**
+     * If the receiver type profile of a {@code clone()} call site is monomorphic, guards on the
+     * profiled type so that the {@link ObjectCloneNode} sees an exact type. This allows the clone
+     * to be lowered to an inline allocation and field copy, or to be virtualized, instead of
+     * calling into the runtime.
+     */
+    private static ValueNode speculateProfiledCloneType(GraphBuilderContext b, ValueNode object) {
+        if (b.parsingIntrinsic() || !b.getGraph().useProfilingInfo() || StampTool.isExactType(object)) {
+            return object;
+        }
+        JavaTypeProfile profile = getCloneReceiverProfile(b);
+        ResolvedJavaType singleType = profile == null ? null : profile.asSingleType();
+        if (singleType == null || !b.getMetaAccess().lookupJavaType(Cloneable.class).isAssignableFrom(singleType)) {
+            return object;
+        }
+        LogicNode typeCheck = b.add(TypeCheckNode.create(singleType, object));
+        if (typeCheck.isTautology()) {
+            return object;
+        }
+        FixedGuardNode guard = b.add(new FixedGuardNode(typeCheck, DeoptimizationReason.TypeCheckedInliningViolated, DeoptimizationAction.InvalidateReprofile));
+        return b.add(new PiNode(object, StampFactory.exactNonNull(singleType), guard));
+    }
+
+    /**
+     * Gets the receiver type profile of a {@code clone()} call site. A {@code super.clone()} call
+     * is an {@code invokespecial} without a type profile. If it is the body of a {@code clone()}
+     * override that was inlined while parsing, the profile of the virtual {@code clone()} call in
+     * the caller is used instead, since that call site saw the receiver of {@code super.clone()}.
+     */
+    private static JavaTypeProfile getCloneReceiverProfile(GraphBuilderContext b) {
+        GraphBuilderContext profiled = b;
+        if (b.getInvokeKind() == InvokeKind.Special) {
+            ResolvedJavaMethod method = b.getMethod();
+            GraphBuilderContext parent = b.getParent();
+            if (parent == null || parent.parsingIntrinsic() || !method.getName().equals("clone") || method.getSignature().getParameterCount(false) != 0) {
+                return null;
+            }
+            profiled = parent;
+        }
+        ProfilingInfo profilingInfo = profiled.getMethod().getProfilingInfo();
+        if (!new OptimisticOptimizations(profilingInfo).useTypeCheckHints()) {
+            return null;
+        }
+        return profilingInfo.getTypeProfile(profiled.bci());
+    }
+
     private static void registerObjectPlugins(InvocationPlugins plugins) {
         Registration r = new Registration(plugins, Object.class);
         r.register1("clone", Receiver.class, new InvocationPlugin() {
             public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver) {
-                ValueNode object = receiver.get();
+                ValueNode object = speculateProfiledCloneType(b, receiver.get());
                 b.addPush(JavaKind.Object, new ObjectCloneNode(b.getInvokeKind(), targetMethod, b.bci(), b.getInvokeReturnType(), object));
                 return true;
             }
@@ -418,4 +479,13 @@ public class HotSpotGraphBuilderPlugins {
             }
         }
     }
+
+    private static void registerAdler32Plugins(InvocationPlugins plugins) {
+        if (Adler32Substitutions.Options.UseAdler32Substitutions.getValue()) {
+            Registration r = new Registration(plugins, Adler32.class);
+            r.registerMethodSubstitution(Adler32Substitutions.class, "update", int.class, int.class);
+            r.registerMethodSubstitution(Adler32Substitutions.class, "updateBytes", int.class, byte[].class, int.class, int.class);
+            r.registerMethodSubstitution(Adler32Substitutions.class, "updateByteBuffer", int.class, long.class, int.class, int.class);
+        }
+    }
 }
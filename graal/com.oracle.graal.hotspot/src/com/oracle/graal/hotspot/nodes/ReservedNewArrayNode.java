@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.nodes;
+
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.java.NewArrayNode;
+
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * An array allocation of constant length that is formatted at a fixed offset into the memory
+ * reserved by a {@link TlabReservationNode}.
+ */
+@NodeInfo
+public final class ReservedNewArrayNode extends NewArrayNode {
+
+    public static final NodeClass<ReservedNewArrayNode> TYPE = NodeClass.create(ReservedNewArrayNode.class);
+
+    @Input TlabReservationNode reservation;
+    protected final int offset;
+
+    public ReservedNewArrayNode(ResolvedJavaType elementType, ValueNode length, boolean fillContents, TlabReservationNode reservation, int offset) {
+        super(TYPE, elementType, length, fillContents, null);
+        assert length.isConstant();
+        this.reservation = reservation;
+        this.offset = offset;
+    }
+
+    public TlabReservationNode getReservation() {
+        return reservation;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+}
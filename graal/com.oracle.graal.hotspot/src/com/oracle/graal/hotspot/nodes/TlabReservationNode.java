@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.nodes;
+
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.spi.Lowerable;
+import com.oracle.graal.nodes.spi.LoweringTool;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Reserves {@link #getSize() size} bytes in the TLAB for a group of allocations that are
+ * {@linkplain ReservedNewInstanceNode formatted} at fixed offsets into the reservation. The value
+ * of this node is the start of the reserved memory, or zero if the TLAB did not have enough space,
+ * in which case each allocation of the group takes its own slow path.
+ *
+ * The reserved memory is not parsable by the heap until all allocations of the group have been
+ * formatted, so there must not be a safepoint between this node and the last allocation of the
+ * group.
+ */
+@NodeInfo
+public final class TlabReservationNode extends FixedWithNextNode implements Lowerable {
+
+    public static final NodeClass<TlabReservationNode> TYPE = NodeClass.create(TlabReservationNode.class);
+
+    protected final int size;
+
+    public TlabReservationNode(JavaKind wordKind, int size) {
+        super(TYPE, StampFactory.forKind(wordKind));
+        this.size = size;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public void lower(LoweringTool tool) {
+        tool.getLowerer().lower(this, tool);
+    }
+}
@@ -22,10 +22,16 @@
  */
 package com.oracle.graal.hotspot.phases;
 
+import static com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase.Options.CoalesceCardMarks;
+import static com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase.Options.EliminateFreshObjectBarriers;
+
 import jdk.vm.ci.common.JVMCIError;
 import jdk.vm.ci.hotspot.HotSpotVMConfig;
 
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
 import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.iterators.NodePredicate;
 import com.oracle.graal.hotspot.nodes.G1ArrayRangePostWriteBarrier;
 import com.oracle.graal.hotspot.nodes.G1ArrayRangePreWriteBarrier;
 import com.oracle.graal.hotspot.nodes.G1PostWriteBarrier;
@@ -33,9 +39,16 @@ import com.oracle.graal.hotspot.nodes.G1PreWriteBarrier;
 import com.oracle.graal.hotspot.nodes.G1ReferentFieldReadBarrier;
 import com.oracle.graal.hotspot.nodes.SerialArrayRangeWriteBarrier;
 import com.oracle.graal.hotspot.nodes.SerialWriteBarrier;
+import com.oracle.graal.nodes.AbstractMergeNode;
+import com.oracle.graal.nodes.DeoptimizingNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.Invoke;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.extended.ArrayRangeWriteNode;
+import com.oracle.graal.nodes.extended.ForeignCallNode;
+import com.oracle.graal.nodes.java.AbstractNewObjectNode;
 import com.oracle.graal.nodes.java.LoweredAtomicReadAndWriteNode;
 import com.oracle.graal.nodes.java.LoweredCompareAndSwapNode;
 import com.oracle.graal.nodes.memory.FixedAccessNode;
@@ -43,11 +56,36 @@ import com.oracle.graal.nodes.memory.HeapAccess.BarrierType;
 import com.oracle.graal.nodes.memory.ReadNode;
 import com.oracle.graal.nodes.memory.WriteNode;
 import com.oracle.graal.nodes.memory.address.AddressNode;
+import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
 import com.oracle.graal.nodes.type.StampTool;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.nodes.virtual.AllocatedObjectNode;
+import com.oracle.graal.nodes.virtual.CommitAllocationNode;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
 import com.oracle.graal.phases.Phase;
 
 public class WriteBarrierAdditionPhase extends Phase {
 
+    public static class Options {
+
+        @Option(help = "Omit write barriers for stores into an object allocated since the last safepoint", type = OptionType.Debug)//
+        public static final OptionValue<Boolean> EliminateFreshObjectBarriers = new OptionValue<>(true);
+
+        @Option(help = "Mark the card of an object once for consecutive stores into it (card table collectors only)", type = OptionType.Debug)//
+        public static final OptionValue<Boolean> CoalesceCardMarks = new OptionValue<>(true);
+    }
+
+    /**
+     * Upper bound on the number of fixed nodes visited when looking for the allocation of a stored
+     * to object or for a card mark covering the same object.
+     */
+    private static final int MAX_SEARCH_DISTANCE = 32;
+
+    private static final DebugMetric FreshObjectBarriersEliminated = Debug.metric("FreshObjectBarriersEliminated");
+    private static final DebugMetric CoalescedCardMarks = Debug.metric("CoalescedCardMarks");
+
     private HotSpotVMConfig config;
 
     public WriteBarrierAdditionPhase(HotSpotVMConfig config) {
@@ -73,6 +111,9 @@ public class WriteBarrierAdditionPhase extends Phase {
                 }
             }
         }
+        if (!config.useG1GC && CoalesceCardMarks.getValue()) {
+            coalesceCardMarks(graph);
+        }
     }
 
     private void addReadNodeBarriers(ReadNode node, StructuredGraph graph) {
@@ -115,6 +156,10 @@ public class WriteBarrierAdditionPhase extends Phase {
                 break;
             case IMPRECISE:
             case PRECISE:
+                if (isFreshObjectStore(node)) {
+                    FreshObjectBarriersEliminated.increment();
+                    break;
+                }
                 boolean precise = barrierType == BarrierType.PRECISE;
                 if (config.useG1GC) {
                     if (!node.isInitialization()) {
@@ -185,4 +230,88 @@ public class WriteBarrierAdditionPhase extends Phase {
             graph.addAfterFixed(node, serialArrayRangeWriteBarrier);
         }
     }
+
+    /**
+     * Determines if {@code node} stores into an object that was allocated with no potential
+     * safepoint in between. Such an object is either in the young generation or, if the runtime
+     * allocated it elsewhere, covered by the card mark the VM defers until the next safepoint (see
+     * {@code useDeferredInitBarriers}). It was also allocated after any concurrent marking cycle
+     * started, so the values it held before the store are not part of the snapshot and need not be
+     * logged either.
+     */
+    private boolean isFreshObjectStore(FixedAccessNode node) {
+        if (!config.useDeferredInitBarriers || !EliminateFreshObjectBarriers.getValue() || !(node.getAddress() instanceof OffsetAddressNode)) {
+            return false;
+        }
+        FixedNode allocation = allocationOf(((OffsetAddressNode) node.getAddress()).getBase());
+        return allocation != null && findPrecedingWithoutSafepoint(node, n -> n == allocation) != null;
+    }
+
+    static FixedNode allocationOf(ValueNode object) {
+        ValueNode base = GraphUtil.unproxify(object);
+        if (base instanceof AbstractNewObjectNode) {
+            return (AbstractNewObjectNode) base;
+        } else if (base instanceof AllocatedObjectNode) {
+            return ((AllocatedObjectNode) base).getCommit();
+        }
+        return null;
+    }
+
+    /**
+     * Removes imprecise card marks that are followed by another card mark of the same object with no
+     * potential safepoint in between. The card table is only scanned at safepoints, so marking the
+     * card once after the last of a sequence of stores into an object is sufficient.
+     */
+    private static void coalesceCardMarks(StructuredGraph graph) {
+        for (SerialWriteBarrier barrier : graph.getNodes().filter(SerialWriteBarrier.class).snapshot()) {
+            if (!barrier.usePrecise() && barrier.getAddress() instanceof OffsetAddressNode) {
+                ValueNode object = ((OffsetAddressNode) barrier.getAddress()).getBase();
+                if (findFollowingWithoutSafepoint(barrier, n -> isImpreciseCardMark(n, object)) != null) {
+                    graph.removeFixed(barrier);
+                    CoalescedCardMarks.increment();
+                }
+            }
+        }
+    }
+
+    private static boolean isImpreciseCardMark(Node node, ValueNode object) {
+        if (node instanceof SerialWriteBarrier) {
+            SerialWriteBarrier barrier = (SerialWriteBarrier) node;
+            return !barrier.usePrecise() && barrier.getAddress() instanceof OffsetAddressNode && ((OffsetAddressNode) barrier.getAddress()).getBase() == object;
+        }
+        return false;
+    }
+
+    private static Node findPrecedingWithoutSafepoint(FixedNode start, NodePredicate target) {
+        Node current = start.predecessor();
+        for (int i = 0; i < MAX_SEARCH_DISTANCE && current != null; i++) {
+            if (target.apply(current)) {
+                return current;
+            }
+            if (isPotentialSafepoint(current)) {
+                return null;
+            }
+            current = current.predecessor();
+        }
+        return null;
+    }
+
+    static Node findFollowingWithoutSafepoint(FixedWithNextNode start, NodePredicate target) {
+        FixedNode current = start.next();
+        for (int i = 0; i < MAX_SEARCH_DISTANCE && current instanceof FixedWithNextNode; i++) {
+            if (target.apply(current)) {
+                return current;
+            }
+            if (isPotentialSafepoint(current)) {
+                return null;
+            }
+            current = ((FixedWithNextNode) current).next();
+        }
+        return null;
+    }
+
+    private static boolean isPotentialSafepoint(Node node) {
+        return (node instanceof DeoptimizingNode && ((DeoptimizingNode) node).canDeoptimize()) || node instanceof Invoke || node instanceof ForeignCallNode || node instanceof CommitAllocationNode ||
+                        node instanceof AbstractMergeNode;
+    }
 }
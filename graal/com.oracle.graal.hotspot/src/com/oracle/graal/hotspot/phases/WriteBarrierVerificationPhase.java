@@ -23,6 +23,9 @@
 
 package com.oracle.graal.hotspot.phases;
 
+import static com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase.Options.CoalesceCardMarks;
+import static com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase.Options.EliminateFreshObjectBarriers;
+
 import java.util.Iterator;
 
 import jdk.vm.ci.common.JVMCIError;
@@ -35,6 +38,7 @@ import com.oracle.graal.hotspot.nodes.G1PostWriteBarrier;
 import com.oracle.graal.hotspot.nodes.ObjectWriteBarrier;
 import com.oracle.graal.hotspot.nodes.SerialWriteBarrier;
 import com.oracle.graal.nodes.DeoptimizingNode;
+import com.oracle.graal.nodes.FixedNode;
 import com.oracle.graal.nodes.FixedWithNextNode;
 import com.oracle.graal.nodes.LoopBeginNode;
 import com.oracle.graal.nodes.StructuredGraph;
@@ -84,14 +88,19 @@ public class WriteBarrierVerificationPhase extends Phase {
          * The currently validated write is checked in order to discover if it has an appropriate
          * attached write barrier.
          */
-        if (hasAttachedBarrier((FixedWithNextNode) write)) {
+        if (hasAttachedBarrier((FixedWithNextNode) write) || hasCoalescedCardMark((FixedWithNextNode) write)) {
             return;
         }
+        FixedNode allocation = freshAllocation(write);
         NodeFlood frontier = write.graph().createNodeFlood();
         expandFrontier(frontier, write);
         Iterator<Node> iterator = frontier.iterator();
         while (iterator.hasNext()) {
             Node currentNode = iterator.next();
+            if (currentNode == allocation) {
+                // The object written to has been allocated since the last safepoint.
+                continue;
+            }
             if (isSafepoint(currentNode)) {
                 throw new AssertionError("Write barrier must be present " + write);
             }
@@ -108,6 +117,25 @@ public class WriteBarrierVerificationPhase extends Phase {
         }
     }
 
+    /**
+     * Checks for a card mark of the written object that was coalesced with the card marks of later
+     * stores by {@link WriteBarrierAdditionPhase}.
+     */
+    private boolean hasCoalescedCardMark(FixedWithNextNode node) {
+        if (useG1GC() || !CoalesceCardMarks.getValue() || !isObjectWrite(node)) {
+            return false;
+        }
+        FixedAccessNode write = (FixedAccessNode) node;
+        return WriteBarrierAdditionPhase.findFollowingWithoutSafepoint(write, n -> n instanceof SerialWriteBarrier && validateBarrier(write, (SerialWriteBarrier) n)) != null;
+    }
+
+    private FixedNode freshAllocation(Node write) {
+        if (config.useDeferredInitBarriers && EliminateFreshObjectBarriers.getValue() && isObjectWrite(write) && ((FixedAccessNode) write).getAddress() instanceof OffsetAddressNode) {
+            return WriteBarrierAdditionPhase.allocationOf(((OffsetAddressNode) ((FixedAccessNode) write).getAddress()).getBase());
+        }
+        return null;
+    }
+
     private boolean useG1GC() {
         return config.useG1GC;
     }
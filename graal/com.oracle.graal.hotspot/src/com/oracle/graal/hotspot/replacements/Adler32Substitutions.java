@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.replacements;
+
+import java.util.zip.Adler32;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.word.Word;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@link Adler32}. The JDK implements the checksum in native code reached through
+ * JNI. Compiling it inline avoids the native transition, which dominates for the short buffers
+ * typical of stream compression. For large buffers the native code can be faster, so the
+ * substitutions are only used if {@link Options#UseAdler32Substitutions} is enabled.
+ */
+@ClassSubstitution(Adler32.class)
+public class Adler32Substitutions {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Compile Adler32 checksums inline instead of calling the native JDK implementation.", type = OptionType.Expert)
+        public static final OptionValue<Boolean> UseAdler32Substitutions = new OptionValue<>(false);
+        // @formatter:on
+    }
+
+    /**
+     * Largest prime smaller than 65536.
+     */
+    private static final int BASE = 65521;
+
+    /**
+     * Largest number of bytes that can be summed up before the sum of the running sums has to be
+     * reduced modulo {@link #BASE} to stay within 32 unsigned bits.
+     */
+    private static final int NMAX = 5552;
+
+    @MethodSubstitution
+    public static int update(int adler, int b) {
+        int s1 = ((adler & 0xffff) + (b & 0xff)) % BASE;
+        int s2 = ((adler >>> 16) + s1) % BASE;
+        return (s2 << 16) | s1;
+    }
+
+    @MethodSubstitution
+    public static int updateBytes(int adler, byte[] b, int off, int len) {
+        int s1 = adler & 0xffff;
+        long s2 = adler >>> 16;
+        int index = off;
+        int end = off + len;
+        while (index < end) {
+            int blockEnd = end - index > NMAX ? index + NMAX : end;
+            for (; index < blockEnd; index++) {
+                s1 += b[index] & 0xff;
+                s2 += s1;
+            }
+            s1 %= BASE;
+            s2 %= BASE;
+        }
+        return ((int) s2 << 16) | s1;
+    }
+
+    @MethodSubstitution
+    public static int updateByteBuffer(int adler, long addr, int off, int len) {
+        Word buf = Word.unsigned(addr).add(off);
+        int s1 = adler & 0xffff;
+        long s2 = adler >>> 16;
+        int index = 0;
+        while (index < len) {
+            int blockEnd = len - index > NMAX ? index + NMAX : len;
+            for (; index < blockEnd; index++) {
+                s1 += buf.readByte(index) & 0xff;
+                s2 += s1;
+            }
+            s1 %= BASE;
+            s2 %= BASE;
+        }
+        return ((int) s2 << 16) | s1;
+    }
+}
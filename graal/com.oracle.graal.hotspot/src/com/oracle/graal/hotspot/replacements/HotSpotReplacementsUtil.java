@@ -49,6 +49,7 @@ import jdk.vm.ci.meta.ResolvedJavaType;
 import com.oracle.graal.api.replacements.Fold;
 import com.oracle.graal.compiler.common.spi.ForeignCallDescriptor;
 import com.oracle.graal.compiler.common.type.ObjectStamp;
+import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.Node.ConstantNodeParameter;
 import com.oracle.graal.graph.Node.NodeIntrinsic;
 import com.oracle.graal.graph.spi.CanonicalizerTool;
@@ -57,7 +58,11 @@ import com.oracle.graal.hotspot.nodes.SnippetAnchorNode;
 import com.oracle.graal.hotspot.word.KlassPointer;
 import com.oracle.graal.nodes.CanonicalizableLocation;
 import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.DeoptimizingNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FrameState;
 import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.StateSplit;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.extended.ForeignCallNode;
 import com.oracle.graal.nodes.extended.GuardingNode;
@@ -645,6 +650,12 @@ public class HotSpotReplacementsUtil {
 
     public static final LocationIdentity SECONDARY_SUPER_CACHE_LOCATION = NamedLocationIdentity.mutable("SecondarySuperCache");
 
+    /**
+     * The per-site result cache of a secondary type check. Only the snippet that owns a cache
+     * reads or writes it.
+     */
+    public static final LocationIdentity TYPE_CHECK_INLINE_CACHE_LOCATION = NamedLocationIdentity.mutable("TypeCheckInlineCache");
+
     @Fold
     public static int secondarySuperCacheOffset() {
         return config().secondarySuperCacheOffset;
@@ -999,4 +1010,29 @@ public class HotSpotReplacementsUtil {
     public static final LocationIdentity METASPACE_ARRAY_LENGTH_LOCATION = NamedLocationIdentity.immutable("MetaspaceArrayLength");
 
     public static final LocationIdentity SECONDARY_SUPERS_ELEMENT_LOCATION = NamedLocationIdentity.immutable("SecondarySupersElement");
+
+    /**
+     * Describes the bytecode position of a compiled allocation or lock site for use in the name of
+     * a profiling counter. Allocations materialized by escape analysis and allocations formatted
+     * into a TLAB reservation have no {@code stateBefore}. They are attributed to the closest
+     * preceding frame state instead.
+     */
+    public static String profileSiteName(FixedNode node, FrameState stateBefore) {
+        FrameState state = stateBefore;
+        for (Node n = node.predecessor(); state == null && n != null; n = n.predecessor()) {
+            if (n instanceof DeoptimizingNode.DeoptBefore) {
+                state = ((DeoptimizingNode.DeoptBefore) n).stateBefore();
+            }
+            if (state == null && n instanceof DeoptimizingNode.DeoptDuring) {
+                state = ((DeoptimizingNode.DeoptDuring) n).stateDuring();
+            }
+            if (state == null && n instanceof StateSplit) {
+                state = ((StateSplit) n).stateAfter();
+            }
+        }
+        if (state == null || state.method() == null) {
+            return "unknown";
+        }
+        return state.method().format("%H.%n(%p)") + " bci " + state.bci;
+    }
 }
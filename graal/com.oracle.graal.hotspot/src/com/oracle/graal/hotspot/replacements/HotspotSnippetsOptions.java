@@ -43,15 +43,37 @@ class HotspotSnippetsOptions {
                     "Note that TypeCheckMinProfileHitProbability also influences whether profiling info is used in compiled type checks.", type = OptionType.Expert)
     static final OptionValue<Integer> TypeCheckMaxHints = new OptionValue<>(2);
 
+    @Option(help = "Number of positive and of negative results cached at each secondary type check site that is not fully covered by " +
+                   "profiled hints. Must be a power of 2; 0 disables the cache.", type = OptionType.Expert)
+    static final OptionValue<Integer> TypeCheckInlineCacheSize = new OptionValue<>(4);
+
     @Option(help = "Use a VM runtime call to load and clear the exception object from the thread at the start of a compiled exception handler.", type = OptionType.Debug)
     static final OptionValue<Boolean> LoadExceptionObjectInVM = new OptionValue<>(false);
 
     @Option(help = "Enable profiling of allocation sites.", type = OptionType.Debug)
     static final OptionValue<Boolean> ProfileAllocations = new OptionValue<>(false);
 
+    @Option(help = "Attribute profiled allocations to their compiled allocation site (method, bci and type) instead of only to the allocated type.", type = OptionType.Debug)
+    static final OptionValue<Boolean> ProfileAllocationSites = new OptionValue<>(false);
+
+    @Option(help = "Allocate objects that are committed together by escape analysis with a single TLAB bump.", type = OptionType.Debug)
+    static final OptionValue<Boolean> MergeAllocations = new OptionValue<>(true);
+
+    @Option(help = "Maximum number of bytes that are reserved in the TLAB for a group of merged allocations.", type = OptionType.Expert)
+    static final OptionValue<Integer> MergedAllocationMaxSize = new OptionValue<>(512);
+
+    @Option(help = "Allocate primitive arrays of bounded length in the stack frame if they are only accessed by element reads and writes.", type = OptionType.Debug)
+    static final OptionValue<Boolean> StackAllocateArrays = new OptionValue<>(true);
+
+    @Option(help = "Maximum number of bytes of stack frame space reserved for a single stack allocated array.", type = OptionType.Expert)
+    static final OptionValue<Integer> StackAllocatedArrayMaxSize = new OptionValue<>(256);
+
     @Option(help = "Enable profiling of monitor operations.", type = OptionType.Debug)
     static final OptionValue<Boolean> ProfileMonitors = new OptionValue<>(false);
 
+    @Option(help = "Count monitor enters that call into the runtime (contended or inflated locks) per compiled lock site (method, bci and type).", type = OptionType.Debug)
+    static final OptionValue<Boolean> ProfileMonitorSites = new OptionValue<>(false);
+
     @Option(help = "Trace monitor operations on objects whose type contains this substring.", type = OptionType.Debug)
     static final OptionValue<String> TraceMonitorsTypeFilter = new OptionValue<>(null);
 
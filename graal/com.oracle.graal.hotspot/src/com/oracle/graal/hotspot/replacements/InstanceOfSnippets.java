@@ -24,7 +24,11 @@ package com.oracle.graal.hotspot.replacements;
 
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.PRIMARY_SUPERS_LOCATION;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.SECONDARY_SUPER_CACHE_LOCATION;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.TYPE_CHECK_INLINE_CACHE_LOCATION;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.arrayBaseOffset;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.arrayIndexScale;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.loadHubIntrinsic;
+import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.TypeCheckInlineCacheSize;
 import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.TypeCheckMaxHints;
 import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.TypeCheckMinProfileHitProbability;
 import static com.oracle.graal.hotspot.replacements.TypeCheckSnippetUtils.checkSecondarySubType;
@@ -36,20 +40,27 @@ import static com.oracle.graal.hotspot.replacements.TypeCheckSnippetUtils.exactH
 import static com.oracle.graal.hotspot.replacements.TypeCheckSnippetUtils.exactMiss;
 import static com.oracle.graal.hotspot.replacements.TypeCheckSnippetUtils.hintsHit;
 import static com.oracle.graal.hotspot.replacements.TypeCheckSnippetUtils.hintsMiss;
+import static com.oracle.graal.hotspot.replacements.TypeCheckSnippetUtils.inlineCacheHit;
+import static com.oracle.graal.hotspot.replacements.TypeCheckSnippetUtils.inlineCacheMiss;
 import static com.oracle.graal.hotspot.replacements.TypeCheckSnippetUtils.isNull;
+import static com.oracle.graal.nodes.NamedLocationIdentity.FINAL_LOCATION;
 import static com.oracle.graal.nodes.extended.BranchProbabilityNode.LIKELY_PROBABILITY;
 import static com.oracle.graal.nodes.extended.BranchProbabilityNode.NOT_FREQUENT_PROBABILITY;
 import static com.oracle.graal.nodes.extended.BranchProbabilityNode.NOT_LIKELY_PROBABILITY;
 import static com.oracle.graal.nodes.extended.BranchProbabilityNode.probability;
 import static jdk.vm.ci.meta.DeoptimizationAction.InvalidateReprofile;
 import static jdk.vm.ci.meta.DeoptimizationReason.OptimizedTypeCheckViolated;
+import jdk.vm.ci.code.CodeUtil;
 import jdk.vm.ci.code.TargetDescription;
 import jdk.vm.ci.common.JVMCIError;
+import jdk.vm.ci.hotspot.HotSpotResolvedJavaField;
 import jdk.vm.ci.hotspot.HotSpotResolvedObjectType;
 import jdk.vm.ci.meta.Assumptions;
 import jdk.vm.ci.meta.DeoptimizationAction;
 import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaConstant;
 import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaField;
 import jdk.vm.ci.meta.TriState;
 
 import com.oracle.graal.compiler.common.type.StampFactory;
@@ -79,6 +90,8 @@ import com.oracle.graal.replacements.SnippetTemplate.Arguments;
 import com.oracle.graal.replacements.SnippetTemplate.SnippetInfo;
 import com.oracle.graal.replacements.Snippets;
 import com.oracle.graal.replacements.nodes.ExplodeLoopNode;
+import com.oracle.graal.word.BarrieredAccess;
+import com.oracle.graal.word.ObjectAccess;
 
 /**
  * Snippets used for implementing the type test of an instanceof instruction. Since instanceof is a
@@ -166,7 +179,7 @@ public class InstanceOfSnippets implements Snippets {
     }
 
     /**
-     * A test against a restricted secondary type type.
+     * A test against a restricted secondary type.
      */
     @Snippet
     public static Object instanceofSecondary(KlassPointer hub, Object object, @VarargsParameter KlassPointer[] hints, @VarargsParameter boolean[] hintIsPositive, Object trueValue, Object falseValue) {
@@ -193,6 +206,66 @@ public class InstanceOfSnippets implements Snippets {
         return trueValue;
     }
 
+    /**
+     * A test against a restricted secondary type that remembers the outcome for the most recently
+     * seen receiver types. The {@code cache} array is private to the type check site. Its first
+     * {@code cacheSize} entries hold mirrors of types known to pass the test and the remaining
+     * entries hold mirrors of types known to fail it. Each entry is written independently, so
+     * concurrent updates can only lose entries but never associate a type with the wrong result.
+     *
+     * Mirrors rather than hubs are cached so that a stale entry cannot match a new class loaded at
+     * the address of an unloaded one. VM anonymous classes, such as those of lambdas, can be
+     * unloaded independently of their loader, so a raw hub would not be safe even for types of a
+     * loader that outlives the compiled code. To avoid keeping other loaders alive, only types
+     * defined by the boot loader or by {@code cacheableLoader} are cached. The latter is the loader
+     * of the compiled method's holder, which cannot be unloaded while the compiled code exists.
+     */
+    @Snippet
+    public static Object instanceofSecondaryCached(KlassPointer hub, Object object, @VarargsParameter KlassPointer[] hints, @VarargsParameter boolean[] hintIsPositive, Object[] cache,
+                    @ConstantParameter int cacheSize, @ConstantParameter int classLoaderOffset, Object cacheableLoader, Object trueValue, Object falseValue) {
+        if (probability(NOT_FREQUENT_PROBABILITY, object == null)) {
+            isNull.inc();
+            return falseValue;
+        }
+        GuardingNode anchorNode = SnippetAnchorNode.anchor();
+        KlassPointer objectHub = loadHubIntrinsic(PiNode.piCastNonNull(object, anchorNode));
+        // if we get an exact match: succeed immediately
+        ExplodeLoopNode.explodeLoop();
+        for (int i = 0; i < hints.length; i++) {
+            KlassPointer hintHub = hints[i];
+            boolean positive = hintIsPositive[i];
+            if (probability(NOT_FREQUENT_PROBABILITY, hintHub.equal(objectHub))) {
+                hintsHit.inc();
+                return positive ? trueValue : falseValue;
+            }
+        }
+        hintsMiss.inc();
+        Object objectMirror = HubGetClassNode.readClass(objectHub);
+        ExplodeLoopNode.explodeLoop();
+        for (int i = 0; i < cacheSize; i++) {
+            if (probability(NOT_FREQUENT_PROBABILITY, ObjectAccess.readObject(cache, inlineCacheOffset(i), TYPE_CHECK_INLINE_CACHE_LOCATION) == objectMirror)) {
+                inlineCacheHit.inc();
+                return trueValue;
+            }
+            if (probability(NOT_FREQUENT_PROBABILITY, ObjectAccess.readObject(cache, inlineCacheOffset(cacheSize + i), TYPE_CHECK_INLINE_CACHE_LOCATION) == objectMirror)) {
+                inlineCacheHit.inc();
+                return falseValue;
+            }
+        }
+        inlineCacheMiss.inc();
+        boolean result = checkSecondarySubType(hub, objectHub, false);
+        Object objectLoader = ObjectAccess.readObject(objectMirror, classLoaderOffset, FINAL_LOCATION);
+        if (objectLoader == null || objectLoader == cacheableLoader) {
+            int slot = (int) objectHub.asWord().unsignedShiftRight(3).rawValue() & (cacheSize - 1);
+            BarrieredAccess.writeObject(cache, inlineCacheOffset(result ? slot : cacheSize + slot), objectMirror, TYPE_CHECK_INLINE_CACHE_LOCATION);
+        }
+        return result ? trueValue : falseValue;
+    }
+
+    private static int inlineCacheOffset(int index) {
+        return arrayBaseOffset(JavaKind.Object) + index * arrayIndexScale(JavaKind.Object);
+    }
+
     /**
      * Type test used when the type being tested against is not known at compile time.
      */
@@ -236,11 +309,39 @@ public class InstanceOfSnippets implements Snippets {
         private final SnippetInfo instanceofExact = snippet(InstanceOfSnippets.class, "instanceofExact");
         private final SnippetInfo instanceofPrimary = snippet(InstanceOfSnippets.class, "instanceofPrimary");
         private final SnippetInfo instanceofSecondary = snippet(InstanceOfSnippets.class, "instanceofSecondary", SECONDARY_SUPER_CACHE_LOCATION);
+        private final SnippetInfo instanceofSecondaryCached = snippet(InstanceOfSnippets.class, "instanceofSecondaryCached", SECONDARY_SUPER_CACHE_LOCATION,
+                        TYPE_CHECK_INLINE_CACHE_LOCATION);
         private final SnippetInfo instanceofDynamic = snippet(InstanceOfSnippets.class, "instanceofDynamic", SECONDARY_SUPER_CACHE_LOCATION);
         private final SnippetInfo isAssignableFrom = snippet(InstanceOfSnippets.class, "isAssignableFrom", SECONDARY_SUPER_CACHE_LOCATION);
 
+        /**
+         * The {@code classLoader} field of {@link Class}, or null if the type check inline cache
+         * cannot be used on this VM.
+         */
+        private final HotSpotResolvedJavaField classLoaderField;
+
         public Templates(HotSpotProviders providers, TargetDescription target) {
             super(providers, providers.getSnippetReflection(), target);
+            HotSpotResolvedJavaField field = null;
+            for (ResolvedJavaField f : providers.getMetaAccess().lookupJavaType(Class.class).getInstanceFields(false)) {
+                if (f.getName().equals("classLoader")) {
+                    field = (HotSpotResolvedJavaField) f;
+                    break;
+                }
+            }
+            this.classLoaderField = field;
+        }
+
+        /**
+         * Gets the loader whose types may be cached by {@link #instanceofSecondaryCached} in
+         * {@code graph}, or null if the cache must not be used.
+         */
+        private JavaConstant cacheableLoader(StructuredGraph graph) {
+            if (classLoaderField == null || graph.method() == null) {
+                return null;
+            }
+            JavaConstant holder = providers.getConstantReflection().asJavaClass(graph.method().getDeclaringClass());
+            return providers.getConstantReflection().readFieldValue(classLoaderField, holder);
         }
 
         @Override
@@ -273,11 +374,24 @@ public class InstanceOfSnippets implements Snippets {
                     args.addConst("superCheckOffset", type.superCheckOffset());
                 } else {
                     Hints hints = createHints(hintInfo, providers.getMetaAccess(), false, graph);
-                    args = new Arguments(instanceofSecondary, graph.getGuardsStage(), tool.getLoweringStage());
+                    JavaConstant cacheableLoader = cacheableLoader(graph);
+                    int cacheSize = cacheableLoader == null ? 0 : TypeCheckInlineCacheSize.getValue();
+                    if (cacheSize > 0) {
+                        assert CodeUtil.isPowerOf2(cacheSize) : "TypeCheckInlineCacheSize must be a power of 2";
+                        args = new Arguments(instanceofSecondaryCached, graph.getGuardsStage(), tool.getLoweringStage());
+                    } else {
+                        args = new Arguments(instanceofSecondary, graph.getGuardsStage(), tool.getLoweringStage());
+                    }
                     args.add("hub", hub);
                     args.add("object", object);
                     args.addVarargs("hints", KlassPointer.class, KlassPointerStamp.klassNonNull(), hints.hubs);
                     args.addVarargs("hintIsPositive", boolean.class, StampFactory.forKind(JavaKind.Boolean), hints.isPositive);
+                    if (cacheSize > 0) {
+                        args.add("cache", ConstantNode.forConstant(snippetReflection.forObject(new Object[2 * cacheSize]), providers.getMetaAccess(), graph));
+                        args.addConst("cacheSize", cacheSize);
+                        args.addConst("classLoaderOffset", classLoaderField.offset());
+                        args.add("cacheableLoader", ConstantNode.forConstant(cacheableLoader, providers.getMetaAccess(), graph));
+                    }
                 }
                 args.add("trueValue", replacer.trueValue);
                 args.add("falseValue", replacer.falseValue);
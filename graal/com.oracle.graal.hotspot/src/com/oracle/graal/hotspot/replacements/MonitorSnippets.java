@@ -39,12 +39,14 @@ import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.load
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.lockDisplacedMarkOffset;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.markOffset;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.pageSize;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.profileSiteName;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.prototypeMarkWordOffset;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.registerAsWord;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.unlockedMask;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.useBiasedLocking;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.verifyOop;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.wordSize;
+import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.ProfileMonitorSites;
 import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.ProfileMonitors;
 import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.TraceMonitorsMethodFilter;
 import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.TraceMonitorsTypeFilter;
@@ -200,9 +202,14 @@ public class MonitorSnippets implements Snippets {
         return ProfileMonitors.getValue();
     }
 
+    @Fold
+    static boolean doProfileSites() {
+        return ProfileMonitorSites.getValue();
+    }
+
     @Snippet
     public static void monitorenter(Object object, KlassPointer hub, @ConstantParameter int lockDepth, @ConstantParameter Register threadRegister, @ConstantParameter Register stackPointerRegister,
-                    @ConstantParameter boolean trace) {
+                    @ConstantParameter boolean trace, @ConstantParameter String siteContext) {
         verifyOop(object);
 
         // Load the mark word - this includes a null-check on object
@@ -306,6 +313,7 @@ public class MonitorSnippets implements Snippets {
                         traceObject(trace, "+lock{stub:epoch-expired}", object, true);
                         lockStubEpochExpired.inc();
                     }
+                    profileSlowPathSite(siteContext);
                     monitorenterStubC(MONITORENTER, object, lock);
                     return;
                 } else {
@@ -364,6 +372,7 @@ public class MonitorSnippets implements Snippets {
                 // Most likely not a recursive lock, go into a slow runtime call
                 traceObject(trace, "+lock{stub:failed-cas}", object, true);
                 lockStubFailedCas.inc();
+                profileSlowPathSite(siteContext);
                 monitorenterStubC(MONITORENTER, object, lock);
                 return;
             } else {
@@ -383,7 +392,7 @@ public class MonitorSnippets implements Snippets {
      * Calls straight out to the monitorenter stub.
      */
     @Snippet
-    public static void monitorenterStub(Object object, @ConstantParameter int lockDepth, @ConstantParameter boolean trace) {
+    public static void monitorenterStub(Object object, @ConstantParameter int lockDepth, @ConstantParameter boolean trace, @ConstantParameter String siteContext) {
         verifyOop(object);
         incCounter();
         if (object == null) {
@@ -393,6 +402,7 @@ public class MonitorSnippets implements Snippets {
         // cannot float about the null check above
         final Word lock = beginLockScope(lockDepth);
         traceObject(trace, "+lock{stub}", object, true);
+        profileSlowPathSite(siteContext);
         monitorenterStubC(MONITORENTER, object, lock);
     }
 
@@ -472,6 +482,16 @@ public class MonitorSnippets implements Snippets {
         }
     }
 
+    /**
+     * Counts a monitor enter that has to call into the runtime, which happens for contended and
+     * inflated locks, attributed to the compiled lock site.
+     */
+    private static void profileSlowPathSite(String siteContext) {
+        if (doProfileSites()) {
+            DynamicCounterNode.counter(siteContext, "monitor enters calling the runtime", 1, false);
+        }
+    }
+
     public static void trace(boolean enabled, String format, WordBase value) {
         if (enabled) {
             Log.printf(format, value.rawValue());
@@ -556,6 +576,7 @@ public class MonitorSnippets implements Snippets {
             args.addConst("threadRegister", registers.getThreadRegister());
             args.addConst("stackPointerRegister", registers.getStackPointerRegister());
             args.addConst("trace", isTracingEnabledForType(monitorenterNode.object()) || isTracingEnabledForMethod(graph.method()));
+            args.addConst("siteContext", siteContext(monitorenterNode));
 
             template(args).instantiate(providers.getMetaAccess(), monitorenterNode, DEFAULT_REPLACER, args);
         }
@@ -576,6 +597,14 @@ public class MonitorSnippets implements Snippets {
             template(args).instantiate(providers.getMetaAccess(), monitorexitNode, DEFAULT_REPLACER, args);
         }
 
+        private static String siteContext(RawMonitorEnterNode monitorenterNode) {
+            if (!ProfileMonitorSites.getValue()) {
+                return "";
+            }
+            ResolvedJavaType type = StampTool.typeOrNull(monitorenterNode.object().stamp());
+            return (type == null ? "Object" : type.toJavaName(false)) + " @ " + profileSiteName(monitorenterNode, monitorenterNode.stateBefore());
+        }
+
         public static boolean isTracingEnabledForType(ValueNode object) {
             ResolvedJavaType type = StampTool.typeOrNull(object.stamp());
             String filter = TraceMonitorsTypeFilter.getValue();
@@ -43,6 +43,7 @@ import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.layo
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.layoutHelperLog2ElementSizeShift;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.loadKlassFromObject;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.prototypeMarkWordOffset;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.profileSiteName;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.readLayoutHelper;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.readTlabEnd;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.readTlabTop;
@@ -52,6 +53,10 @@ import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.useT
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.verifyOop;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.wordSize;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.writeTlabTop;
+import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.MergeAllocations;
+import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.MergedAllocationMaxSize;
+import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.StackAllocateArrays;
+import static com.oracle.graal.hotspot.replacements.HotspotSnippetsOptions.StackAllocatedArrayMaxSize;
 import static com.oracle.graal.nodes.PiArrayNode.piArrayCast;
 import static com.oracle.graal.nodes.PiNode.piCast;
 import static com.oracle.graal.nodes.extended.BranchProbabilityNode.FAST_PATH_PROBABILITY;
@@ -64,6 +69,10 @@ import static com.oracle.graal.replacements.SnippetTemplate.DEFAULT_REPLACER;
 import static com.oracle.graal.replacements.nodes.ExplodeLoopNode.explodeLoop;
 import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntimeProvider.getArrayBaseOffset;
 import static jdk.vm.ci.hotspot.HotSpotMetaAccessProvider.computeArrayAllocationSize;
+
+import java.util.BitSet;
+import java.util.List;
+
 import jdk.vm.ci.code.CodeUtil;
 import jdk.vm.ci.code.Register;
 import jdk.vm.ci.code.TargetDescription;
@@ -78,15 +87,22 @@ import jdk.vm.ci.meta.ResolvedJavaType;
 
 import com.oracle.graal.api.replacements.Fold;
 import com.oracle.graal.compiler.common.spi.ForeignCallDescriptor;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
 import com.oracle.graal.compiler.common.type.StampFactory;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.Node.ConstantNodeParameter;
 import com.oracle.graal.graph.Node.NodeIntrinsic;
 import com.oracle.graal.hotspot.HotSpotBackend;
 import com.oracle.graal.hotspot.meta.HotSpotProviders;
 import com.oracle.graal.hotspot.meta.HotSpotRegistersProvider;
+import com.oracle.graal.hotspot.nodes.AllocaNode;
 import com.oracle.graal.hotspot.nodes.DimensionsNode;
 import com.oracle.graal.hotspot.nodes.PrefetchAllocateNode;
+import com.oracle.graal.hotspot.nodes.ReservedNewArrayNode;
+import com.oracle.graal.hotspot.nodes.ReservedNewInstanceNode;
+import com.oracle.graal.hotspot.nodes.TlabReservationNode;
 import com.oracle.graal.hotspot.nodes.type.KlassPointerStamp;
 import com.oracle.graal.hotspot.word.KlassPointer;
 import com.oracle.graal.nodes.ConstantNode;
@@ -97,12 +113,15 @@ import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.debug.DynamicCounterNode;
 import com.oracle.graal.nodes.debug.VerifyHeapNode;
 import com.oracle.graal.nodes.extended.BranchProbabilityNode;
+import com.oracle.graal.nodes.extended.FixedValueAnchorNode;
 import com.oracle.graal.nodes.extended.ForeignCallNode;
+import com.oracle.graal.nodes.java.AbstractNewObjectNode;
 import com.oracle.graal.nodes.java.DynamicNewArrayNode;
 import com.oracle.graal.nodes.java.DynamicNewInstanceNode;
 import com.oracle.graal.nodes.java.NewArrayNode;
 import com.oracle.graal.nodes.java.NewInstanceNode;
 import com.oracle.graal.nodes.java.NewMultiArrayNode;
+import com.oracle.graal.nodes.memory.Access;
 import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
 import com.oracle.graal.nodes.spi.LoweringTool;
 import com.oracle.graal.nodes.util.GraphUtil;
@@ -138,6 +157,9 @@ public class NewObjectSnippets implements Snippets {
 
     @Fold
     static String createName(String path, String typeContext) {
+        if (HotspotSnippetsOptions.ProfileAllocationSites.getValue()) {
+            return typeContext;
+        }
         switch (PROFILE_MODE) {
             case AllocatingMethods:
                 return "";
@@ -272,6 +294,68 @@ public class NewObjectSnippets implements Snippets {
     @NodeIntrinsic(value = ForeignCallNode.class, returnStampIsNonNull = true)
     public static native Object newArray(@ConstantNodeParameter ForeignCallDescriptor descriptor, KlassPointer hub, int length, boolean fillContents);
 
+    /**
+     * Reserves memory for a group of allocations with a single TLAB bump. Returns the start of the
+     * reserved memory or zero if the allocations must use their slow paths.
+     */
+    @Snippet
+    public static Word reserveTlab(@ConstantParameter int size, @ConstantParameter Register threadRegister) {
+        Word thread = registerAsWord(threadRegister);
+        Word top = readTlabTop(thread);
+        Word end = readTlabEnd(thread);
+        Word newTop = top.add(size);
+        if (useTLAB() && probability(FAST_PATH_PROBABILITY, newTop.belowOrEqual(end))) {
+            writeTlabTop(thread, newTop);
+            emitPrefetchAllocate(newTop, false);
+            merged_tlab.inc();
+            return top;
+        }
+        merged_stub.inc();
+        return Word.zero();
+    }
+
+    @Snippet
+    public static Object allocateInstanceInReservation(Word reservation, @ConstantParameter int offset, @ConstantParameter int size, KlassPointer hub, Word prototypeMarkWord,
+                    @ConstantParameter boolean fillContents, @ConstantParameter String typeContext) {
+        Object result;
+        if (probability(FAST_PATH_PROBABILITY, reservation.notEqual(0))) {
+            result = formatObject(hub, size, reservation.add(offset), prototypeMarkWord, fillContents, true, true);
+        } else {
+            new_stub.inc();
+            result = newInstance(HotSpotBackend.NEW_INSTANCE, hub);
+        }
+        profileAllocation("instance", size, typeContext);
+        return piCast(verifyOop(result), StampFactory.forNodeIntrinsic());
+    }
+
+    @Snippet
+    public static Object allocateArrayInReservation(Word reservation, @ConstantParameter int offset, KlassPointer hub, @ConstantParameter int length, Word prototypeMarkWord,
+                    @ConstantParameter int allocationSize, @ConstantParameter int headerSize, @ConstantParameter boolean fillContents, @ConstantParameter String typeContext) {
+        Object result;
+        if (probability(FAST_PATH_PROBABILITY, reservation.notEqual(0))) {
+            result = formatArray(hub, allocationSize, length, headerSize, reservation.add(offset), prototypeMarkWord, fillContents, true, true);
+        } else {
+            newarray_stub.inc();
+            result = newArray(HotSpotBackend.NEW_ARRAY, hub, length, fillContents);
+        }
+        profileAllocation("array", allocationSize, typeContext);
+        return piArrayCast(verifyOop(result), length, StampFactory.forNodeIntrinsic());
+    }
+
+    /**
+     * Formats an array in a block of the stack frame. Only the length is written to the header
+     * since the array is only ever accessed by reads and writes of its length and elements.
+     */
+    @Snippet
+    public static void formatStackArray(Word memory, int length, @ConstantParameter int headerSize, @ConstantParameter int log2ElementSize, @ConstantParameter boolean fillContents) {
+        int allocationSize = computeArrayAllocationSize(length, wordSize(), headerSize, log2ElementSize);
+        memory.writeInt(arrayLengthOffset(), length, INIT_LOCATION);
+        if (fillContents) {
+            zeroMemory(allocationSize, memory, false, headerSize, false, true);
+        }
+        newarray_stack.inc();
+    }
+
     public static final ForeignCallDescriptor DYNAMIC_NEW_ARRAY = new ForeignCallDescriptor("dynamic_new_array", Object.class, Class.class, int.class);
     public static final ForeignCallDescriptor DYNAMIC_NEW_INSTANCE = new ForeignCallDescriptor("dynamic_new_instance", Object.class, Class.class);
 
@@ -483,6 +567,10 @@ public class NewObjectSnippets implements Snippets {
                         TLAB_END_LOCATION);
         private final SnippetInfo newmultiarray = snippet(NewObjectSnippets.class, "newmultiarray", INIT_LOCATION, TLAB_TOP_LOCATION, TLAB_END_LOCATION);
         private final SnippetInfo verifyHeap = snippet(NewObjectSnippets.class, "verifyHeap");
+        private final SnippetInfo reserveTlab = snippet(NewObjectSnippets.class, "reserveTlab", TLAB_TOP_LOCATION, TLAB_END_LOCATION);
+        private final SnippetInfo allocateInstanceInReservation = snippet(NewObjectSnippets.class, "allocateInstanceInReservation", INIT_LOCATION, MARK_WORD_LOCATION, HUB_WRITE_LOCATION);
+        private final SnippetInfo allocateArrayInReservation = snippet(NewObjectSnippets.class, "allocateArrayInReservation", INIT_LOCATION, MARK_WORD_LOCATION, HUB_WRITE_LOCATION);
+        private final SnippetInfo formatStackArray = snippet(NewObjectSnippets.class, "formatStackArray", INIT_LOCATION);
 
         public Templates(HotSpotProviders providers, TargetDescription target) {
             super(providers, providers.getSnippetReflection(), target);
@@ -505,7 +593,7 @@ public class NewObjectSnippets implements Snippets {
             args.addConst("fillContents", newInstanceNode.fillContents());
             args.addConst("threadRegister", registers.getThreadRegister());
             args.addConst("constantSize", true);
-            args.addConst("typeContext", HotspotSnippetsOptions.ProfileAllocations.getValue() ? type.toJavaName(false) : "");
+            args.addConst("typeContext", typeContext(type, newInstanceNode));
 
             SnippetTemplate template = template(args);
             Debug.log("Lowering allocateInstance in %s: node=%s, template=%s, arguments=%s", graph, newInstanceNode, template, args);
@@ -535,12 +623,206 @@ public class NewObjectSnippets implements Snippets {
             args.addConst("fillContents", newArrayNode.fillContents());
             args.addConst("threadRegister", registers.getThreadRegister());
             args.addConst("maybeUnroll", length.isConstant());
-            args.addConst("typeContext", HotspotSnippetsOptions.ProfileAllocations.getValue() ? arrayType.toJavaName(false) : "");
+            args.addConst("typeContext", typeContext(arrayType, newArrayNode));
             SnippetTemplate template = template(args);
             Debug.log("Lowering allocateArray in %s: node=%s, template=%s, arguments=%s", graph, newArrayNode, template, args);
             template.instantiate(providers.getMetaAccess(), newArrayNode, DEFAULT_REPLACER, args);
         }
 
+        /**
+         * Lowers a {@link NewArrayNode} to a block of the stack frame if the array has a primitive
+         * element type, a length with a small upper bound and is only used as the base of element
+         * and length accesses. Such an array cannot escape and is not referenced by any frame state,
+         * so its address never has to be described as an object reference to the garbage collector
+         * or the deoptimization machinery. The block is reserved for the whole method. This is safe
+         * in loops as well, since without a phi or proxy usage of the array no access can observe
+         * the array of a previous iteration.
+         *
+         * @return {@code true} if {@code newArrayNode} was lowered, {@code false} if it must be
+         *         allocated on the heap
+         */
+        public boolean lowerOnStack(NewArrayNode newArrayNode, LoweringTool tool) {
+            int size = stackAllocationSize(newArrayNode);
+            if (size < 0) {
+                return false;
+            }
+            StructuredGraph graph = newArrayNode.graph();
+            JavaKind elementKind = newArrayNode.elementType().getJavaKind();
+            AllocaNode memory = graph.add(new AllocaNode(size / target.wordSize, target.wordJavaKind, new BitSet()));
+            graph.addBeforeFixed(newArrayNode, memory);
+            /*
+             * The accesses to the array are anchored after the formatting of the block, which
+             * writes to a different location than the element accesses.
+             */
+            FixedValueAnchorNode array = graph.add(new FixedValueAnchorNode(memory));
+            graph.addAfterFixed(newArrayNode, array);
+            newArrayNode.replaceAtUsages(array);
+
+            Arguments args = new Arguments(formatStackArray, graph.getGuardsStage(), tool.getLoweringStage());
+            args.add("memory", memory);
+            ValueNode length = newArrayNode.length();
+            args.add("length", length.isAlive() ? length : graph.addOrUniqueWithInputs(length));
+            args.addConst("headerSize", getArrayBaseOffset(elementKind));
+            args.addConst("log2ElementSize", CodeUtil.log2(HotSpotJVMCIRuntimeProvider.getArrayIndexScale(elementKind)));
+            args.addConst("fillContents", newArrayNode.fillContents());
+            template(args).instantiate(providers.getMetaAccess(), newArrayNode, DEFAULT_REPLACER, args);
+            Debug.log("Allocated array of %d bytes in the stack frame of %s", size, graph);
+            STACK_ALLOCATED_ARRAYS.increment();
+            return true;
+        }
+
+        /**
+         * Gets the number of bytes of stack frame space needed for the largest array
+         * {@code newArrayNode} can allocate, or -1 if it must be allocated on the heap.
+         */
+        private int stackAllocationSize(NewArrayNode newArrayNode) {
+            JavaKind elementKind = newArrayNode.elementType().getJavaKind();
+            if (!StackAllocateArrays.getValue() || elementKind == JavaKind.Object || !(newArrayNode.length().stamp() instanceof IntegerStamp)) {
+                return -1;
+            }
+            IntegerStamp lengthStamp = (IntegerStamp) newArrayNode.length().stamp();
+            if (lengthStamp.lowerBound() < 0 || lengthStamp.upperBound() > MAX_ARRAY_FAST_PATH_ALLOCATION_LENGTH) {
+                return -1;
+            }
+            int size = arrayAllocationSize(elementKind, (int) lengthStamp.upperBound());
+            if (size > StackAllocatedArrayMaxSize.getValue()) {
+                return -1;
+            }
+            LocationIdentity elementLocation = NamedLocationIdentity.getArrayLocation(elementKind);
+            for (Node usage : newArrayNode.usages()) {
+                if (!(usage instanceof OffsetAddressNode) || ((OffsetAddressNode) usage).getBase() != newArrayNode) {
+                    return -1;
+                }
+                for (Node access : usage.usages()) {
+                    if (!(access instanceof Access) || ((Access) access).getAddress() != usage) {
+                        return -1;
+                    }
+                    LocationIdentity location = ((Access) access).getLocationIdentity();
+                    if (!location.equals(elementLocation) && !location.equals(NamedLocationIdentity.ARRAY_LENGTH_LOCATION)) {
+                        return -1;
+                    }
+                }
+            }
+            return size;
+        }
+
+        /**
+         * Merges runs of consecutive fixed size allocations into a single TLAB reservation. The
+         * allocations must be in program order and separated only by writes that cannot
+         * safepoint, as is the case for the allocations of a
+         * {@link com.oracle.graal.nodes.virtual.CommitAllocationNode}.
+         */
+        public void mergeAllocations(List<AbstractNewObjectNode> newObjects) {
+            if (!MergeAllocations.getValue() || !config().useTLAB) {
+                return;
+            }
+            int runStart = 0;
+            int runSize = 0;
+            for (int i = 0; i <= newObjects.size(); i++) {
+                int size = i < newObjects.size() ? reservableSize(newObjects.get(i)) : -1;
+                if (size < 0 || runSize + size > MergedAllocationMaxSize.getValue()) {
+                    if (i - runStart > 1) {
+                        reserve(newObjects, runStart, i, runSize);
+                    }
+                    runStart = size < 0 ? i + 1 : i;
+                    runSize = size < 0 ? 0 : size;
+                } else {
+                    runSize += size;
+                }
+            }
+        }
+
+        /**
+         * Gets the number of bytes {@code newObject} occupies in a TLAB reservation, or -1 if it
+         * cannot be part of a reservation.
+         */
+        private int reservableSize(AbstractNewObjectNode newObject) {
+            if (newObject.getClass() == NewInstanceNode.class) {
+                return instanceSize((HotSpotResolvedObjectType) ((NewInstanceNode) newObject).instanceClass());
+            } else if (newObject.getClass() == NewArrayNode.class) {
+                NewArrayNode newArray = (NewArrayNode) newObject;
+                if (!newArray.length().isConstant()) {
+                    return -1;
+                }
+                int length = newArray.length().asJavaConstant().asInt();
+                if (length < 0 || length > MAX_ARRAY_FAST_PATH_ALLOCATION_LENGTH) {
+                    return -1;
+                }
+                return arrayAllocationSize(newArray.elementType().getJavaKind(), length);
+            }
+            return -1;
+        }
+
+        private int arrayAllocationSize(JavaKind elementKind, int length) {
+            return computeArrayAllocationSize(length, target.wordSize, getArrayBaseOffset(elementKind), CodeUtil.log2(HotSpotJVMCIRuntimeProvider.getArrayIndexScale(elementKind)));
+        }
+
+        private void reserve(List<AbstractNewObjectNode> newObjects, int from, int to, int size) {
+            StructuredGraph graph = newObjects.get(from).graph();
+            TlabReservationNode reservation = graph.add(new TlabReservationNode(target.wordJavaKind, size));
+            graph.addBeforeFixed(newObjects.get(from), reservation);
+            int offset = 0;
+            for (int i = from; i < to; i++) {
+                AbstractNewObjectNode newObject = newObjects.get(i);
+                int objectSize = reservableSize(newObject);
+                AbstractNewObjectNode reserved;
+                if (newObject instanceof NewInstanceNode) {
+                    reserved = graph.add(new ReservedNewInstanceNode(((NewInstanceNode) newObject).instanceClass(), newObject.fillContents(), reservation, offset));
+                } else {
+                    NewArrayNode newArray = (NewArrayNode) newObject;
+                    reserved = graph.add(new ReservedNewArrayNode(newArray.elementType(), newArray.length(), newObject.fillContents(), reservation, offset));
+                }
+                graph.replaceFixedWithFixed(newObject, reserved);
+                newObjects.set(i, reserved);
+                offset += objectSize;
+            }
+            Debug.log("Merged %d allocations in %s into a TLAB reservation of %d bytes", to - from, graph, size);
+            MERGED_ALLOCATIONS.add(to - from);
+        }
+
+        public void lower(TlabReservationNode reservation, HotSpotRegistersProvider registers, LoweringTool tool) {
+            Arguments args = new Arguments(reserveTlab, reservation.graph().getGuardsStage(), tool.getLoweringStage());
+            args.addConst("size", reservation.getSize());
+            args.addConst("threadRegister", registers.getThreadRegister());
+            template(args).instantiate(providers.getMetaAccess(), reservation, DEFAULT_REPLACER, args);
+        }
+
+        public void lower(ReservedNewInstanceNode newInstanceNode, LoweringTool tool) {
+            StructuredGraph graph = newInstanceNode.graph();
+            HotSpotResolvedObjectType type = (HotSpotResolvedObjectType) newInstanceNode.instanceClass();
+            ConstantNode hub = ConstantNode.forConstant(KlassPointerStamp.klassNonNull(), type.klass(), providers.getMetaAccess(), graph);
+
+            Arguments args = new Arguments(allocateInstanceInReservation, graph.getGuardsStage(), tool.getLoweringStage());
+            args.add("reservation", newInstanceNode.getReservation());
+            args.addConst("offset", newInstanceNode.getOffset());
+            args.addConst("size", instanceSize(type));
+            args.add("hub", hub);
+            args.add("prototypeMarkWord", type.prototypeMarkWord());
+            args.addConst("fillContents", newInstanceNode.fillContents());
+            args.addConst("typeContext", typeContext(type, newInstanceNode));
+            template(args).instantiate(providers.getMetaAccess(), newInstanceNode, DEFAULT_REPLACER, args);
+        }
+
+        public void lower(ReservedNewArrayNode newArrayNode, LoweringTool tool) {
+            StructuredGraph graph = newArrayNode.graph();
+            ResolvedJavaType elementType = newArrayNode.elementType();
+            HotSpotResolvedObjectType arrayType = (HotSpotResolvedObjectType) elementType.getArrayClass();
+            JavaKind elementKind = elementType.getJavaKind();
+            ConstantNode hub = ConstantNode.forConstant(KlassPointerStamp.klassNonNull(), arrayType.klass(), providers.getMetaAccess(), graph);
+
+            Arguments args = new Arguments(allocateArrayInReservation, graph.getGuardsStage(), tool.getLoweringStage());
+            args.add("reservation", newArrayNode.getReservation());
+            args.addConst("offset", newArrayNode.getOffset());
+            args.add("hub", hub);
+            args.addConst("length", newArrayNode.length().asJavaConstant().asInt());
+            args.add("prototypeMarkWord", arrayType.prototypeMarkWord());
+            args.addConst("allocationSize", arrayAllocationSize(elementKind, newArrayNode.length().asJavaConstant().asInt()));
+            args.addConst("headerSize", getArrayBaseOffset(elementKind));
+            args.addConst("fillContents", newArrayNode.fillContents());
+            args.addConst("typeContext", typeContext(arrayType, newArrayNode));
+            template(args).instantiate(providers.getMetaAccess(), newArrayNode, DEFAULT_REPLACER, args);
+        }
+
         public void lower(DynamicNewInstanceNode newInstanceNode, HotSpotRegistersProvider registers, LoweringTool tool) {
             Arguments args = new Arguments(allocateInstanceDynamic, newInstanceNode.graph().getGuardsStage(), tool.getLoweringStage());
             args.add("type", newInstanceNode.getInstanceType());
@@ -601,6 +883,22 @@ public class NewObjectSnippets implements Snippets {
             return size;
         }
 
+        /**
+         * Computes the counter name used when {@link HotspotSnippetsOptions#ProfileAllocations} is
+         * enabled. With {@link HotspotSnippetsOptions#ProfileAllocationSites} the name also includes
+         * the bytecode position of the allocation.
+         */
+        private static String typeContext(ResolvedJavaType type, AbstractNewObjectNode node) {
+            if (!HotspotSnippetsOptions.ProfileAllocations.getValue()) {
+                return "";
+            }
+            String typeName = type.toJavaName(false);
+            if (HotspotSnippetsOptions.ProfileAllocationSites.getValue()) {
+                return typeName + " @ " + profileSiteName(node, node.stateBefore());
+            }
+            return typeName;
+        }
+
         public void lower(VerifyHeapNode verifyHeapNode, HotSpotRegistersProvider registers, LoweringTool tool) {
             if (config().cAssertions) {
                 Arguments args = new Arguments(verifyHeap, verifyHeapNode.graph().getGuardsStage(), tool.getLoweringStage());
@@ -622,4 +920,12 @@ public class NewObjectSnippets implements Snippets {
     private static final SnippetCounter.Group countersNewArray = SnippetCounters.getValue() ? new SnippetCounter.Group("NewArray") : null;
     private static final SnippetCounter newarray_loopInit = new SnippetCounter(countersNewArray, "tlabLoopInit", "TLAB alloc with zeroing in a loop");
     private static final SnippetCounter newarray_stub = new SnippetCounter(countersNewArray, "stub", "alloc and zeroing via stub");
+    private static final SnippetCounter newarray_stack = new SnippetCounter(countersNewArray, "stack", "alloc in the stack frame");
+
+    private static final SnippetCounter.Group countersMerged = SnippetCounters.getValue() ? new SnippetCounter.Group("MergedAllocation") : null;
+    private static final SnippetCounter merged_tlab = new SnippetCounter(countersMerged, "tlab", "TLAB reservation for a group of allocations");
+    private static final SnippetCounter merged_stub = new SnippetCounter(countersMerged, "stub", "group of allocations falling back to individual stubs");
+
+    private static final DebugMetric MERGED_ALLOCATIONS = Debug.metric("MergedAllocations");
+    private static final DebugMetric STACK_ALLOCATED_ARRAYS = Debug.metric("StackAllocatedArrays");
 }
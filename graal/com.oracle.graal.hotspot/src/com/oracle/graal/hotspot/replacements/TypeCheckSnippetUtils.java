@@ -59,13 +59,25 @@ import com.oracle.graal.word.Word;
 public class TypeCheckSnippetUtils {
 
     static boolean checkSecondarySubType(KlassPointer t, KlassPointer s) {
+        return checkSecondarySubType(t, s, true);
+    }
+
+    /**
+     * Checks whether {@code s} is a subtype of the secondary type {@code t}.
+     *
+     * @param updateCache specifies if a successful scan of the secondary supers of {@code s} should
+     *            update the secondary super cache of {@code s}. Callers that cache the result
+     *            themselves should pass {@code false}, since a type tested against several
+     *            interfaces would otherwise keep overwriting the single shared cache entry.
+     */
+    static boolean checkSecondarySubType(KlassPointer t, KlassPointer s, boolean updateCache) {
         // if (S.cache == T) return true
         if (s.readKlassPointer(secondarySuperCacheOffset(), SECONDARY_SUPER_CACHE_LOCATION).equal(t)) {
             cacheHit.inc();
             return true;
         }
 
-        return checkSelfAndSupers(t, s);
+        return checkSelfAndSupers(t, s, updateCache);
     }
 
     static boolean checkUnknownSubType(KlassPointer t, KlassPointer s) {
@@ -89,10 +101,10 @@ public class TypeCheckSnippetUtils {
             return false;
         }
 
-        return checkSelfAndSupers(t, s);
+        return checkSelfAndSupers(t, s, true);
     }
 
-    private static boolean checkSelfAndSupers(KlassPointer t, KlassPointer s) {
+    private static boolean checkSelfAndSupers(KlassPointer t, KlassPointer s, boolean updateCache) {
         // if (T == S) return true
         if (s.equal(t)) {
             T_equals_S.inc();
@@ -104,7 +116,9 @@ public class TypeCheckSnippetUtils {
         int length = secondarySupers.readInt(metaspaceArrayLengthOffset(), METASPACE_ARRAY_LENGTH_LOCATION);
         for (int i = 0; i < length; i++) {
             if (probability(NOT_LIKELY_PROBABILITY, t.equal(loadSecondarySupersElement(secondarySupers, i)))) {
-                s.writeKlassPointer(secondarySuperCacheOffset(), t, SECONDARY_SUPER_CACHE_LOCATION);
+                if (updateCache) {
+                    s.writeKlassPointer(secondarySuperCacheOffset(), t, SECONDARY_SUPER_CACHE_LOCATION);
+                }
                 secondariesHit.inc();
                 return true;
             }
@@ -169,6 +183,8 @@ public class TypeCheckSnippetUtils {
     static final SnippetCounter secondariesMiss = new SnippetCounter(counters, "secondariesMiss", "secondaries scan failed");
     static final SnippetCounter displayHit = new SnippetCounter(counters, "displayHit", "primary type test succeeded");
     static final SnippetCounter displayMiss = new SnippetCounter(counters, "displayMiss", "primary type test failed");
+    static final SnippetCounter inlineCacheHit = new SnippetCounter(counters, "inlineCacheHit", "type check site cache hit");
+    static final SnippetCounter inlineCacheMiss = new SnippetCounter(counters, "inlineCacheMiss", "type check site cache miss");
     static final SnippetCounter T_equals_S = new SnippetCounter(counters, "T_equals_S", "object type was equal to secondary type");
 
 }
@@ -33,6 +33,7 @@ import jdk.vm.ci.meta.LocationIdentity;
 import jdk.vm.ci.meta.PrimitiveConstant;
 
 import com.oracle.graal.compiler.common.spi.ForeignCallDescriptor;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
 import com.oracle.graal.compiler.common.type.Stamp;
 import com.oracle.graal.compiler.common.type.StampFactory;
 import com.oracle.graal.graph.Node;
@@ -221,6 +222,28 @@ public final class ArrayCopyCallNode extends AbstractMemoryCheckpoint implements
         return (getArrayBaseOffset(kind) + (long) value.asInt() * getArrayIndexScale(kind)) % config().heapWordSize == 0;
     }
 
+    /**
+     * Determines from the stamp of a non-constant position whether the copy offset is heap word
+     * aligned, i.e. whether the low bits that would misalign the scaled index are known to be zero.
+     */
+    static boolean isHeapWordAligned(Stamp stamp, JavaKind kind) {
+        int heapWordSize = config().heapWordSize;
+        if (!(stamp instanceof IntegerStamp) || getArrayBaseOffset(kind) % heapWordSize != 0) {
+            return false;
+        }
+        int scale = getArrayIndexScale(kind);
+        if (scale >= heapWordSize) {
+            return true;
+        }
+        long misalignmentMask = heapWordSize / scale - 1;
+        return (((IntegerStamp) stamp).upMask() & misalignmentMask) == 0;
+    }
+
+    /**
+     * Selects the most specialized stub for this copy. The HotSpot stubs are specialized per
+     * element size, heap word alignment and overlap direction, so every property that can be
+     * proven here lets the stub skip its alignment prologue or its overlap check.
+     */
     public void updateAlignedDisjoint() {
         JavaKind componentKind = elementKind;
         if (srcPos == destPos) {
@@ -237,6 +260,15 @@ public final class ArrayCopyCallNode extends AbstractMemoryCheckpoint implements
                 // low to high copy so treat as disjoint
                 disjoint = true;
             }
+        } else {
+            if (!aligned) {
+                aligned = isHeapWordAligned(srcPos.stamp(), componentKind) && isHeapWordAligned(destPos.stamp(), componentKind);
+            }
+            if (srcPos.stamp() instanceof IntegerStamp && destPos.stamp() instanceof IntegerStamp &&
+                            ((IntegerStamp) srcPos.stamp()).lowerBound() >= ((IntegerStamp) destPos.stamp()).upperBound()) {
+                // low to high copy so treat as disjoint
+                disjoint = true;
+            }
         }
     }
 
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.compiler.common.GraalOptions.LoopGuardHoistingMinimumFrequency;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+
+/**
+ * Speculatively moves guards whose condition is loop invariant out of the loop and into its
+ * pre-header. Floating reads and other nodes that only depended on the loop for their guard
+ * become loop invariant as well and are scheduled out of the loop.
+ *
+ * A hoisted guard may fail in cases where the original guard would not have been reached (e.g.,
+ * if the loop body is not executed at all), so the hoisted guard deoptimizes with
+ * {@link #HOISTED_GUARD_REASON} and reprofiles. Once a method exceeds
+ * {@code DeoptsToDisableOptimisticOptimization} such deoptimizations, the speculation is disabled
+ * through {@link com.oracle.graal.phases.OptimisticOptimizations#hoistLoopInvariantGuards()}.
+ */
+public class LoopGuardHoistingPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugMetric HOISTED_GUARDS = Debug.metric("HoistedLoopGuards");
+
+    /**
+     * The deoptimization reason of hoisted guards. It must not be emitted by code that is not a
+     * loop speculation, so that unrelated deoptimizations do not disable guard hoisting. Every
+     * other reason is already used by the bytecode parser, lowering or intrinsics, so this is the
+     * reason of {@link LoopSpeculativeInvariantPhase} as well. Failures of either speculation
+     * disable both of them for the method.
+     */
+    public static final DeoptimizationReason HOISTED_GUARD_REASON = DeoptimizationReason.Aliasing;
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        if (!graph.hasLoops() || !graph.getGuardsStage().allowsFloatingGuards() || !context.getOptimisticOptimizations().hoistLoopInvariantGuards()) {
+            return;
+        }
+        LoopsData loops = new LoopsData(graph);
+        ControlFlowGraph cfg = loops.getCFG();
+        for (LoopEx loop : loops.innerFirst()) {
+            AbstractBeginNode preHeader = AbstractBeginNode.prevBegin(loop.entryPoint());
+            double entryFrequency = cfg.blockFor(loop.entryPoint()).probability();
+            boolean hoisted;
+            do {
+                hoisted = false;
+                for (GuardNode guard : loop.whole().nodes().filter(GuardNode.class).snapshot()) {
+                    if (shouldHoist(loop, guard, cfg, entryFrequency)) {
+                        hoist(guard, preHeader);
+                        hoisted = true;
+                    }
+                }
+                // hoisting a guard can make the nodes it protects (and guards using them) invariant
+                loop.invalidateFragments();
+            } while (hoisted);
+        }
+        loops.deleteUnusedNodes();
+    }
+
+    private static boolean shouldHoist(LoopEx loop, GuardNode guard, ControlFlowGraph cfg, double entryFrequency) {
+        if (!loop.isOutsideLoop(guard.getCondition()) || !(guard.getAnchor() instanceof AbstractBeginNode)) {
+            return false;
+        }
+        Block anchorBlock = cfg.blockFor(guard.getAnchor().asNode());
+        if (anchorBlock == null) {
+            return false;
+        }
+        /*
+         * The guard is executed unconditionally once it is in the pre-header, so only hoist guards
+         * that are expected to be executed at least once per entry into the loop.
+         */
+        return entryFrequency > 0 && anchorBlock.probability() / entryFrequency >= LoopGuardHoistingMinimumFrequency.getValue();
+    }
+
+    private static void hoist(GuardNode guard, AbstractBeginNode preHeader) {
+        StructuredGraph graph = guard.graph();
+        GuardNode hoistedGuard = graph.unique(new GuardNode(guard.getCondition(), preHeader, HOISTED_GUARD_REASON, DeoptimizationAction.InvalidateReprofile, guard.isNegated(),
+                        guard.getSpeculation()));
+        Debug.log("Hoisting %s (%s) to %s as %s", guard, guard.getReason(), preHeader, hoistedGuard);
+        guard.replaceAtUsages(hoistedGuard);
+        GraphUtil.killWithUnusedFloatingInputs(guard);
+        HOISTED_GUARDS.increment();
+    }
+}
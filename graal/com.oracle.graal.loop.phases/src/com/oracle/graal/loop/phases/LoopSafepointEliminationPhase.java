@@ -22,6 +22,8 @@
  */
 package com.oracle.graal.loop.phases;
 
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
 import com.oracle.graal.loop.LoopEx;
 import com.oracle.graal.loop.LoopsData;
 import com.oracle.graal.nodes.FixedNode;
@@ -35,13 +37,24 @@ import com.oracle.graal.phases.tiers.MidTierContext;
 
 public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
 
+    /*
+     * The loop shapes are counted here since this phase runs exactly once per compilation, while
+     * counted loops are detected in several phases.
+     */
+    private static final DebugMetric COUNTED_LOOPS = Debug.metric("CountedLoops");
+    private static final DebugMetric LONG_COUNTED_LOOPS = Debug.metric("LongCountedLoops");
+    private static final DebugMetric INVERTED_COUNTED_LOOPS = Debug.metric("InvertedCountedLoops");
+    private static final DebugMetric UNSIGNED_COUNTED_LOOPS = Debug.metric("UnsignedCountedLoops");
+    private static final DebugMetric UNCOUNTED_LOOPS = Debug.metric("UncountedLoops");
+
     @Override
     protected void run(StructuredGraph graph, MidTierContext context) {
         LoopsData loops = new LoopsData(graph);
         if (context.getOptimisticOptimizations().useLoopLimitChecks() && graph.getGuardsStage().allowsFloatingGuards()) {
             loops.detectedCountedLoops();
+            countLoops(loops);
             for (LoopEx loop : loops.countedLoops()) {
-                if (loop.loop().getChildren().isEmpty() && loop.counted().getStamp().getBits() <= 32) {
+                if (loop.loop().getChildren().isEmpty() && (loop.counted().getStamp().getBits() <= 32 || loop.counted().isTripCountInIntRange())) {
                     boolean hasSafepoint = false;
                     for (LoopEndNode loopEnd : loop.loopBegin().loopEnds()) {
                         hasSafepoint |= loopEnd.canSafepoint();
@@ -70,4 +83,23 @@ public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
         }
         loops.deleteUnusedNodes();
     }
+
+    private static void countLoops(LoopsData loops) {
+        for (LoopEx loop : loops.loops()) {
+            if (loop.isCounted()) {
+                COUNTED_LOOPS.increment();
+                if (loop.counted().getStamp().getBits() > 32) {
+                    LONG_COUNTED_LOOPS.increment();
+                }
+                if (loop.counted().isInverted()) {
+                    INVERTED_COUNTED_LOOPS.increment();
+                }
+                if (loop.counted().isUnsigned()) {
+                    UNSIGNED_COUNTED_LOOPS.increment();
+                }
+            } else {
+                UNCOUNTED_LOOPS.increment();
+            }
+        }
+    }
 }
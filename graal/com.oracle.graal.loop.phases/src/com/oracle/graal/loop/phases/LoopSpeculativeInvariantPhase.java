@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import java.util.Collections;
+
+import com.oracle.graal.compiler.common.calc.Condition;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopPolicies;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.calc.CompareNode;
+import com.oracle.graal.nodes.java.LoadFieldNode;
+import com.oracle.graal.nodes.type.StampTool;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Makes conditions inside a loop invariant by speculating that a field they read does not change
+ * while the loop runs, so that {@link LoopUnswitchingPhase} can unswitch the loop on them.
+ *
+ * For an {@link IfNode} whose condition depends on the loop only through a single non-volatile
+ * {@link LoadFieldNode} of a loop invariant object, the field is loaded once more before the loop
+ * and the condition is rewritten to use that value. A guard right after the original load
+ * deoptimizes with {@link DeoptimizationReason#Aliasing} if the field was changed by the loop or by
+ * another thread. Once a method exceeds {@code DeoptsToDisableOptimisticOptimization} such
+ * deoptimizations, the speculation is disabled through
+ * {@link com.oracle.graal.phases.OptimisticOptimizations#speculativelyUnswitchLoops()}. Hoisted
+ * guards of {@link LoopGuardHoistingPhase} deoptimize with the same reason.
+ */
+public class LoopSpeculativeInvariantPhase extends BasePhase<HighTierContext> {
+
+    private static final DebugMetric SPECULATIVE_INVARIANTS = Debug.metric("SpeculativeLoopInvariants");
+
+    private final LoopPolicies policies;
+
+    public LoopSpeculativeInvariantPhase(LoopPolicies policies) {
+        this.policies = policies;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, HighTierContext context) {
+        if (!graph.hasLoops() || !context.getOptimisticOptimizations().speculativelyUnswitchLoops()) {
+            return;
+        }
+        boolean speculated;
+        do {
+            speculated = false;
+            LoopsData loops = new LoopsData(graph);
+            for (LoopEx loop : loops.outerFirst()) {
+                if (policies.shouldTryUnswitch(loop) && trySpeculate(loop, context)) {
+                    speculated = true;
+                    break;
+                }
+            }
+        } while (speculated);
+    }
+
+    private boolean trySpeculate(LoopEx loop, HighTierContext context) {
+        for (IfNode ifNode : loop.whole().nodes().filter(IfNode.class)) {
+            LogicNode condition = ifNode.condition();
+            if (loop.isOutsideLoop(condition)) {
+                // already handled by regular unswitching
+                continue;
+            }
+            LoadFieldNode load = findSpeculatableLoad(loop, condition);
+            if (load != null && policies.shouldUnswitch(loop, Collections.singletonList(ifNode))) {
+                speculate(loop, load, condition, context);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the only input of {@code condition} that is computed inside the loop if it is a field
+     * load that can be speculated to be invariant, or {@code null} otherwise.
+     */
+    private static LoadFieldNode findSpeculatableLoad(LoopEx loop, LogicNode condition) {
+        LoadFieldNode load = null;
+        for (Node input : condition.inputs()) {
+            if (loop.isOutsideLoop(input)) {
+                continue;
+            }
+            if (load != null || !isSpeculatableLoad(loop, input)) {
+                return null;
+            }
+            load = (LoadFieldNode) input;
+        }
+        return load;
+    }
+
+    private static boolean isSpeculatableLoad(LoopEx loop, Node node) {
+        if (!(node instanceof LoadFieldNode)) {
+            return false;
+        }
+        LoadFieldNode load = (LoadFieldNode) node;
+        JavaKind kind = load.getStackKind();
+        if (load.isVolatile() || !(kind.isNumericInteger() || kind == JavaKind.Object)) {
+            return false;
+        }
+        // the additional load before the loop must not introduce a null check
+        return load.isStatic() || (loop.isOutsideLoop(load.object()) && StampTool.isPointerNonNull(load.object()));
+    }
+
+    private static void speculate(LoopEx loop, LoadFieldNode load, LogicNode condition, HighTierContext context) {
+        StructuredGraph graph = load.graph();
+        LoadFieldNode entryLoad = graph.add(new LoadFieldNode(load.object(), load.field()));
+        graph.addBeforeFixed(loop.entryPoint(), entryLoad);
+
+        LogicNode unchanged = CompareNode.createCompareNode(graph, Condition.EQ, load, entryLoad, context.getConstantReflection());
+        FixedGuardNode guard = graph.add(new FixedGuardNode(unchanged, DeoptimizationReason.Aliasing, DeoptimizationAction.InvalidateReprofile));
+        graph.addAfterFixed(load, guard);
+        condition.replaceFirstInput(load, entryLoad);
+
+        Debug.log("Speculating %s to be invariant in %s for %s", load, loop, condition);
+        SPECULATIVE_INVARIANTS.increment();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.loop.MathUtil.add;
+
+import java.util.Map;
+
+import com.oracle.graal.compiler.common.type.Stamp;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.loop.BasicInductionVariable;
+import com.oracle.graal.loop.DerivedConvertedInductionVariable;
+import com.oracle.graal.loop.DerivedInductionVariable;
+import com.oracle.graal.loop.DerivedScaledInductionVariable;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.calc.IntegerConvertNode;
+import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.common.AddressLoweringPhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+/**
+ * Strength reduction of address computations in counted loops. An {@link OffsetAddressNode} whose
+ * offset is a derived induction variable that cannot be folded into an addressing mode by the
+ * {@link AddressLoweringPhase} (i.e., it contains an integer conversion or a non-constant scale) is
+ * rewritten to use a new basic induction variable that is incremented by the scaled stride in each
+ * iteration. Basic induction variables that become dead as a result are removed.
+ *
+ * Rewriting a sign or zero extension of an induction variable is only correct if the underlying
+ * counter does not overflow, so this is limited to the counter of the loop and requires a loop
+ * limit check.
+ */
+public class LoopStrengthReductionPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugMetric REDUCED_ADDRESS_IVS = Debug.metric("StrengthReducedAddressIVs");
+    private static final DebugMetric REMOVED_DEAD_IVS = Debug.metric("RemovedDeadIVs");
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        if (!graph.hasLoops()) {
+            return;
+        }
+        LoopsData loops = new LoopsData(graph);
+        loops.detectedCountedLoops();
+        boolean canCreateLimitCheck = context.getOptimisticOptimizations().useLoopLimitChecks() && graph.getGuardsStage().allowsFloatingGuards();
+        for (LoopEx loop : loops.countedLoops()) {
+            Map<Node, InductionVariable> ivs = loop.getInductionVariables();
+            Map<ValueNode, ValuePhiNode> reduced = Node.newIdentityMap();
+            for (OffsetAddressNode address : loop.whole().nodes().filter(OffsetAddressNode.class).snapshot()) {
+                ValueNode offset = address.getOffset();
+                InductionVariable iv = ivs.get(offset);
+                if (!(iv instanceof DerivedInductionVariable)) {
+                    continue;
+                }
+                ValuePhiNode newIv = reduced.get(offset);
+                if (newIv == null) {
+                    if (!shouldReduce(loop, (DerivedInductionVariable) iv, canCreateLimitCheck)) {
+                        continue;
+                    }
+                    newIv = createBasicInductionVariable(loop, iv);
+                    reduced.put(offset, newIv);
+                    Debug.log("Strength reduced %s in %s to %s", iv, loop, newIv);
+                    REDUCED_ADDRESS_IVS.increment();
+                }
+                address.setOffset(newIv);
+                GraphUtil.tryKillUnused(offset);
+            }
+            if (!reduced.isEmpty()) {
+                removeDeadInductionVariables(loop, ivs);
+                loop.invalidateFragments();
+            }
+        }
+        loops.deleteUnusedNodes();
+    }
+
+    private static boolean shouldReduce(LoopEx loop, DerivedInductionVariable iv, boolean canCreateLimitCheck) {
+        boolean needsNoOverflow = false;
+        boolean profitable = false;
+        InductionVariable current = iv;
+        while (current instanceof DerivedInductionVariable) {
+            if (current instanceof DerivedConvertedInductionVariable) {
+                if (current.valueNode() instanceof IntegerConvertNode) {
+                    needsNoOverflow = true;
+                    profitable = true;
+                }
+            } else if (current instanceof DerivedScaledInductionVariable) {
+                if (!((DerivedScaledInductionVariable) current).getScale().isConstant()) {
+                    profitable = true;
+                }
+            }
+            current = ((DerivedInductionVariable) current).getBase();
+        }
+        if (!profitable) {
+            return false;
+        }
+        if (needsNoOverflow) {
+            if (current != loop.counted().getCounter()) {
+                return false;
+            }
+            if (loop.counted().getOverFlowGuard() == null) {
+                if (!canCreateLimitCheck) {
+                    return false;
+                }
+                loop.counted().createOverFlowGuard();
+            }
+        }
+        return true;
+    }
+
+    private static ValuePhiNode createBasicInductionVariable(LoopEx loop, InductionVariable iv) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        StructuredGraph graph = loopBegin.graph();
+        Stamp stamp = iv.valueNode().stamp().unrestricted();
+        ValueNode[] values = new ValueNode[loopBegin.phiPredecessorCount()];
+        assert loopBegin.forwardEndCount() == 1;
+        values[0] = iv.initNode();
+        ValuePhiNode phi = graph.addWithoutUnique(new ValuePhiNode(stamp, loopBegin, values));
+        ValueNode next = add(graph, phi, iv.strideNode());
+        for (int i = 1; i < values.length; i++) {
+            phi.setValueAt(i, next);
+        }
+        return phi;
+    }
+
+    private static void removeDeadInductionVariables(LoopEx loop, Map<Node, InductionVariable> ivs) {
+        for (InductionVariable iv : ivs.values()) {
+            if (!(iv instanceof BasicInductionVariable) || iv == loop.counted().getCounter()) {
+                continue;
+            }
+            ValuePhiNode phi = ((BasicInductionVariable) iv).valueNode();
+            ValueNode op = ((BasicInductionVariable) iv).getOp();
+            if (!phi.isAlive() || !op.isAlive() || phi.usages().filter(n -> n != op).isNotEmpty() || op.usages().filter(n -> n != phi).isNotEmpty()) {
+                continue;
+            }
+            Debug.log("Removing dead induction variable %s in %s", iv, loop);
+            op.replaceAtUsages(null);
+            GraphUtil.killWithUnusedFloatingInputs(op);
+            REMOVED_DEAD_IVS.increment();
+        }
+    }
+}
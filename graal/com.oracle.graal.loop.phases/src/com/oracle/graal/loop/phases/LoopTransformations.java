@@ -36,11 +36,16 @@ import com.oracle.graal.nodeinfo.InputType;
 import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.BeginNode;
 import com.oracle.graal.nodes.ControlSplitNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.GuardNode;
 import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.LogicNode;
 import com.oracle.graal.nodes.LoopBeginNode;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.extended.SwitchNode;
+import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.tiers.PhaseContext;
 
@@ -124,6 +129,33 @@ public abstract class LoopTransformations {
         // TODO (gd) probabilities need some amount of fixup.. (probably also in other transforms)
     }
 
+    /**
+     * Creates two versions of {@code loop} selected by {@code condition}. The original loop is used
+     * if the condition holds and {@code redundantGuards}, which must be implied by the condition, are
+     * removed from it. A copy of the loop that still contains all guards is used otherwise.
+     *
+     * @return the begin node of the path on which {@code condition} holds
+     */
+    public static AbstractBeginNode version(LoopEx loop, LogicNode condition, double probability, List<GuardNode> redundantGuards) {
+        LoopFragmentWhole originalLoop = loop.whole();
+        StructuredGraph graph = loop.loopBegin().graph();
+
+        FixedNode entry = originalLoop.entryPoint();
+        FixedWithNextNode predecessor = (FixedWithNextNode) entry.predecessor();
+        predecessor.setNext(null);
+        AbstractBeginNode fastBegin = BeginNode.begin(entry);
+
+        LoopFragmentWhole duplicateLoop = originalLoop.duplicate();
+        AbstractBeginNode slowBegin = BeginNode.begin(duplicateLoop.entryPoint());
+        predecessor.setNext(graph.add(new IfNode(condition, fastBegin, slowBegin, probability)));
+
+        for (GuardNode guard : redundantGuards) {
+            guard.replaceAtUsages(InputType.Guard, fastBegin);
+            GraphUtil.killWithUnusedFloatingInputs(guard);
+        }
+        return fastBegin;
+    }
+
     public static List<ControlSplitNode> findUnswitchable(LoopEx loop) {
         List<ControlSplitNode> controls = null;
         ValueNode invariantValue = null;
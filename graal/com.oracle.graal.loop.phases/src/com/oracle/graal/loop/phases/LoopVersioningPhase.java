@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopPolicies;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.LogicNegationNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.ShortCircuitOrNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.IntegerBelowNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.extended.BranchProbabilityNode;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+/**
+ * Versions innermost counted loops on a range check. For every guard of the form
+ * {@code iv |<| length} in the loop body, where {@code iv} is an induction variable and
+ * {@code length} is loop invariant, a check of the induction variable's initial and extremal value
+ * against {@code length} is emitted in front of the loop. If all checks succeed, a version of the
+ * loop without these guards is executed. Otherwise, a copy of the original loop is used.
+ * <p>
+ * The unsigned comparisons of the bounds only imply the guard for all values in between if
+ * {@code length} is not negative, which is checked as well unless the stamp of {@code length}
+ * proves it (as for array lengths).
+ * <p>
+ * Only range checks are versioned. Versioning on a runtime no-alias check of two arrays is not
+ * done because array accesses of the same element kind share one location identity, so the
+ * memory graph of the fast loop copy could not make use of the check. Fusion of adjacent loops
+ * is not done either.
+ */
+public class LoopVersioningPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugMetric VERSIONED_LOOPS = Debug.metric("VersionedLoops");
+    private static final DebugMetric VERSIONING_REMOVED_GUARDS = Debug.metric("VersioningRemovedGuards");
+
+    private final LoopPolicies policies;
+
+    public LoopVersioningPhase(LoopPolicies policies) {
+        this.policies = policies;
+    }
+
+    private static final class VersioningCandidate {
+        final LoopEx loop;
+        final List<GuardNode> guards;
+        final LogicNode condition;
+
+        VersioningCandidate(LoopEx loop, List<GuardNode> guards, LogicNode condition) {
+            this.loop = loop;
+            this.guards = guards;
+            this.condition = condition;
+        }
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        if (!graph.hasLoops() || !graph.getGuardsStage().allowsFloatingGuards() || !context.getOptimisticOptimizations().useLoopLimitChecks()) {
+            return;
+        }
+        LoopsData loops = new LoopsData(graph);
+        loops.detectedCountedLoops();
+        List<VersioningCandidate> candidates = new ArrayList<>();
+        for (LoopEx loop : loops.countedLoops()) {
+            if (!loop.loop().getChildren().isEmpty() || !policies.shouldVersion(loop)) {
+                continue;
+            }
+            List<GuardNode> guards = findRedundantRangeChecks(loop, loops.getCFG());
+            if (!guards.isEmpty()) {
+                loop.counted().createOverFlowGuard();
+                candidates.add(new VersioningCandidate(loop, guards, createRangeCondition(loop, guards)));
+            }
+        }
+        // all analysis is done before the graph is changed because versioning duplicates loops
+        for (VersioningCandidate candidate : candidates) {
+            Debug.log("Versioning %s to remove %s", candidate.loop, candidate.guards);
+            LoopTransformations.version(candidate.loop, candidate.condition, BranchProbabilityNode.FAST_PATH_PROBABILITY, candidate.guards);
+            VERSIONED_LOOPS.increment();
+            VERSIONING_REMOVED_GUARDS.add(candidate.guards.size());
+        }
+        loops.deleteUnusedNodes();
+    }
+
+    private static List<GuardNode> findRedundantRangeChecks(LoopEx loop, ControlFlowGraph cfg) {
+        List<GuardNode> guards = new ArrayList<>();
+        Block body = cfg.blockFor(loop.counted().getBody());
+        for (GuardNode guard : loop.whole().nodes().filter(GuardNode.class)) {
+            if (guard.isNegated() || !(guard.getCondition() instanceof IntegerBelowNode) || !(guard.getAnchor() instanceof AbstractBeginNode)) {
+                continue;
+            }
+            IntegerBelowNode below = (IntegerBelowNode) guard.getCondition();
+            InductionVariable iv = loop.getInductionVariables().get(below.getX());
+            if (iv == null || iv.direction() == null || !loop.isOutsideLoop(below.getY()) || !(below.getX().stamp() instanceof IntegerStamp) || !(below.getY().stamp() instanceof IntegerStamp)) {
+                continue;
+            }
+            /*
+             * The guard must only be executed in iterations that pass the loop test, otherwise it
+             * also sees the exit value of the induction variable.
+             */
+            Block anchorBlock = cfg.blockFor(guard.getAnchor().asNode());
+            if (anchorBlock != null && AbstractControlFlowGraph.dominates(body, anchorBlock)) {
+                guards.add(guard);
+            }
+        }
+        return guards;
+    }
+
+    private static LogicNode createRangeCondition(LoopEx loop, List<GuardNode> guards) {
+        StructuredGraph graph = loop.loopBegin().graph();
+        LogicNode condition = null;
+        for (GuardNode guard : guards) {
+            IntegerBelowNode below = (IntegerBelowNode) guard.getCondition();
+            InductionVariable iv = loop.getInductionVariables().get(below.getX());
+            ValueNode length = below.getY();
+            ValueNode extremum = iv.extremumNode();
+            ValueNode min = iv.direction() == Direction.Up ? iv.initNode() : extremum;
+            ValueNode max = iv.direction() == Direction.Up ? extremum : iv.initNode();
+            if (!((IntegerStamp) length.stamp()).isPositive()) {
+                // a negative length is a huge unsigned value that does not bound the range
+                LogicNode negative = graph.unique(new IntegerLessThanNode(length, ConstantNode.forIntegerStamp(length.stamp(), 0, graph)));
+                condition = and(graph, condition, graph.unique(new LogicNegationNode(negative)));
+            }
+            condition = and(graph, condition, graph.unique(new IntegerBelowNode(min, length)));
+            condition = and(graph, condition, graph.unique(new IntegerBelowNode(max, length)));
+        }
+        return condition;
+    }
+
+    private static LogicNode and(StructuredGraph graph, LogicNode x, LogicNode y) {
+        if (x == null) {
+            return y;
+        }
+        // x && y == !(!x || !y)
+        return graph.unique(new LogicNegationNode(graph.unique(new ShortCircuitOrNode(x, true, y, true, BranchProbabilityNode.SLOW_PATH_PROBABILITY))));
+    }
+}
@@ -157,6 +157,10 @@ public class BasicInductionVariable extends InductionVariable {
         if (!maxTripCount.stamp().isCompatible(stamp)) {
             maxTripCount = IntegerConvertNode.convert(maxTripCount, stamp, graph());
         }
+        if (loop.counted().isInverted()) {
+            // the exit test of a do-while loop is taken in the last iteration, before the increment
+            maxTripCount = sub(graph(), maxTripCount, ConstantNode.forIntegerStamp(stamp, 1, graph()));
+        }
         return add(graph(), mul(graph(), strideNode(), maxTripCount), initNode());
     }
 
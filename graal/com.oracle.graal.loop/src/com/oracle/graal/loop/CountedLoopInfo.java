@@ -49,13 +49,17 @@ public class CountedLoopInfo {
     private InductionVariable iv;
     private ValueNode end;
     private boolean oneOff;
+    private boolean inverted;
+    private boolean unsigned;
     private AbstractBeginNode body;
 
-    CountedLoopInfo(LoopEx loop, InductionVariable iv, ValueNode end, boolean oneOff, AbstractBeginNode body) {
+    CountedLoopInfo(LoopEx loop, InductionVariable iv, ValueNode end, boolean oneOff, boolean inverted, boolean unsigned, AbstractBeginNode body) {
         this.loop = loop;
         this.iv = iv;
         this.end = end;
         this.oneOff = oneOff;
+        this.inverted = inverted;
+        this.unsigned = unsigned;
         this.body = body;
     }
 
@@ -82,22 +86,76 @@ public class CountedLoopInfo {
         ValueNode denominator = add(graph, sub(graph, range, oneDirection), iv.strideNode());
         ValueNode div = divBefore(graph, loop.entryPoint(), denominator, iv.strideNode());
 
+        ValueNode tripCount;
         if (assumePositive) {
-            return div;
+            tripCount = div;
+        } else {
+            ConstantNode zero = ConstantNode.forIntegerStamp(stamp, 0, graph);
+            tripCount = graph.unique(new ConditionalNode(graph.unique(new IntegerLessThanNode(zero, div)), div, zero));
+        }
+        if (inverted) {
+            // the body of a do-while loop is executed once before the exit test is evaluated
+            tripCount = add(graph, tripCount, ConstantNode.forIntegerStamp(stamp, 1, graph));
         }
-        ConstantNode zero = ConstantNode.forIntegerStamp(stamp, 0, graph);
-        return graph.unique(new ConditionalNode(graph.unique(new IntegerLessThanNode(zero, div)), div, zero));
+        return tripCount;
     }
 
     public boolean isConstantMaxTripCount() {
-        return end instanceof ConstantNode && iv.isConstantInit() && iv.isConstantStride();
+        return end instanceof ConstantNode && iv.isConstantInit() && iv.isConstantStride() && computeConstantMaxTripCount() >= 0;
     }
 
     public long constantMaxTripCount() {
+        long max = computeConstantMaxTripCount();
+        assert max >= 0 : "trip count overflows";
+        return max;
+    }
+
+    /**
+     * Computes the maximum trip count for constant init, stride and limit, rounding away from zero
+     * for non-unit strides. Returns -1 if the computation overflows, which can only happen for
+     * 64-bit induction variables.
+     */
+    private long computeConstantMaxTripCount() {
         assert iv.direction() != null;
+        long stride = iv.constantStride();
         long off = oneOff ? iv.direction() == Direction.Up ? 1 : -1 : 0;
-        long max = (((ConstantNode) end).asJavaConstant().asLong() + off - iv.constantInit()) / iv.constantStride();
-        return Math.max(0, max);
+        long range;
+        try {
+            range = Math.addExact(Math.subtractExact(((ConstantNode) end).asJavaConstant().asLong(), iv.constantInit()), off);
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+        long max;
+        if (iv.direction() == Direction.Up) {
+            max = range <= 0 ? 0 : (range - 1) / stride + 1;
+        } else {
+            max = range >= 0 ? 0 : (range + 1) / stride + 1;
+        }
+        if (inverted) {
+            max = max == Long.MAX_VALUE ? -1 : max + 1;
+        }
+        return max;
+    }
+
+    /**
+     * Determines whether the trip count of this loop is known to fit into a signed 32-bit integer
+     * based on the stamps of the limit and the initial value of the counter.
+     */
+    public boolean isTripCountInIntRange() {
+        IntegerStamp initStamp = (IntegerStamp) iv.initNode().stamp();
+        IntegerStamp endStamp = (IntegerStamp) end.stamp();
+        long range;
+        try {
+            if (iv.direction() == Direction.Up) {
+                range = Math.subtractExact(endStamp.upperBound(), initStamp.lowerBound());
+            } else {
+                range = Math.subtractExact(initStamp.upperBound(), endStamp.lowerBound());
+            }
+        } catch (ArithmeticException e) {
+            return false;
+        }
+        // the stride is at least 1, one additional iteration for inclusive limits or inverted loops
+        return range < Integer.MAX_VALUE - 2;
     }
 
     public boolean isExactTripCount() {
@@ -121,7 +179,7 @@ public class CountedLoopInfo {
 
     @Override
     public String toString() {
-        return "iv=" + iv + " until " + end + (oneOff ? iv.direction() == Direction.Up ? "+1" : "-1" : "");
+        return "iv=" + iv + " until " + end + (oneOff ? iv.direction() == Direction.Up ? "+1" : "-1" : "") + (inverted ? " (inverted)" : "");
     }
 
     public ValueNode getLimit() {
@@ -136,6 +194,21 @@ public class CountedLoopInfo {
         return oneOff;
     }
 
+    /**
+     * Determines whether the exit test of this loop is at the end of the loop body (do-while form)
+     * rather than at the loop header.
+     */
+    public boolean isInverted() {
+        return inverted;
+    }
+
+    /**
+     * Determines whether the exit test of this loop is an unsigned comparison.
+     */
+    public boolean isUnsigned() {
+        return unsigned;
+    }
+
     public AbstractBeginNode getBody() {
         return body;
     }
@@ -56,6 +56,8 @@ public class DefaultLoopPolicies implements LoopPolicies {
     @Option(help = "", type = OptionType.Expert) public static final OptionValue<Integer> FullUnrollMaxIterations = new OptionValue<>(600);
     @Option(help = "", type = OptionType.Expert) public static final OptionValue<Integer> ExactFullUnrollMaxNodes = new OptionValue<>(1200);
 
+    @Option(help = "", type = OptionType.Expert) public static final OptionValue<Integer> LoopVersioningMaxNodes = new OptionValue<>(500);
+
     @Override
     public boolean shouldPeel(LoopEx loop, ControlFlowGraph cfg) {
         LoopBeginNode loopBegin = loop.loopBegin();
@@ -164,4 +166,14 @@ public class DefaultLoopPolicies implements LoopPolicies {
         return actualDiff <= maxDiff;
     }
 
+    @Override
+    public boolean shouldVersion(LoopEx loop) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        if (loopBegin.loopFrequency() <= 1.0) {
+            return false;
+        }
+        int size = loop.size();
+        return size <= LoopVersioningMaxNodes.getValue() && size + loopBegin.graph().getNodeCount() < MaximumDesiredSize.getValue();
+    }
+
 }
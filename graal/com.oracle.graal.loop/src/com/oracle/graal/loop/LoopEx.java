@@ -50,6 +50,7 @@ import com.oracle.graal.nodes.IfNode;
 import com.oracle.graal.nodes.InfopointNode;
 import com.oracle.graal.nodes.LogicNode;
 import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.LoopEndNode;
 import com.oracle.graal.nodes.LoopExitNode;
 import com.oracle.graal.nodes.PhiNode;
 import com.oracle.graal.nodes.PiNode;
@@ -198,97 +199,156 @@ public class LoopEx {
         while (next instanceof FixedGuardNode || next instanceof ValueAnchorNode || next instanceof InfopointNode) {
             next = ((FixedWithNextNode) next).next();
         }
-        if (next instanceof IfNode) {
-            IfNode ifNode = (IfNode) next;
-            boolean negated = false;
-            if (!loopBegin.isLoopExit(ifNode.falseSuccessor())) {
-                if (!loopBegin.isLoopExit(ifNode.trueSuccessor())) {
-                    return false;
-                }
-                negated = true;
-            }
-            LogicNode ifTest = ifNode.condition();
-            if (!(ifTest instanceof IntegerLessThanNode) && !(ifTest instanceof IntegerEqualsNode)) {
-                if (ifTest instanceof IntegerBelowNode) {
-                    Debug.log("Ignored potential Counted loop at %s with |<|", loopBegin);
-                }
+        if (next instanceof IfNode && detectCounted((IfNode) next, false)) {
+            return true;
+        }
+        IfNode invertedExit = invertedExitTest();
+        return invertedExit != null && invertedExit != next && detectCounted(invertedExit, true);
+    }
+
+    /**
+     * Returns the exit test of a loop in do-while form, i.e., an {@link IfNode} that immediately
+     * precedes the only {@link LoopEndNode} of the loop, or {@code null} if there is no such test.
+     */
+    private IfNode invertedExitTest() {
+        LoopBeginNode loopBegin = loopBegin();
+        if (loopBegin.loopEnds().count() != 1) {
+            return null;
+        }
+        Node predecessor = loopBegin.loopEnds().first().predecessor();
+        if (predecessor instanceof AbstractBeginNode && predecessor.predecessor() instanceof IfNode) {
+            return (IfNode) predecessor.predecessor();
+        }
+        return null;
+    }
+
+    private boolean detectCounted(IfNode ifNode, boolean inverted) {
+        LoopBeginNode loopBegin = loopBegin();
+        boolean negated = false;
+        if (!loopBegin.isLoopExit(ifNode.falseSuccessor())) {
+            if (!loopBegin.isLoopExit(ifNode.trueSuccessor())) {
                 return false;
             }
-            CompareNode lessThan = (CompareNode) ifTest;
-            Condition condition = null;
-            InductionVariable iv = null;
-            ValueNode limit = null;
-            if (isOutsideLoop(lessThan.getX())) {
-                iv = getInductionVariables().get(lessThan.getY());
-                if (iv != null) {
-                    condition = lessThan.condition().mirror();
-                    limit = lessThan.getX();
-                }
-            } else if (isOutsideLoop(lessThan.getY())) {
-                iv = getInductionVariables().get(lessThan.getX());
-                if (iv != null) {
-                    condition = lessThan.condition();
-                    limit = lessThan.getY();
-                }
+            negated = true;
+        }
+        LogicNode ifTest = ifNode.condition();
+        if (!(ifTest instanceof IntegerLessThanNode) && !(ifTest instanceof IntegerEqualsNode) && !(ifTest instanceof IntegerBelowNode)) {
+            return false;
+        }
+        CompareNode lessThan = (CompareNode) ifTest;
+        Condition condition = null;
+        InductionVariable iv = null;
+        ValueNode limit = null;
+        if (isOutsideLoop(lessThan.getX())) {
+            iv = getInductionVariables().get(lessThan.getY());
+            if (iv != null) {
+                condition = lessThan.condition().mirror();
+                limit = lessThan.getX();
+            }
+        } else if (isOutsideLoop(lessThan.getY())) {
+            iv = getInductionVariables().get(lessThan.getX());
+            if (iv != null) {
+                condition = lessThan.condition();
+                limit = lessThan.getY();
             }
+        }
+        if (condition == null) {
+            return false;
+        }
+        if (negated) {
+            condition = condition.negate();
+        }
+        boolean unsigned = condition.isUnsigned();
+        if (unsigned) {
+            condition = signedCondition(condition, iv, limit);
             if (condition == null) {
+                Debug.log("Ignored potential Counted loop at %s with unsigned comparison", loopBegin);
                 return false;
             }
-            if (negated) {
-                condition = condition.negate();
-            }
-            boolean oneOff = false;
-            switch (condition) {
-                case EQ:
+        }
+        boolean oneOff = false;
+        switch (condition) {
+            case EQ:
+                return false;
+            case NE: {
+                if (!iv.isConstantStride() || Math.abs(iv.constantStride()) != 1) {
                     return false;
-                case NE: {
-                    if (!iv.isConstantStride() || Math.abs(iv.constantStride()) != 1) {
-                        return false;
-                    }
-                    IntegerStamp initStamp = (IntegerStamp) iv.initNode().stamp();
-                    IntegerStamp limitStamp = (IntegerStamp) limit.stamp();
-                    if (iv.direction() == Direction.Up) {
-                        if (initStamp.upperBound() > limitStamp.lowerBound()) {
-                            return false;
-                        }
-                    } else if (iv.direction() == Direction.Down) {
-                        if (initStamp.lowerBound() < limitStamp.upperBound()) {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                    break;
                 }
-                case LE:
-                    oneOff = true;
-                    if (iv.direction() != Direction.Up) {
-                        return false;
-                    }
-                    break;
-                case LT:
-                    if (iv.direction() != Direction.Up) {
+                IntegerStamp initStamp = (IntegerStamp) iv.initNode().stamp();
+                IntegerStamp limitStamp = (IntegerStamp) limit.stamp();
+                if (iv.direction() == Direction.Up) {
+                    if (initStamp.upperBound() > limitStamp.lowerBound()) {
                         return false;
                     }
-                    break;
-                case GE:
-                    oneOff = true;
-                    if (iv.direction() != Direction.Down) {
+                } else if (iv.direction() == Direction.Down) {
+                    if (initStamp.lowerBound() < limitStamp.upperBound()) {
                         return false;
                     }
-                    break;
-                case GT:
-                    if (iv.direction() != Direction.Down) {
-                        return false;
-                    }
-                    break;
-                default:
-                    throw JVMCIError.shouldNotReachHere();
+                } else {
+                    return false;
+                }
+                break;
             }
-            counted = new CountedLoopInfo(this, iv, limit, oneOff, negated ? ifNode.falseSuccessor() : ifNode.trueSuccessor());
-            return true;
+            case LE:
+                oneOff = true;
+                if (iv.direction() != Direction.Up) {
+                    return false;
+                }
+                break;
+            case LT:
+                if (iv.direction() != Direction.Up) {
+                    return false;
+                }
+                break;
+            case GE:
+                oneOff = true;
+                if (iv.direction() != Direction.Down) {
+                    return false;
+                }
+                break;
+            case GT:
+                if (iv.direction() != Direction.Down) {
+                    return false;
+                }
+                break;
+            default:
+                throw JVMCIError.shouldNotReachHere();
+        }
+        counted = new CountedLoopInfo(this, iv, limit, oneOff, inverted, unsigned, negated ? ifNode.falseSuccessor() : ifNode.trueSuccessor());
+        return true;
+    }
+
+    /**
+     * Returns the signed condition equivalent to the unsigned {@code condition} for all values the
+     * induction variable takes before the loop exits, or {@code null} if the two may differ. This
+     * is the case if both the induction variable and the limit are known to be non-negative and the
+     * induction variable cannot step below zero before reaching the limit.
+     */
+    private static Condition signedCondition(Condition condition, InductionVariable iv, ValueNode limit) {
+        IntegerStamp initStamp = (IntegerStamp) iv.initNode().stamp();
+        IntegerStamp limitStamp = (IntegerStamp) limit.stamp();
+        if (initStamp.lowerBound() < 0 || limitStamp.lowerBound() < 0) {
+            return null;
+        }
+        switch (condition) {
+            case BT:
+                return iv.direction() == Direction.Up ? Condition.LT : null;
+            case BE:
+                return iv.direction() == Direction.Up ? Condition.LE : null;
+            case AT:
+                // the last value inside the loop is at least limit + 1
+                if (iv.direction() == Direction.Down && iv.isConstantStride() && limitStamp.lowerBound() + 1 + iv.constantStride() >= 0) {
+                    return Condition.GT;
+                }
+                return null;
+            case AE:
+                if (iv.direction() == Direction.Down && iv.isConstantStride() && limitStamp.lowerBound() + iv.constantStride() >= 0) {
+                    return Condition.GE;
+                }
+                return null;
+            default:
+                return null;
         }
-        return false;
     }
 
     public LoopsData loopsData() {
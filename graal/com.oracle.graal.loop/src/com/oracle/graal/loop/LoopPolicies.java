@@ -35,4 +35,6 @@ public interface LoopPolicies {
     boolean shouldTryUnswitch(LoopEx loop);
 
     boolean shouldUnswitch(LoopEx loop, List<ControlSplitNode> controlSplits);
+
+    boolean shouldVersion(LoopEx loop);
 }
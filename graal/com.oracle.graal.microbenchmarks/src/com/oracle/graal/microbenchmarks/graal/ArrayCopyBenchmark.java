@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks {@link System#arraycopy} over a range of copy sizes, element sizes and overlap
+ * directions. The sizes are in bytes so that the element kinds are comparable.
+ */
+public class ArrayCopyBenchmark extends GraalBenchmark {
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        @Param({"1", "8", "64", "512", "4096", "65536", "1048576"}) int size;
+
+        byte[] srcBytes;
+        byte[] destBytes;
+        int[] srcInts;
+        int[] destInts;
+        long[] srcLongs;
+        long[] destLongs;
+        Object[] srcObjects;
+        Object[] destObjects;
+
+        @Setup
+        public void setup() {
+            srcBytes = new byte[size];
+            destBytes = new byte[size + 1];
+            srcInts = new int[Math.max(1, size / 4)];
+            destInts = new int[srcInts.length];
+            srcLongs = new long[Math.max(1, size / 8)];
+            destLongs = new long[srcLongs.length];
+            srcObjects = new Object[srcInts.length];
+            destObjects = new Object[srcInts.length];
+            for (int i = 0; i < srcObjects.length; i++) {
+                srcObjects[i] = i;
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] bytesDisjoint(ThreadState state) {
+        System.arraycopy(state.srcBytes, 0, state.destBytes, 0, state.srcBytes.length);
+        return state.destBytes;
+    }
+
+    @Benchmark
+    public byte[] bytesUnaligned(ThreadState state) {
+        System.arraycopy(state.srcBytes, 0, state.destBytes, 1, state.srcBytes.length);
+        return state.destBytes;
+    }
+
+    @Benchmark
+    public byte[] bytesOverlapping(ThreadState state) {
+        System.arraycopy(state.destBytes, 0, state.destBytes, 1, state.srcBytes.length);
+        return state.destBytes;
+    }
+
+    @Benchmark
+    public int[] ints(ThreadState state) {
+        System.arraycopy(state.srcInts, 0, state.destInts, 0, state.srcInts.length);
+        return state.destInts;
+    }
+
+    @Benchmark
+    public long[] longs(ThreadState state) {
+        System.arraycopy(state.srcLongs, 0, state.destLongs, 0, state.srcLongs.length);
+        return state.destLongs;
+    }
+
+    @Benchmark
+    public Object[] objects(ThreadState state) {
+        System.arraycopy(state.srcObjects, 0, state.destObjects, 0, state.srcObjects.length);
+        return state.destObjects;
+    }
+
+    @Benchmark
+    public byte[] bytesCopyOf(ThreadState state) {
+        byte[] result = new byte[state.size];
+        System.arraycopy(state.srcBytes, 0, result, 0, state.size);
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the checksums used by compression streams. Run it with the Graal and the C2
+ * configuration of the VM to compare the intrinsics of both compilers. The Graal configuration only
+ * compiles Adler32 inline with {@code -Dgraal.UseAdler32Substitutions=true}.
+ */
+public class ChecksumBenchmark extends GraalBenchmark {
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        @Param({"64", "1024", "65536"}) int size;
+
+        byte[] bytes;
+        ByteBuffer directBuffer;
+
+        @Setup
+        public void setup() {
+            bytes = new byte[size];
+            new Random(42).nextBytes(bytes);
+            directBuffer = ByteBuffer.allocateDirect(size);
+            directBuffer.put(bytes);
+        }
+    }
+
+    @Benchmark
+    public long adler32Bytes(ThreadState state) {
+        Adler32 adler = new Adler32();
+        adler.update(state.bytes, 0, state.bytes.length);
+        return adler.getValue();
+    }
+
+    @Benchmark
+    public long adler32DirectBuffer(ThreadState state) {
+        Adler32 adler = new Adler32();
+        state.directBuffer.rewind();
+        adler.update(state.directBuffer);
+        return adler.getValue();
+    }
+
+    @Benchmark
+    public long crc32Bytes(ThreadState state) {
+        CRC32 crc = new CRC32();
+        crc.update(state.bytes, 0, state.bytes.length);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the message digests and ciphers used for TLS. Run it with the Graal and the C2
+ * configuration of the VM to compare the intrinsics of both compilers.
+ */
+public class CryptoBenchmark extends GraalBenchmark {
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        @Param({"64", "1024", "16384"}) int size;
+
+        byte[] input;
+        byte[] output;
+        MessageDigest sha1;
+        MessageDigest sha256;
+        Cipher aesGcm;
+        SecretKeySpec key;
+        byte[] iv = new byte[12];
+        int ivCounter;
+
+        @Setup
+        public void setup() throws GeneralSecurityException {
+            Random random = new Random(42);
+            input = new byte[size];
+            random.nextBytes(input);
+            byte[] keyBytes = new byte[16];
+            random.nextBytes(keyBytes);
+            key = new SecretKeySpec(keyBytes, "AES");
+            sha1 = MessageDigest.getInstance("SHA-1");
+            sha256 = MessageDigest.getInstance("SHA-256");
+            aesGcm = Cipher.getInstance("AES/GCM/NoPadding");
+            output = new byte[size + 16];
+        }
+
+        /**
+         * GCM refuses to encrypt twice with the same key and IV.
+         */
+        GCMParameterSpec nextParameters() {
+            ivCounter++;
+            iv[0] = (byte) ivCounter;
+            iv[1] = (byte) (ivCounter >>> 8);
+            iv[2] = (byte) (ivCounter >>> 16);
+            iv[3] = (byte) (ivCounter >>> 24);
+            return new GCMParameterSpec(128, iv);
+        }
+    }
+
+    @Benchmark
+    public byte[] sha1(ThreadState state) {
+        return state.sha1.digest(state.input);
+    }
+
+    @Benchmark
+    public byte[] sha256(ThreadState state) {
+        return state.sha256.digest(state.input);
+    }
+
+    @Benchmark
+    public int aesGcmEncrypt(ThreadState state) throws GeneralSecurityException {
+        state.aesGcm.init(Cipher.ENCRYPT_MODE, state.key, state.nextParameters());
+        return state.aesGcm.doFinal(state.input, 0, state.input.length, state.output, 0);
+    }
+}
@@ -460,7 +460,9 @@ public final class FrameState extends VirtualState implements IterableNodeType {
     }
 
     /**
-     * Get the MonitorIdNode that corresponds to the locked object at the specified index.
+     * Get the MonitorIdNode that corresponds to the locked object at the specified index. Returns
+     * {@code null} if the lock has been eliminated because an enclosing lock on the same object is
+     * held.
      */
     public MonitorIdNode monitorIdAt(int i) {
         assert monitorIds != null && i >= 0 && i < locksSize();
@@ -550,7 +552,8 @@ public final class FrameState extends VirtualState implements IterableNodeType {
         if (monitorIds() != null && monitorIds().size() > 0) {
             int depth = outerLockDepth();
             for (MonitorIdNode monitor : monitorIds()) {
-                assertTrue(monitor.getLockDepth() == depth++, "wrong depth");
+                assertTrue(monitor == null || monitor.getLockDepth() == depth, "wrong depth");
+                depth++;
             }
         }
         assertTrue(locksSize() == monitorIdCount(), "mismatch in number of locks");
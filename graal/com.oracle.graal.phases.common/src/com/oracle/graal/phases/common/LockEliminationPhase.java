@@ -22,28 +22,136 @@
  */
 package com.oracle.graal.phases.common;
 
+import static com.oracle.graal.compiler.common.GraalOptions.LockCoarseningMaxNodes;
+import static com.oracle.graal.compiler.common.GraalOptions.OptEliminateNestedLocks;
+import static com.oracle.graal.compiler.common.GraalOptions.OptLockCoarsening;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.nodes.AbstractMergeNode;
+import com.oracle.graal.nodes.DeoptimizingNode;
 import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.Invoke;
+import com.oracle.graal.nodes.StateSplit;
 import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.extended.MonitorEnter;
 import com.oracle.graal.nodes.java.AccessMonitorNode;
 import com.oracle.graal.nodes.java.MonitorEnterNode;
 import com.oracle.graal.nodes.java.MonitorExitNode;
+import com.oracle.graal.nodes.java.MonitorIdNode;
 import com.oracle.graal.nodes.java.RawMonitorEnterNode;
 import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.phases.Phase;
 
+/**
+ * Removes redundant monitor operations.
+ * <p>
+ * A monitor exit that is followed by a monitor enter of the same object is removed together with
+ * that enter, which merges the two synchronized regions. If {@code OptLockCoarsening} is enabled,
+ * the two operations may be separated by up to {@code LockCoarseningMaxNodes} straight-line nodes
+ * as long as none of them has a frame state or can deoptimize, since such a state would describe
+ * the lock as released.
+ * <p>
+ * If {@code OptEliminateNestedLocks} is enabled, a monitor enter whose frame state shows an
+ * enclosing lock on the same object is removed together with its exits. The frame states inside
+ * the nested region keep the lock slot but drop its {@link MonitorIdNode}, which marks the lock as
+ * eliminated so that it is re-acquired on deoptimization.
+ */
 public class LockEliminationPhase extends Phase {
 
+    private static final DebugMetric METRIC_COARSENED_LOCKS = Debug.metric("CoarsenedLocks");
+    private static final DebugMetric METRIC_NESTED_LOCKS_ELIMINATED = Debug.metric("NestedLocksEliminated");
+
     @Override
     protected void run(StructuredGraph graph) {
+        int maxNodes = OptLockCoarsening.getValue() ? LockCoarseningMaxNodes.getValue() : 0;
         for (MonitorExitNode node : graph.getNodes(MonitorExitNode.TYPE)) {
             FixedNode next = node.next();
+            int intervening = 0;
+            while (intervening < maxNodes && isCoarsenable(next)) {
+                next = ((FixedWithNextNode) next).next();
+                intervening++;
+            }
             if (next instanceof MonitorEnterNode || next instanceof RawMonitorEnterNode) {
                 AccessMonitorNode monitorEnterNode = (AccessMonitorNode) next;
-                if (GraphUtil.unproxify(monitorEnterNode.object()) == GraphUtil.unproxify(node.object())) {
+                if (GraphUtil.unproxify(monitorEnterNode.object()) == GraphUtil.unproxify(node.object()) &&
+                                monitorEnterNode.getMonitorId().getLockDepth() == node.getMonitorId().getLockDepth()) {
                     GraphUtil.removeFixedWithUnusedInputs(monitorEnterNode);
                     GraphUtil.removeFixedWithUnusedInputs(node);
+                    if (intervening > 0) {
+                        METRIC_COARSENED_LOCKS.increment();
+                    }
+                }
+            }
+        }
+
+        if (OptEliminateNestedLocks.getValue()) {
+            for (MonitorIdNode monitorId : graph.getNodes(MonitorIdNode.TYPE)) {
+                AccessMonitorNode enter = singleEnter(monitorId);
+                if (enter != null && isHeldByEnclosingLock(enter, monitorId)) {
+                    eliminateNestedLock(enter, monitorId);
+                    METRIC_NESTED_LOCKS_ELIMINATED.increment();
                 }
             }
         }
     }
+
+    /**
+     * Determines if {@code node} may be moved into a synchronized region without changing the
+     * state described by deoptimization information.
+     */
+    private static boolean isCoarsenable(FixedNode node) {
+        if (!(node instanceof FixedWithNextNode) || node instanceof AbstractMergeNode || node instanceof AccessMonitorNode || node instanceof Invoke) {
+            return false;
+        }
+        if (node instanceof StateSplit && ((StateSplit) node).stateAfter() != null) {
+            return false;
+        }
+        return !(node instanceof DeoptimizingNode) || !((DeoptimizingNode) node).canDeoptimize();
+    }
+
+    private static AccessMonitorNode singleEnter(MonitorIdNode monitorId) {
+        AccessMonitorNode enter = null;
+        for (Node usage : monitorId.usages()) {
+            if (usage instanceof MonitorEnter) {
+                if (enter != null) {
+                    return null;
+                }
+                enter = (AccessMonitorNode) usage;
+            } else if (!(usage instanceof MonitorExitNode) && !(usage instanceof FrameState)) {
+                return null;
+            }
+        }
+        return enter;
+    }
+
+    private static boolean isHeldByEnclosingLock(AccessMonitorNode enter, MonitorIdNode monitorId) {
+        ValueNode object = GraphUtil.unproxify(enter.object());
+        for (FrameState state = enter.stateAfter(); state != null; state = state.outerFrameState()) {
+            for (int i = 0; i < state.locksSize(); i++) {
+                MonitorIdNode enclosing = state.monitorIdAt(i);
+                if (enclosing != null && enclosing != monitorId && enclosing.getLockDepth() < monitorId.getLockDepth() && GraphUtil.unproxify(state.lockAt(i)) == object) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void eliminateNestedLock(AccessMonitorNode enter, MonitorIdNode monitorId) {
+        for (Node usage : monitorId.usages().snapshot()) {
+            if (usage instanceof MonitorExitNode) {
+                GraphUtil.removeFixedWithUnusedInputs((MonitorExitNode) usage);
+            }
+        }
+        GraphUtil.removeFixedWithUnusedInputs(enter);
+        if (monitorId.isAlive()) {
+            monitorId.replaceAtMatchingUsages(null, usage -> usage instanceof FrameState);
+            GraphUtil.killWithUnusedFloatingInputs(monitorId);
+        }
+    }
 }
@@ -22,6 +22,8 @@
  */
 package com.oracle.graal.phases.common.inlining.info;
 
+import static com.oracle.graal.compiler.common.GraalOptions.PolymorphicCallSiteMaxTargets;
+import static com.oracle.graal.compiler.common.GraalOptions.PolymorphicCallSiteMinProbability;
 import static com.oracle.graal.compiler.common.GraalOptions.UseGraalInstrumentation;
 
 import java.util.ArrayList;
@@ -40,6 +42,7 @@ import jdk.vm.ci.meta.ResolvedJavaType;
 
 import com.oracle.graal.compiler.common.type.StampFactory;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.AbstractMergeNode;
@@ -72,9 +75,15 @@ import com.oracle.graal.phases.util.Providers;
  * Polymorphic inlining of m methods with n type checks (n &ge; m) in case that the profiling
  * information suggests a reasonable amount of different receiver types and different methods. If an
  * unknown type is encountered a deoptimization is triggered.
+ * <p>
+ * If the methods are not inlined, an interface call is devirtualized either to a virtual call on a
+ * common base class or, failing that, to direct calls of the most frequent methods behind a type
+ * switch with the original interface call as the fallback.
  */
 public class MultiTypeGuardInlineInfo extends AbstractInlineInfo {
 
+    private static final DebugMetric METRIC_GUARDED_DIRECT_CALLS = Debug.metric("PolymorphicGuardedDirectCalls");
+
     private final List<ResolvedJavaMethod> concretes;
     private final double[] methodProbabilities;
     private final double maximumMethodProbability;
@@ -443,11 +452,140 @@ public class MultiTypeGuardInlineInfo extends AbstractInlineInfo {
                 ResolvedJavaMethod baseClassTargetMethod = leastCommonType.resolveConcreteMethod(targetMethod, contextType);
                 if (baseClassTargetMethod != null) {
                     devirtualizeWithTypeSwitch(graph, InvokeKind.Virtual, leastCommonType.resolveConcreteMethod(targetMethod, contextType), stampProvider, constantReflection);
+                    return;
                 }
             }
+            // otherwise call the most frequent receiver methods directly and leave the
+            // remaining receivers to the interface dispatch
+            List<Integer> directTargets = selectDirectCallTargets();
+            if (!directTargets.isEmpty()) {
+                devirtualizeWithGuardedCalls(graph, directTargets, stampProvider, constantReflection);
+            }
         }
     }
 
+    /**
+     * Selects the indexes of the concrete methods that are frequent enough to be called directly,
+     * in order of decreasing probability.
+     */
+    private List<Integer> selectDirectCallTargets() {
+        List<Integer> result = new ArrayList<>();
+        int maxTargets = PolymorphicCallSiteMaxTargets.getValue();
+        while (result.size() < maxTargets) {
+            int best = -1;
+            for (int i = 0; i < concretes.size(); i++) {
+                if (!result.contains(i) && methodProbabilities[i] >= PolymorphicCallSiteMinProbability.getValue() && (best == -1 || methodProbabilities[i] > methodProbabilities[best])) {
+                    best = i;
+                }
+            }
+            if (best == -1) {
+                break;
+            }
+            result.add(best);
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the invoke with a type switch that calls each of {@code directTargets} directly for
+     * the receiver types that resolve to it. All other receivers, including those not recorded in
+     * the profile, reach a copy of the original invoke.
+     */
+    private void devirtualizeWithGuardedCalls(StructuredGraph graph, List<Integer> directTargets, StampProvider stampProvider, ConstantReflectionProvider constantReflection) {
+        FixedNode continuation = invoke.next();
+
+        AbstractMergeNode returnMerge = graph.add(new MergeNode());
+        returnMerge.setStateAfter(invoke.stateAfter());
+
+        PhiNode returnValuePhi = null;
+        if (invoke.asNode().getStackKind() != JavaKind.Void) {
+            returnValuePhi = graph.addWithoutUnique(new ValuePhiNode(invoke.asNode().stamp().unrestricted(), returnMerge));
+        }
+
+        AbstractMergeNode exceptionMerge = null;
+        PhiNode exceptionObjectPhi = null;
+        if (invoke instanceof InvokeWithExceptionNode) {
+            ExceptionObjectNode exceptionEdge = (ExceptionObjectNode) ((InvokeWithExceptionNode) invoke).exceptionEdge();
+            exceptionMerge = graph.add(new MergeNode());
+            graph.addBeforeFixed(exceptionEdge.next(), exceptionMerge);
+            exceptionObjectPhi = graph.addWithoutUnique(new ValuePhiNode(StampFactory.forKind(JavaKind.Object), exceptionMerge));
+            exceptionMerge.setStateAfter(exceptionEdge.stateAfter().duplicateModified(invoke.stateAfter().bci, true, JavaKind.Object, new JavaKind[]{JavaKind.Object},
+                            new ValueNode[]{exceptionObjectPhi}));
+        }
+
+        AbstractBeginNode[] successors = new AbstractBeginNode[directTargets.size() + 1];
+        for (int i = 0; i < successors.length; i++) {
+            successors[i] = createInvocationBlock(graph, invoke, returnMerge, returnValuePhi, exceptionMerge, exceptionObjectPhi, false);
+        }
+
+        if (invoke instanceof InvokeWithExceptionNode) {
+            ExceptionObjectNode exceptionEdge = (ExceptionObjectNode) ((InvokeWithExceptionNode) invoke).exceptionEdge();
+            exceptionEdge.replaceAtUsages(exceptionObjectPhi);
+            exceptionEdge.setNext(null);
+            GraphUtil.killCFG(exceptionEdge);
+        }
+
+        createDispatchOnDirectTargets(graph, successors, directTargets, stampProvider, constantReflection);
+
+        invoke.setNext(null);
+        returnMerge.setNext(continuation);
+        if (UseGraalInstrumentation.getValue()) {
+            InliningUtil.removeAttachedInstrumentation(invoke);
+        }
+        if (returnValuePhi != null) {
+            invoke.asNode().replaceAtUsages(returnValuePhi);
+        }
+        invoke.asNode().safeDelete();
+
+        for (int i = 0; i < directTargets.size(); i++) {
+            int concreteIndex = directTargets.get(i);
+            Invoke directInvoke = (Invoke) successors[i].next();
+            ValueNode receiver = ((MethodCallTargetNode) directInvoke.callTarget()).receiver();
+            GuardedValueNode anchoredReceiver = InliningUtil.createAnchoredReceiver(graph, successors[i], getLeastCommonType(concreteIndex), receiver, getTypeCount(concreteIndex) == 1);
+            directInvoke.callTarget().replaceFirstInput(receiver, anchoredReceiver);
+            InliningUtil.replaceInvokeCallTarget(directInvoke, graph, InvokeKind.Special, concretes.get(concreteIndex));
+        }
+        METRIC_GUARDED_DIRECT_CALLS.add(directTargets.size());
+    }
+
+    private void createDispatchOnDirectTargets(StructuredGraph graph, AbstractBeginNode[] successors, List<Integer> directTargets, StampProvider stampProvider,
+                    ConstantReflectionProvider constantReflection) {
+        ValueNode nonNullReceiver = InliningUtil.nonNullReceiver(invoke);
+        LoadHubNode hub = graph.unique(new LoadHubNode(stampProvider, nonNullReceiver));
+
+        List<ResolvedJavaType> keys = new ArrayList<>();
+        List<Double> keyProbabilities = new ArrayList<>();
+        List<Integer> keySuccessors = new ArrayList<>();
+        double fallbackProbability = notRecordedTypeProbability;
+        for (int i = 0; i < ptypes.size(); i++) {
+            int successor = directTargets.indexOf(typesToConcretes.get(i));
+            if (successor >= 0) {
+                keys.add(ptypes.get(i).getType());
+                keyProbabilities.add(ptypes.get(i).getProbability());
+                keySuccessors.add(successor);
+            } else {
+                fallbackProbability += ptypes.get(i).getProbability();
+            }
+        }
+        keyProbabilities.add(fallbackProbability);
+        keySuccessors.add(successors.length - 1);
+
+        double totalProbability = 0;
+        for (double probability : keyProbabilities) {
+            totalProbability += probability;
+        }
+        double[] normalizedProbabilities = new double[keyProbabilities.size()];
+        int[] successorIndexes = new int[keySuccessors.size()];
+        for (int i = 0; i < normalizedProbabilities.length; i++) {
+            normalizedProbabilities[i] = totalProbability > 0 ? keyProbabilities.get(i) / totalProbability : 1.0 / normalizedProbabilities.length;
+            successorIndexes[i] = keySuccessors.get(i);
+        }
+
+        TypeSwitchNode typeSwitch = graph.add(new TypeSwitchNode(hub, successors, keys.toArray(new ResolvedJavaType[keys.size()]), normalizedProbabilities, successorIndexes, constantReflection));
+        FixedWithNextNode pred = (FixedWithNextNode) invoke.asNode().predecessor();
+        pred.setNext(typeSwitch);
+    }
+
     private void devirtualizeWithTypeSwitch(StructuredGraph graph, InvokeKind kind, ResolvedJavaMethod target, StampProvider stampProvider, ConstantReflectionProvider constantReflection) {
         AbstractBeginNode invocationEntry = graph.add(new BeginNode());
         AbstractBeginNode unknownTypeSux = createUnknownTypeSuccessor(graph);
@@ -44,7 +44,9 @@ public final class OptimisticOptimizations {
         UseTypeCheckHints,
         UseExceptionProbabilityForOperations,
         UseExceptionProbability,
-        UseLoopLimitChecks
+        UseLoopLimitChecks,
+        UseLoopGuardHoisting,
+        UseSpeculativeLoopUnswitching
     }
 
     private final Set<Optimization> enabledOpts;
@@ -58,6 +60,9 @@ public final class OptimisticOptimizations {
         addOptimization(info, DeoptimizationReason.OptimizedTypeCheckViolated, Optimization.UseTypeCheckHints);
         addOptimization(info, DeoptimizationReason.NotCompiledExceptionHandler, Optimization.UseExceptionProbability);
         addOptimization(info, DeoptimizationReason.LoopLimitCheck, Optimization.UseLoopLimitChecks);
+        // loop speculations, see LoopGuardHoistingPhase.HOISTED_GUARD_REASON
+        addOptimization(info, DeoptimizationReason.Aliasing, Optimization.UseLoopGuardHoisting);
+        addOptimization(info, DeoptimizationReason.Aliasing, Optimization.UseSpeculativeLoopUnswitching);
     }
 
     private void addOptimization(ProfilingInfo info, DeoptimizationReason deoptReason, Optimization optimization) {
@@ -124,6 +129,14 @@ public final class OptimisticOptimizations {
         return GraalOptions.UseLoopLimitChecks.getValue() && enabledOpts.contains(Optimization.UseLoopLimitChecks);
     }
 
+    public boolean hoistLoopInvariantGuards() {
+        return GraalOptions.OptLoopGuardHoisting.getValue() && enabledOpts.contains(Optimization.UseLoopGuardHoisting);
+    }
+
+    public boolean speculativelyUnswitchLoops() {
+        return GraalOptions.LoopSpeculativeUnswitch.getValue() && enabledOpts.contains(Optimization.UseSpeculativeLoopUnswitching);
+    }
+
     public boolean lessOptimisticThan(OptimisticOptimizations other) {
         for (Optimization opt : Optimization.values()) {
             if (!enabledOpts.contains(opt) && other.enabledOpts.contains(opt)) {
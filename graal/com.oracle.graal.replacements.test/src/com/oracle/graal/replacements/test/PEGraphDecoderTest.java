@@ -22,17 +22,22 @@
  */
 package com.oracle.graal.replacements.test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.JavaType;
 import jdk.vm.ci.meta.LocationIdentity;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.oracle.graal.compiler.common.type.StampFactory;
 import com.oracle.graal.compiler.test.GraalCompilerTest;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.EncodedGraph;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.ValueNode;
@@ -151,4 +156,45 @@ public class PEGraphDecoderTest extends GraalCompilerTest {
             Debug.handle(ex);
         }
     }
+
+    @SuppressWarnings("serial")
+    static class CountingGraphCache extends HashMap<ResolvedJavaMethod, EncodedGraph> {
+        int parsed;
+
+        @Override
+        public EncodedGraph put(ResolvedJavaMethod key, EncodedGraph value) {
+            parsed++;
+            return super.put(key, value);
+        }
+    }
+
+    private StructuredGraph decodeWithCache(ResolvedJavaMethod testMethod, Map<ResolvedJavaMethod, EncodedGraph> graphCache) {
+        GraphBuilderConfiguration graphBuilderConfig = GraphBuilderConfiguration.getEagerDefault(getDefaultGraphBuilderPlugins());
+        registerPlugins(graphBuilderConfig.getPlugins().getInvocationPlugins());
+        CachingPEGraphDecoder decoder = new CachingPEGraphDecoder(getProviders(), graphBuilderConfig, OptimisticOptimizations.NONE, AllowAssumptions.NO, getTarget().arch, graphCache);
+
+        StructuredGraph targetGraph = new StructuredGraph(testMethod, AllowAssumptions.NO);
+        decoder.decode(targetGraph, testMethod, null, null, new InlineInvokePlugin[]{new InlineAll()}, null);
+        targetGraph.verify();
+        new CanonicalizerPhase().apply(targetGraph, new PhaseContext(getProviders()));
+        return targetGraph;
+    }
+
+    /**
+     * Decoders sharing a graph cache must not parse a method twice, and a graph decoded from cached
+     * graphs must be the same as one decoded from freshly parsed graphs.
+     */
+    @Test
+    public void testSharedGraphCache() {
+        ResolvedJavaMethod testMethod = getResolvedJavaMethod(PEGraphDecoderTest.class, "doTest", Object.class);
+        CountingGraphCache graphCache = new CountingGraphCache();
+
+        StructuredGraph fresh = decodeWithCache(testMethod, graphCache);
+        int parsed = graphCache.parsed;
+        Assert.assertTrue(parsed > 0);
+
+        StructuredGraph cached = decodeWithCache(testMethod, graphCache);
+        Assert.assertEquals("cached graphs must be reused", parsed, graphCache.parsed);
+        assertEquals(fresh, cached);
+    }
 }
@@ -50,19 +50,41 @@ import com.oracle.graal.phases.util.Providers;
 public class CachingPEGraphDecoder extends PEGraphDecoder {
 
     private final Providers providers;
+    private final Providers parsingProviders;
     private final GraphBuilderConfiguration graphBuilderConfig;
     private final OptimisticOptimizations optimisticOpts;
     private final AllowAssumptions allowAssumptions;
     private final Map<ResolvedJavaMethod, EncodedGraph> graphCache;
 
     public CachingPEGraphDecoder(Providers providers, GraphBuilderConfiguration graphBuilderConfig, OptimisticOptimizations optimisticOpts, AllowAssumptions allowAssumptions, Architecture architecture) {
+        this(providers, graphBuilderConfig, optimisticOpts, allowAssumptions, architecture, new HashMap<>());
+    }
+
+    public CachingPEGraphDecoder(Providers providers, GraphBuilderConfiguration graphBuilderConfig, OptimisticOptimizations optimisticOpts, AllowAssumptions allowAssumptions, Architecture architecture,
+                    Map<ResolvedJavaMethod, EncodedGraph> graphCache) {
+        this(providers, providers, graphBuilderConfig, optimisticOpts, allowAssumptions, architecture, graphCache);
+    }
+
+    /**
+     * Creates a decoder that stores the graphs it parses in {@code graphCache}, which may be shared
+     * with other decoders. A shared cache must be thread safe if the decoders are used
+     * concurrently, and should only hold graphs parsed with {@link AllowAssumptions#NO} because the
+     * assumptions of a cached graph are not recorded in the graphs it is later decoded into.
+     * <p>
+     * The graphs are parsed with {@code parsingProviders}, while decoding uses {@code providers}.
+     * The constant reflection of {@code parsingProviders} must only fold values that never change,
+     * since cached graphs outlive the state they were parsed in.
+     */
+    public CachingPEGraphDecoder(Providers providers, Providers parsingProviders, GraphBuilderConfiguration graphBuilderConfig, OptimisticOptimizations optimisticOpts,
+                    AllowAssumptions allowAssumptions, Architecture architecture, Map<ResolvedJavaMethod, EncodedGraph> graphCache) {
         super(providers.getMetaAccess(), providers.getConstantReflection(), providers.getStampProvider(), architecture);
 
         this.providers = providers;
+        this.parsingProviders = parsingProviders;
         this.graphBuilderConfig = graphBuilderConfig;
         this.optimisticOpts = optimisticOpts;
         this.allowAssumptions = allowAssumptions;
-        this.graphCache = new HashMap<>();
+        this.graphCache = graphCache;
     }
 
     @SuppressWarnings("try")
@@ -71,9 +93,10 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
         try (Debug.Scope scope = Debug.scope("createGraph", graph)) {
 
             IntrinsicContext initialIntrinsicContext = isIntrinsic ? new IntrinsicContext(method, method, INLINE_AFTER_PARSING) : null;
-            new GraphBuilderPhase.Instance(providers.getMetaAccess(), providers.getStampProvider(), providers.getConstantReflection(), graphBuilderConfig, optimisticOpts, initialIntrinsicContext).apply(graph);
+            new GraphBuilderPhase.Instance(parsingProviders.getMetaAccess(), parsingProviders.getStampProvider(), parsingProviders.getConstantReflection(), graphBuilderConfig, optimisticOpts,
+                            initialIntrinsicContext).apply(graph);
 
-            PhaseContext context = new PhaseContext(providers);
+            PhaseContext context = new PhaseContext(parsingProviders);
             new CanonicalizerPhase().apply(graph, context);
 
             EncodedGraph encodedGraph = GraphEncoder.encodeSingleGraph(graph, architecture);
@@ -602,9 +602,17 @@ public abstract class DefaultJavaLoweringProvider implements LoweringProvider {
             finishAllocatedObjects(tool, commit, allocations);
             graph.removeFixed(commit);
 
-            for (AbstractNewObjectNode recursiveLowering : recursiveLowerings) {
-                recursiveLowering.lower(tool);
-            }
+            lowerCommittedAllocations(recursiveLowerings, tool);
+        }
+    }
+
+    /**
+     * Lowers the allocations created for a {@link CommitAllocationNode}. They are in program order
+     * and only separated by the initializing writes of their fields.
+     */
+    protected void lowerCommittedAllocations(List<AbstractNewObjectNode> newObjects, LoweringTool tool) {
+        for (AbstractNewObjectNode newObject : newObjects) {
+            newObject.lower(tool);
         }
     }
 
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2013, 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.truffle.GraalTruffleRuntime;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.debug.CompilationMetricsListener;
+import com.oracle.graal.truffle.test.nodes.ConstantTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+
+public class CompilationMetricsListenerTest {
+
+    private final GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+    private final OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(new RootTestNode(new FrameDescriptor(), "metrics", new ConstantTestNode(42)));
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("compilation", ".metrics");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static String reason(String event) {
+        String[] fields = event.split("\t");
+        Assert.assertEquals(event, "dequeued", fields[1]);
+        Assert.assertTrue(event, fields[3].startsWith("reason="));
+        return fields[3].substring("reason=".length());
+    }
+
+    private static List<String> reasons(List<String> events) {
+        List<String> result = new ArrayList<>();
+        for (String event : events) {
+            result.add(reason(event));
+        }
+        return result;
+    }
+
+    @Test
+    public void testRecentEvents() {
+        CompilationMetricsListener listener = new CompilationMetricsListener(4);
+        for (int i = 0; i < 6; i++) {
+            listener.notifyCompilationDequeued(target, null, String.valueOf(i));
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 2; i < 6; i++) {
+            expected.add(String.valueOf(i));
+        }
+        Assert.assertEquals(expected, reasons(listener.getRecentEvents()));
+    }
+
+    /**
+     * Failure and invalidation reasons often span several lines, but must not break the one event
+     * per line format.
+     */
+    @Test
+    public void testEscapedReason() throws IOException {
+        CompilationMetricsListener listener = new CompilationMetricsListener(4);
+        listener.notifyCompilationDequeued(target, null, "first line\n\tsecond\\line\r\n");
+        listener.write(runtime, file);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(1, lines.size());
+        Assert.assertEquals(4, lines.get(0).split("\t").length);
+        Assert.assertEquals("first line\\n\\tsecond\\\\line\\r\\n", reason(lines.get(0)));
+    }
+
+    @Test
+    public void testWriteReportsDroppedEvents() throws IOException {
+        CompilationMetricsListener listener = new CompilationMetricsListener(4);
+        for (int i = 0; i < 6; i++) {
+            listener.notifyCompilationDequeued(target, null, String.valueOf(i));
+        }
+        listener.write(runtime, file);
+        listener.notifyCompilationDequeued(target, null, "6");
+        listener.write(runtime, file);
+        listener.write(runtime, file);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(6, lines.size());
+        String[] dropped = lines.get(0).split("\t");
+        Assert.assertEquals("dropped", dropped[1]);
+        Assert.assertEquals("events=2", dropped[3]);
+        List<String> expected = new ArrayList<>();
+        for (int i = 2; i < 7; i++) {
+            expected.add(String.valueOf(i));
+        }
+        Assert.assertEquals(expected, reasons(lines.subList(1, lines.size())));
+    }
+
+    /**
+     * Threads that record and write concurrently must not append the events out of order.
+     */
+    @Test
+    public void testConcurrentWrites() throws IOException, InterruptedException {
+        final int threadCount = 4;
+        final int eventsPerThread = 500;
+        CompilationMetricsListener listener = new CompilationMetricsListener(threadCount * eventsPerThread);
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int thread = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < eventsPerThread; i++) {
+                        listener.notifyCompilationDequeued(target, null, thread + ":" + i);
+                        listener.write(runtime, file);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        listener.write(runtime, file);
+
+        Assert.assertEquals(reasons(listener.getRecentEvents()), reasons(Files.readAllLines(file, StandardCharsets.UTF_8)));
+    }
+}
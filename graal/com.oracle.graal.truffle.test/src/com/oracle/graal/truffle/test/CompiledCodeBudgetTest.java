@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2013, 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.truffle.CompiledCodeBudget;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.test.nodes.ConstantTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+
+public class CompiledCodeBudgetTest {
+
+    private static final int BUDGET = 100;
+    private static final int CODE_SIZE = 40;
+
+    /**
+     * Records evictions instead of invalidating the targets, takes the use of compiled code from
+     * {@link #used} instead of from compiled code entries and treats the targets in
+     * {@link #unbudgeted} like OSR loops.
+     */
+    private static final class TestBudget extends CompiledCodeBudget {
+
+        final Set<OptimizedCallTarget> used = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Set<OptimizedCallTarget> unbudgeted = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<OptimizedCallTarget> evicted = new ArrayList<>();
+
+        TestBudget() {
+            super(BUDGET);
+        }
+
+        @Override
+        protected boolean isBudgeted(OptimizedCallTarget target) {
+            return !unbudgeted.contains(target);
+        }
+
+        @Override
+        protected boolean clearCalledSinceSweep(OptimizedCallTarget target) {
+            return used.remove(target);
+        }
+
+        @Override
+        protected void evict(OptimizedCallTarget target) {
+            evicted.add(target);
+        }
+
+        void compiled(OptimizedCallTarget target) {
+            CompilationResult result = new CompilationResult();
+            result.setTargetCode(new byte[CODE_SIZE], CODE_SIZE);
+            notifyCompilationSuccess(target, null, result);
+        }
+    }
+
+    private static OptimizedCallTarget createCallTarget(String name) {
+        return (OptimizedCallTarget) Truffle.getRuntime().createCallTarget(new RootTestNode(new FrameDescriptor(), name, new ConstantTestNode(42)));
+    }
+
+    @Test
+    public void testWithinBudget() {
+        TestBudget budget = new TestBudget();
+        budget.compiled(createCallTarget("a"));
+        budget.compiled(createCallTarget("b"));
+        Assert.assertEquals(Collections.emptyList(), budget.evicted);
+    }
+
+    @Test
+    public void testLeastRecentlyCompiledEvicted() {
+        TestBudget budget = new TestBudget();
+        OptimizedCallTarget a = createCallTarget("a");
+        OptimizedCallTarget b = createCallTarget("b");
+        OptimizedCallTarget c = createCallTarget("c");
+        budget.compiled(a);
+        budget.compiled(b);
+        budget.compiled(c);
+        Assert.assertEquals(Arrays.asList(a), budget.evicted);
+    }
+
+    @Test
+    public void testUsedTargetSpared() {
+        TestBudget budget = new TestBudget();
+        OptimizedCallTarget a = createCallTarget("a");
+        OptimizedCallTarget b = createCallTarget("b");
+        OptimizedCallTarget c = createCallTarget("c");
+        OptimizedCallTarget d = createCallTarget("d");
+        budget.compiled(a);
+        budget.compiled(b);
+        budget.used.add(a);
+        budget.compiled(c);
+        Assert.assertEquals(Arrays.asList(b), budget.evicted);
+
+        // a was moved behind c, so c is now the least recently compiled or used target
+        budget.compiled(d);
+        Assert.assertEquals(Arrays.asList(b, c), budget.evicted);
+    }
+
+    /**
+     * If all targets were used, they are evicted in the order they were moved to the end.
+     */
+    @Test
+    public void testAllTargetsUsed() {
+        TestBudget budget = new TestBudget();
+        OptimizedCallTarget a = createCallTarget("a");
+        OptimizedCallTarget b = createCallTarget("b");
+        OptimizedCallTarget c = createCallTarget("c");
+        OptimizedCallTarget d = createCallTarget("d");
+        budget.compiled(a);
+        budget.compiled(b);
+        budget.used.add(a);
+        budget.used.add(b);
+        budget.compiled(c);
+        Assert.assertEquals(Arrays.asList(a), budget.evicted);
+
+        // b was moved behind c together with a, and its use was consumed by the last sweep
+        budget.compiled(d);
+        Assert.assertEquals(Arrays.asList(a, c), budget.evicted);
+    }
+
+    @Test
+    public void testUnbudgetedTargetIgnored() {
+        TestBudget budget = new TestBudget();
+        OptimizedCallTarget a = createCallTarget("a");
+        OptimizedCallTarget b = createCallTarget("b");
+        OptimizedCallTarget osr = createCallTarget("osr");
+        budget.unbudgeted.add(osr);
+        budget.compiled(a);
+        budget.compiled(osr);
+        budget.compiled(b);
+        Assert.assertEquals(Collections.emptyList(), budget.evicted);
+
+        // the OSR target is never a candidate for eviction
+        budget.compiled(createCallTarget("c"));
+        Assert.assertEquals(Arrays.asList(a), budget.evicted);
+    }
+
+    @Test
+    public void testInvalidatedTargetReleasesBudget() {
+        TestBudget budget = new TestBudget();
+        OptimizedCallTarget a = createCallTarget("a");
+        OptimizedCallTarget b = createCallTarget("b");
+        budget.compiled(a);
+        budget.compiled(b);
+        budget.notifyCompilationInvalidated(a, null, "test");
+        budget.compiled(createCallTarget("c"));
+        Assert.assertEquals(Collections.emptyList(), budget.evicted);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.virtual.VirtualArrayNode;
+import com.oracle.graal.truffle.FrameWithoutBoxing;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.test.nodes.MaterializeFrameTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.FrameSlotTypeException;
+
+/**
+ * Tests that frames without slots share their storage arrays with each other, both in the
+ * interpreter and when a virtual frame is materialized in compiled code.
+ */
+public class EmptyFramePartialEvaluationTest extends PartialEvaluationTest {
+
+    private long materializedArrays(FrameDescriptor descriptor) {
+        OptimizedCallTarget target = (OptimizedCallTarget) Truffle.getRuntime().createCallTarget(new RootTestNode(descriptor, "materializeFrame", new MaterializeFrameTestNode()));
+        StructuredGraph graph = partialEval(target, new Object[0], AllowAssumptions.YES);
+        return graph.getNodes().filter(VirtualArrayNode.class).count();
+    }
+
+    @Test
+    public void emptyFrameMaterializesWithoutArrays() {
+        Assert.assertEquals(0, materializedArrays(new FrameDescriptor()));
+    }
+
+    @Test
+    public void frameWithSlotMaterializesArrays() {
+        FrameDescriptor descriptor = new FrameDescriptor();
+        descriptor.addFrameSlot("x", FrameSlotKind.Int);
+        Assert.assertNotEquals(0, materializedArrays(descriptor));
+    }
+
+    /**
+     * A frame created before its descriptor got its first slot must get storage of its own rather
+     * than writing to the shared empty arrays.
+     */
+    @Test
+    public void emptyFrameResizes() throws FrameSlotTypeException {
+        FrameDescriptor descriptor = new FrameDescriptor();
+        FrameWithoutBoxing first = new FrameWithoutBoxing(descriptor, new Object[0]);
+        FrameWithoutBoxing second = new FrameWithoutBoxing(descriptor, new Object[0]);
+        FrameSlot slot = descriptor.addFrameSlot("x", FrameSlotKind.Int);
+
+        first.setInt(slot, 42);
+        Assert.assertEquals(42, first.getInt(slot));
+        Assert.assertFalse(second.isInt(slot));
+        Assert.assertNull(second.getValue(slot));
+
+        Assert.assertEquals(0, FrameWithoutBoxing.EMPTY_OBJECT_ARRAY.length);
+        Assert.assertEquals(0, FrameWithoutBoxing.EMPTY_LONG_ARRAY.length);
+        Assert.assertEquals(0, FrameWithoutBoxing.EMPTY_BYTE_ARRAY.length);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.truffle.test.nodes.CompilationFinalStaticTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+
+/**
+ * Tests that the graphs cached across compilations do not keep the values of
+ * {@code @CompilationFinal} fields that were current when they were parsed.
+ */
+public class GraphCachePartialEvaluationTest extends PartialEvaluationTest {
+    public static Object constant42() {
+        return 42;
+    }
+
+    public static Object constant43() {
+        return 43;
+    }
+
+    @Override
+    @After
+    public void after() {
+        super.after();
+        CompilationFinalStaticTestNode.value = 0;
+    }
+
+    @Test
+    public void staticCompilationFinalNotCached() {
+        CompilationFinalStaticTestNode.value = 42;
+        assertPartialEvalEquals("constant42", new RootTestNode(new FrameDescriptor(), "compilationFinal", new CompilationFinalStaticTestNode()));
+        int cachedGraphs = getPartialEvaluator().getCachedGraphCount();
+
+        CompilationFinalStaticTestNode.value = 43;
+        assertPartialEvalEquals("constant43", new RootTestNode(new FrameDescriptor(), "compilationFinal", new CompilationFinalStaticTestNode()));
+        Assert.assertEquals("second compilation must be served from the graph cache", cachedGraphs, getPartialEvaluator().getCachedGraphCount());
+    }
+}
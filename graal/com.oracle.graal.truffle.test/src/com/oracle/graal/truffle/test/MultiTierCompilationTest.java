@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2013, 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleBackgroundCompilation;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleFirstTierCompilationThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMultiTier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.test.nodes.ConstantTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+
+public class MultiTierCompilationTest {
+
+    private static final int FIRST_TIER_THRESHOLD = 10;
+    private static final int THRESHOLD = 100;
+
+    private static OverrideScope multiTier() {
+        return OptionValue.override(TruffleMultiTier, true, TruffleBackgroundCompilation, false, TruffleFirstTierCompilationThreshold, FIRST_TIER_THRESHOLD, TruffleCompilationThreshold,
+                        THRESHOLD);
+    }
+
+    private static OptimizedCallTarget createCallTarget(String name) {
+        return (OptimizedCallTarget) Truffle.getRuntime().createCallTarget(new RootTestNode(new FrameDescriptor(), name, new ConstantTestNode(42)));
+    }
+
+    /**
+     * Calls the target until its code is valid and of the expected tier, or fails after
+     * {@code maxCalls} calls.
+     */
+    private static void callUntil(OptimizedCallTarget target, boolean firstTier, int maxCalls) {
+        for (int i = 0; i < maxCalls; i++) {
+            if (target.isValid() && target.isFirstTierCompilation() == firstTier) {
+                return;
+            }
+            Assert.assertEquals(42, target.call());
+        }
+        Assert.fail("no " + (firstTier ? "first" : "second") + " tier code after " + maxCalls + " calls");
+    }
+
+    @Test
+    public void testTierTransition() {
+        try (OverrideScope s = multiTier()) {
+            OptimizedCallTarget target = createCallTarget("tierTransition");
+            callUntil(target, true, FIRST_TIER_THRESHOLD * 2);
+            callUntil(target, false, THRESHOLD * 2);
+            for (int i = 0; i < THRESHOLD; i++) {
+                Assert.assertEquals(42, target.call());
+            }
+            Assert.assertTrue(target.isValid());
+            Assert.assertFalse(target.isFirstTierCompilation());
+        }
+    }
+
+    /**
+     * First tier code compiled after an invalidation must request the second tier again, even if
+     * the previous first tier code already did.
+     */
+    @Test
+    public void testTierTransitionAfterInvalidation() {
+        try (OverrideScope s = multiTier()) {
+            OptimizedCallTarget target = createCallTarget("tierTransitionAfterInvalidation");
+            callUntil(target, true, FIRST_TIER_THRESHOLD * 2);
+            callUntil(target, false, THRESHOLD * 2);
+
+            target.invalidate();
+            Assert.assertFalse(target.isValid());
+            callUntil(target, true, THRESHOLD * 2);
+            callUntil(target, false, THRESHOLD * 4);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jdk.vm.ci.code.InstalledCode;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.truffle.OptimizedAssumption;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.test.nodes.AddTestNode;
+import com.oracle.graal.truffle.test.nodes.ConstantWithAssumptionTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+
+public class OptimizedAssumptionTest extends PartialEvaluationTest {
+
+    private OptimizedCallTarget compileDependingOn(OptimizedAssumption first, OptimizedAssumption second) {
+        AddTestNode add = new AddTestNode(new ConstantWithAssumptionTestNode(first, 20), new ConstantWithAssumptionTestNode(second, 22));
+        OptimizedCallTarget callTarget = compileHelper("twoAssumptions", new RootTestNode(new FrameDescriptor(), "twoAssumptions", add), new Object[0]);
+        Assert.assertTrue(callTarget.isValid());
+        return callTarget;
+    }
+
+    @Test
+    public void batchInvalidation() {
+        OptimizedAssumption first = (OptimizedAssumption) Truffle.getRuntime().createAssumption();
+        OptimizedAssumption second = (OptimizedAssumption) Truffle.getRuntime().createAssumption();
+        OptimizedCallTarget callTarget = compileDependingOn(first, second);
+
+        OptimizedAssumption.invalidate(Arrays.asList(second, first, second));
+        Assert.assertFalse(first.isValid());
+        Assert.assertFalse(second.isValid());
+        Assert.assertFalse(callTarget.isValid());
+        assertDeepEquals(44, callTarget.call());
+    }
+
+    /**
+     * Every invalidation of an assumption, including the ones that lose the race, must only return
+     * once the code depending on the assumption is invalid.
+     */
+    @Test
+    public void racingInvalidations() throws InterruptedException {
+        OptimizedAssumption first = (OptimizedAssumption) Truffle.getRuntime().createAssumption();
+        OptimizedAssumption second = (OptimizedAssumption) Truffle.getRuntime().createAssumption();
+        OptimizedCallTarget callTarget = compileDependingOn(first, second);
+
+        int threadCount = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger stillValid = new AtomicInteger();
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            boolean batch = i % 2 == 0;
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                if (batch) {
+                    OptimizedAssumption.invalidate(Arrays.asList(second, first));
+                } else {
+                    first.invalidate();
+                }
+                if (callTarget.isValid()) {
+                    stillValid.incrementAndGet();
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(0, stillValid.get());
+        Assert.assertFalse(callTarget.isValid());
+    }
+
+    /**
+     * Dependent code whose invalidation blocks until it is released.
+     */
+    private static final class BlockingInstalledCode extends InstalledCode {
+
+        final CountDownLatch invalidating = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean invalidated;
+
+        BlockingInstalledCode() {
+            super("blocking");
+        }
+
+        @Override
+        public void invalidate() {
+            invalidating.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            invalidated = true;
+        }
+
+        @Override
+        public boolean isValid() {
+            return !invalidated;
+        }
+    }
+
+    /**
+     * An assumption stays valid while its dependent code is being invalidated, and invalidations
+     * that lose the race wait until the winner is done.
+     */
+    @Test
+    public void losingInvalidationsWait() throws InterruptedException {
+        OptimizedAssumption assumption = (OptimizedAssumption) Truffle.getRuntime().createAssumption();
+        BlockingInstalledCode code = new BlockingInstalledCode();
+        assumption.registerInstalledCode(code);
+
+        Thread winner = new Thread(assumption::invalidate);
+        winner.start();
+        code.invalidating.await();
+        Assert.assertTrue(assumption.isValid());
+
+        AtomicInteger stillValid = new AtomicInteger();
+        Thread single = new Thread(() -> {
+            assumption.invalidate();
+            if (code.isValid()) {
+                stillValid.incrementAndGet();
+            }
+        });
+        Thread batch = new Thread(() -> {
+            OptimizedAssumption.invalidate(Arrays.asList(assumption));
+            if (code.isValid()) {
+                stillValid.incrementAndGet();
+            }
+        });
+        single.start();
+        batch.start();
+        single.join(100);
+        batch.join(100);
+        Assert.assertTrue(single.isAlive());
+        Assert.assertTrue(batch.isAlive());
+
+        code.release.countDown();
+        winner.join();
+        single.join();
+        batch.join();
+        Assert.assertEquals(0, stillValid.get());
+        Assert.assertFalse(assumption.isValid());
+    }
+
+    /**
+     * The number of assumptions in a batch is not limited by the stack depth.
+     */
+    @Test
+    public void largeBatchInvalidation() {
+        List<OptimizedAssumption> assumptions = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            assumptions.add((OptimizedAssumption) Truffle.getRuntime().createAssumption());
+        }
+        OptimizedAssumption.invalidate(assumptions);
+        for (OptimizedAssumption assumption : assumptions) {
+            Assert.assertFalse(assumption.isValid());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2013, 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleBackgroundCompilation;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleOSRCompilationThreshold;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.truffle.OptimizedOSRLoopNode;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.FrameSlotTypeException;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.LoopNode;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.RepeatingNode;
+import com.oracle.truffle.api.nodes.RootNode;
+
+public class OptimizedOSRLoopNodeTest {
+
+    private static final int ITERATIONS = TruffleOSRCompilationThreshold.getValue() * 3;
+
+    private static class CountingNode extends Node implements RepeatingNode {
+
+        private final FrameSlot counter;
+        private final FrameSlot rarelyWritten;
+        private final boolean deoptimizeInCompiledCode;
+
+        static int compiledIterations;
+
+        CountingNode(FrameSlot counter, FrameSlot rarelyWritten, boolean deoptimizeInCompiledCode) {
+            this.counter = counter;
+            this.rarelyWritten = rarelyWritten;
+            this.deoptimizeInCompiledCode = deoptimizeInCompiledCode;
+        }
+
+        @Override
+        public boolean executeRepeating(VirtualFrame frame) {
+            try {
+                int i = frame.getInt(counter);
+                if (i >= ITERATIONS) {
+                    return false;
+                }
+                if (i < 0) {
+                    frame.setInt(rarelyWritten, i);
+                }
+                frame.setInt(counter, i + 1);
+                if (CompilerDirectives.inCompiledCode()) {
+                    compiledIterations++;
+                    if (deoptimizeInCompiledCode) {
+                        CompilerDirectives.transferToInterpreter();
+                    }
+                }
+                return true;
+            } catch (FrameSlotTypeException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class LoopRootNode extends RootNode {
+
+        private final FrameSlot counter;
+        private final FrameSlot rarelyWritten;
+        @Child private LoopNode loop;
+
+        LoopRootNode(FrameDescriptor descriptor, boolean virtualizing, boolean deoptimizeInCompiledCode) {
+            super(MockLanguage.class, null, descriptor);
+            this.counter = descriptor.findFrameSlot("counter");
+            this.rarelyWritten = descriptor.findFrameSlot("rarelyWritten");
+            CountingNode body = new CountingNode(counter, rarelyWritten, deoptimizeInCompiledCode);
+            if (virtualizing) {
+                this.loop = OptimizedOSRLoopNode.createOSRLoop(body, new FrameSlot[]{counter}, new FrameSlot[]{counter, rarelyWritten});
+            } else {
+                this.loop = OptimizedOSRLoopNode.create(body);
+            }
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            frame.setInt(counter, 0);
+            frame.setInt(rarelyWritten, 42);
+            loop.executeLoop(frame);
+            try {
+                return frame.getInt(counter) * 100 + frame.getInt(rarelyWritten);
+            } catch (FrameSlotTypeException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static Object runLoop(boolean virtualizing, boolean deoptimizeInCompiledCode) {
+        FrameDescriptor descriptor = new FrameDescriptor();
+        descriptor.addFrameSlot("counter", FrameSlotKind.Int);
+        descriptor.addFrameSlot("rarelyWritten", FrameSlotKind.Int);
+        CountingNode.compiledIterations = 0;
+        try (OverrideScope s = OptionValue.override(TruffleBackgroundCompilation, false)) {
+            return Truffle.getRuntime().createCallTarget(new LoopRootNode(descriptor, virtualizing, deoptimizeInCompiledCode)).call();
+        }
+    }
+
+    /**
+     * A slot that is written in the loop body but not on every iteration must keep its value when
+     * the frame of the OSR compilation is copied back.
+     */
+    @Test
+    public void testVirtualizingKeepsUnwrittenSlots() {
+        Assert.assertEquals(ITERATIONS * 100 + 42, runLoop(true, false));
+        Assert.assertTrue("loop must have run in OSR code", CountingNode.compiledIterations > 0);
+    }
+
+    @Test
+    public void testNonVirtualizing() {
+        Assert.assertEquals(ITERATIONS * 100 + 42, runLoop(false, false));
+        Assert.assertTrue("loop must have run in OSR code", CountingNode.compiledIterations > 0);
+    }
+
+    /**
+     * OSR code that deoptimizes on every iteration must be invalidated and eventually given up
+     * instead of being entered again on every iteration.
+     */
+    @Test
+    public void testDeoptimizingLoopGivesUp() {
+        Assert.assertEquals(ITERATIONS * 100 + 42, runLoop(false, true));
+        int interpreterIterations = ITERATIONS - CountingNode.compiledIterations;
+        Assert.assertTrue("OSR code entered " + CountingNode.compiledIterations + " times", CountingNode.compiledIterations < interpreterIterations / 100);
+    }
+}
@@ -39,6 +39,7 @@ import com.oracle.graal.phases.tiers.PhaseContext;
 import com.oracle.graal.truffle.DefaultTruffleCompiler;
 import com.oracle.graal.truffle.GraalTruffleRuntime;
 import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.PartialEvaluator;
 import com.oracle.graal.truffle.TruffleCompiler;
 import com.oracle.graal.truffle.TruffleDebugJavaMethod;
 import com.oracle.truffle.api.Truffle;
@@ -54,6 +55,10 @@ public class PartialEvaluationTest extends GraalCompilerTest {
         DebugEnvironment.initialize(System.out);
     }
 
+    protected PartialEvaluator getPartialEvaluator() {
+        return truffleCompiler.getPartialEvaluator();
+    }
+
     protected OptimizedCallTarget assertPartialEvalEquals(String methodName, RootNode root) {
         return assertPartialEvalEquals(methodName, root, new Object[0]);
     }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2013, 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleRecordedCompilationThreshold;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.truffle.GraalTruffleRuntime;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.RecordedCompilationProfiles;
+import com.oracle.graal.truffle.test.nodes.ConstantTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+
+public class RecordedCompilationProfilesTest {
+
+    private static final Source SOURCE = Source.fromText("function a() {}\nfunction b() {}\n", "recorded.test");
+
+    private final GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("recorded", ".profiles");
+        Files.delete(file);
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static OptimizedCallTarget createCallTarget(String name, SourceSection section) {
+        return (OptimizedCallTarget) Truffle.getRuntime().createCallTarget(new RootTestNode(new FrameDescriptor(), name, section, new ConstantTestNode(42)));
+    }
+
+    /**
+     * Records {@code target} as compiled with an {@link Integer} argument profile and writes the
+     * recording to {@link #file}.
+     */
+    private void record(OptimizedCallTarget target) {
+        for (int i = 0; i < 10; i++) {
+            target.callDirect(i);
+        }
+        RecordedCompilationProfiles profiles = new RecordedCompilationProfiles(runtime, file);
+        profiles.notifyCompilationSuccess(target, null, null);
+        profiles.notifyShutdown(runtime);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        OptimizedCallTarget recordedTarget = createCallTarget("a", SOURCE.createSection("a", 0, 15));
+        record(recordedTarget);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(1, lines.size());
+        Assert.assertTrue(lines.get(0), lines.get(0).startsWith(RecordedCompilationProfiles.keyOf(recordedTarget) + "\t"));
+
+        RecordedCompilationProfiles profiles = new RecordedCompilationProfiles(runtime, file);
+        OptimizedCallTarget target = createCallTarget("a", SOURCE.createSection("a", 0, 15));
+        int threshold = target.getCompilationProfile().getCompilationCallThreshold();
+        profiles.callTargetInitialized(target);
+        Assert.assertEquals(Math.min(threshold, TruffleRecordedCompilationThreshold.getValue()), target.getCompilationProfile().getCompilationCallThreshold());
+        Assert.assertArrayEquals(new Class<?>[]{Integer.class}, target.getProfiledArgumentTypes());
+    }
+
+    /**
+     * Root nodes are identified by their source section, not by their name, which need not be
+     * unique.
+     */
+    @Test
+    public void testKeyedBySource() {
+        record(createCallTarget("f", SOURCE.createSection("a", 0, 15)));
+
+        RecordedCompilationProfiles profiles = new RecordedCompilationProfiles(runtime, file);
+        OptimizedCallTarget sameName = createCallTarget("f", SOURCE.createSection("b", 16, 15));
+        int threshold = sameName.getCompilationProfile().getCompilationCallThreshold();
+        profiles.callTargetInitialized(sameName);
+        Assert.assertEquals(threshold, sameName.getCompilationProfile().getCompilationCallThreshold());
+        Assert.assertNull(sameName.getProfiledArgumentTypes());
+    }
+
+    @Test
+    public void testWithoutSourceNotRecorded() throws IOException {
+        OptimizedCallTarget target = createCallTarget("noSource", null);
+        Assert.assertNull(RecordedCompilationProfiles.keyOf(target));
+        record(target);
+        Assert.assertEquals(0, Files.readAllLines(file, StandardCharsets.UTF_8).size());
+    }
+}
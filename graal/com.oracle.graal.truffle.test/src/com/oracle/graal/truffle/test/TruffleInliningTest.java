@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.truffle.DefaultInliningPolicy;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.TruffleInlining;
+import com.oracle.graal.truffle.TruffleInliningDecision;
+import com.oracle.graal.truffle.test.nodes.AbstractTestNode;
+import com.oracle.graal.truffle.test.nodes.CallTestNode;
+import com.oracle.graal.truffle.test.nodes.ConstantTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+
+public class TruffleInliningTest {
+
+    /**
+     * Graph nodes per AST node that no call site can be inlined with under the default
+     * TruffleInliningMaxPredictedGraphSize.
+     */
+    private static final int LARGE_EXPANSION = 1000000;
+
+    private static OptimizedCallTarget createCallTarget(String name, AbstractTestNode node) {
+        return (OptimizedCallTarget) Truffle.getRuntime().createCallTarget(new RootTestNode(new FrameDescriptor(), name, node));
+    }
+
+    private static TruffleInliningDecision decide(OptimizedCallTarget caller) {
+        TruffleInlining inlining = new TruffleInlining(caller, new DefaultInliningPolicy());
+        Assert.assertEquals(1, inlining.getCallSites().size());
+        return inlining.getCallSites().get(0);
+    }
+
+    private static void reportExpansion(OptimizedCallTarget target, int graphSizePerASTNode) {
+        int nodeCount = target.getNonTrivialNodeCount();
+        target.getCompilationProfile().reportPartialEvaluationSize(nodeCount, nodeCount * graphSizePerASTNode);
+    }
+
+    @Test
+    public void testInlinedWithoutPrediction() {
+        OptimizedCallTarget callee = createCallTarget("callee", new ConstantTestNode(42));
+        OptimizedCallTarget caller = createCallTarget("caller", new CallTestNode(callee));
+        Assert.assertEquals(42, caller.call());
+
+        TruffleInliningDecision decision = decide(caller);
+        Assert.assertEquals(0, decision.getProfile().getPredictedGraphSize());
+        Assert.assertTrue(decision.isInline());
+    }
+
+    @Test
+    public void testInlinedWithSmallPrediction() {
+        OptimizedCallTarget callee = createCallTarget("callee", new ConstantTestNode(42));
+        OptimizedCallTarget caller = createCallTarget("caller", new CallTestNode(callee));
+        Assert.assertEquals(42, caller.call());
+        reportExpansion(caller, 10);
+        reportExpansion(callee, 10);
+
+        TruffleInliningDecision decision = decide(caller);
+        Assert.assertEquals(callee.getNonTrivialNodeCount() * 10, decision.getProfile().getPredictedGraphSize());
+        Assert.assertTrue(decision.isInline());
+    }
+
+    @Test
+    public void testCalleeExpansionRejected() {
+        OptimizedCallTarget callee = createCallTarget("callee", new ConstantTestNode(42));
+        OptimizedCallTarget caller = createCallTarget("caller", new CallTestNode(callee));
+        Assert.assertEquals(42, caller.call());
+        reportExpansion(caller, 1);
+        reportExpansion(callee, LARGE_EXPANSION);
+
+        TruffleInliningDecision decision = decide(caller);
+        Assert.assertEquals(callee.getNonTrivialNodeCount() * LARGE_EXPANSION, decision.getProfile().getPredictedGraphSize());
+        Assert.assertFalse(decision.isInline());
+        Assert.assertTrue(decision.getProfile().getFailedReason(), decision.getProfile().getFailedReason().startsWith("predictedGraphSize"));
+    }
+
+    /**
+     * A callee that was never compiled is predicted with the expansion of the compilation root.
+     */
+    @Test
+    public void testRootExpansionRejected() {
+        OptimizedCallTarget callee = createCallTarget("callee", new ConstantTestNode(42));
+        OptimizedCallTarget caller = createCallTarget("caller", new CallTestNode(callee));
+        Assert.assertEquals(42, caller.call());
+        reportExpansion(caller, LARGE_EXPANSION);
+
+        TruffleInliningDecision decision = decide(caller);
+        Assert.assertEquals(callee.getNonTrivialNodeCount() * LARGE_EXPANSION, decision.getProfile().getPredictedGraphSize());
+        Assert.assertFalse(decision.isInline());
+        Assert.assertTrue(decision.getProfile().getFailedReason(), decision.getProfile().getFailedReason().startsWith("predictedGraphSize"));
+    }
+}
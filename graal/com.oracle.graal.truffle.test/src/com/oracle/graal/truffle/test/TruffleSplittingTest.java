@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleSplittingGrowthLimit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.truffle.GraalTruffleRuntime;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.OptimizedDirectCallNode;
+import com.oracle.graal.truffle.test.nodes.AbstractTestNode;
+import com.oracle.graal.truffle.test.nodes.AddTestNode;
+import com.oracle.graal.truffle.test.nodes.CallTestNode;
+import com.oracle.graal.truffle.test.nodes.ConstantTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.NodeCost;
+import com.oracle.truffle.api.nodes.NodeInfo;
+
+public class TruffleSplittingTest {
+
+    /**
+     * Growth limit that keeps the split budget from refusing any split in these tests, regardless
+     * of the call targets created by other tests.
+     */
+    private static final double UNLIMITED_GROWTH = 1000.0;
+
+    private static class SplittableRootTestNode extends RootTestNode {
+
+        SplittableRootTestNode(String name, AbstractTestNode node) {
+            super(new FrameDescriptor(), name, node);
+        }
+
+        @Override
+        public boolean isCloningAllowed() {
+            return true;
+        }
+    }
+
+    /**
+     * Replaces itself with a {@linkplain NodeCost#POLYMORPHIC polymorphic} node on its
+     * {@code specializeAt}th execution.
+     */
+    private static class SpecializingTestNode extends AbstractTestNode {
+
+        private final int specializeAt;
+        private int executions;
+
+        SpecializingTestNode(int specializeAt) {
+            this.specializeAt = specializeAt;
+        }
+
+        @Override
+        public int execute(VirtualFrame frame) {
+            if (++executions == specializeAt) {
+                return replace(new PolymorphicTestNode()).execute(frame);
+            }
+            return 0;
+        }
+    }
+
+    @NodeInfo(cost = NodeCost.POLYMORPHIC)
+    private static class PolymorphicTestNode extends AbstractTestNode {
+
+        @Override
+        public int execute(VirtualFrame frame) {
+            return 0;
+        }
+    }
+
+    private static OptimizedCallTarget createCallTarget(RootTestNode root) {
+        return (OptimizedCallTarget) Truffle.getRuntime().createCallTarget(root);
+    }
+
+    private static OptimizedCallTarget createCaller(OptimizedCallTarget callee) {
+        return createCallTarget(new RootTestNode(new FrameDescriptor(), "caller", new CallTestNode(callee)));
+    }
+
+    private static OptimizedDirectCallNode getCallNode(OptimizedCallTarget caller) {
+        return caller.getCallNodes().get(0);
+    }
+
+    @Test
+    public void testSplitWithinBudget() {
+        try (OverrideScope s = OptionValue.override(TruffleSplittingGrowthLimit, UNLIMITED_GROWTH)) {
+            OptimizedCallTarget callee = createCallTarget(new SplittableRootTestNode("callee", new ConstantTestNode(42)));
+            OptimizedCallTarget caller = createCaller(callee);
+            caller.call();
+            Assert.assertNull(getCallNode(caller).getClonedCallTarget());
+            caller.call();
+            Assert.assertNotNull(getCallNode(caller).getClonedCallTarget());
+        }
+    }
+
+    @Test
+    public void testSplitRefusedOverBudget() {
+        try (OverrideScope s = OptionValue.override(TruffleSplittingGrowthLimit, 0.0)) {
+            OptimizedCallTarget callee = createCallTarget(new SplittableRootTestNode("callee", new ConstantTestNode(42)));
+            OptimizedCallTarget caller = createCaller(callee);
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(42, caller.call());
+            }
+            Assert.assertNull(getCallNode(caller).getClonedCallTarget());
+        }
+    }
+
+    /**
+     * Splits requested through the call node are done and counted even if they exceed the budget.
+     */
+    @Test
+    public void testRequestedSplitOverBudget() {
+        try (OverrideScope s = OptionValue.override(TruffleSplittingGrowthLimit, 0.0)) {
+            GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+            OptimizedCallTarget callee = createCallTarget(new SplittableRootTestNode("callee", new ConstantTestNode(42)));
+            OptimizedCallTarget caller = createCaller(callee);
+            caller.call();
+            long splitNodeCount = runtime.getSplitNodeCount();
+            Assert.assertTrue(getCallNode(caller).cloneCallTarget());
+            Assert.assertNotNull(getCallNode(caller).getClonedCallTarget());
+            Assert.assertEquals(splitNodeCount + callee.getNonTrivialNodeCount(), runtime.getSplitNodeCount());
+        }
+    }
+
+    /**
+     * A call site that was not split on its second call is split once the callee becomes
+     * polymorphic.
+     */
+    @Test
+    public void testSplitWhenCalleeBecomesPolymorphic() {
+        try (OverrideScope s = OptionValue.override(TruffleSplittingGrowthLimit, UNLIMITED_GROWTH)) {
+            OptimizedCallTarget leaf = createCallTarget(new RootTestNode(new FrameDescriptor(), "leaf", new ConstantTestNode(1)));
+            // two call sites in the callee keep it from being split as a small leaf function
+            AbstractTestNode body = new AddTestNode(new CallTestNode(leaf), new AddTestNode(new CallTestNode(leaf), new SpecializingTestNode(3)));
+            OptimizedCallTarget callee = createCallTarget(new SplittableRootTestNode("callee", body));
+            OptimizedCallTarget caller = createCaller(callee);
+            OptimizedDirectCallNode callNode = getCallNode(caller);
+
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(2, caller.call());
+                Assert.assertNull(callNode.getClonedCallTarget());
+            }
+            Assert.assertEquals(1, callee.getPolymorphicSpecializeCount());
+
+            caller.call();
+            Assert.assertNotNull(callNode.getClonedCallTarget());
+        }
+    }
+}
@@ -27,6 +27,7 @@ import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.SourceSection;
 
 @NodeInfo
 public class RootTestNode extends RootNode {
@@ -35,7 +36,11 @@ public class RootTestNode extends RootNode {
     @Child AbstractTestNode node;
 
     public RootTestNode(FrameDescriptor descriptor, String name, AbstractTestNode node) {
-        super(MockLanguage.class, null, descriptor);
+        this(descriptor, name, null, node);
+    }
+
+    public RootTestNode(FrameDescriptor descriptor, String name, SourceSection sourceSection, AbstractTestNode node) {
+        super(MockLanguage.class, sourceSection, descriptor);
         this.name = name;
         this.node = node;
     }
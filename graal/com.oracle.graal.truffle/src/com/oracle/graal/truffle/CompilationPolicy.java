@@ -28,5 +28,14 @@ public interface CompilationPolicy {
 
     boolean shouldCompile(CompilationProfile profile, CompilerOptions options);
 
+    /**
+     * Determines whether a call target that is not yet hot enough for the fully optimized
+     * compilation should be compiled in the first tier.
+     */
+    @SuppressWarnings("unused")
+    default boolean shouldCompileFirstTier(CompilationProfile profile, CompilerOptions options) {
+        return false;
+    }
+
     void recordCompilationFailure(Throwable t);
 }
@@ -23,6 +23,7 @@
 package com.oracle.graal.truffle;
 
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleFirstTierCompilationThreshold;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleInvalidationReprofileCount;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMinInvokeThreshold;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleReplaceReprofileCount;
@@ -44,14 +45,33 @@ public class CompilationProfile {
     private int interpreterCallAndLoopCount;
     private int compilationCallThreshold;
     private int compilationCallAndLoopThreshold;
+    private int firstTierCompilationCallAndLoopThreshold;
+
+    /**
+     * Number of calls executed by first tier code, which keeps profiling until the call target is
+     * hot enough for the fully optimized compilation.
+     */
+    private int firstTierCallCount;
+
+    /**
+     * Whether the first tier code already requested the fully optimized compilation.
+     */
+    private boolean secondTierRequested;
 
     private int osrThreshold;
 
     private long timestamp;
 
+    /**
+     * Average number of graph nodes produced by partial evaluation per compiled AST node, or 0 if
+     * this call target has not been compiled yet.
+     */
+    private double graphSizePerASTNode;
+
     public CompilationProfile() {
         compilationCallThreshold = TruffleMinInvokeThreshold.getValue();
         compilationCallAndLoopThreshold = TruffleCompilationThreshold.getValue();
+        firstTierCompilationCallAndLoopThreshold = Math.min(TruffleFirstTierCompilationThreshold.getValue(), compilationCallAndLoopThreshold);
         osrThreshold = RESET_OSR_VALUE;
     }
 
@@ -69,6 +89,7 @@ public class CompilationProfile {
         properties.put("Calls/Thres", callsThreshold);
         properties.put("CallsAndLoop/Thres", loopsThreshold);
         properties.put("Inval#", invalidations);
+        properties.put("PE/AST", String.format("%6.1f", graphSizePerASTNode));
         return properties;
     }
 
@@ -96,11 +117,20 @@ public class CompilationProfile {
         return compilationCallThreshold;
     }
 
+    public int getFirstTierCompilationCallAndLoopThreshold() {
+        return firstTierCompilationCallAndLoopThreshold;
+    }
+
+    public int getFirstTierCallCount() {
+        return firstTierCallCount;
+    }
+
     void ensureProfiling(int calls, int callsAndLoop) {
         int increaseCallAndLoopThreshold = callsAndLoop - (this.compilationCallAndLoopThreshold - this.interpreterCallAndLoopCount);
         if (increaseCallAndLoopThreshold > 0) {
             this.compilationCallAndLoopThreshold += increaseCallAndLoopThreshold;
         }
+        this.firstTierCompilationCallAndLoopThreshold = Math.max(this.firstTierCompilationCallAndLoopThreshold, this.interpreterCallAndLoopCount + callsAndLoop);
 
         int increaseCallsThreshold = calls - (this.compilationCallThreshold - this.interpreterCallCount);
         if (increaseCallsThreshold > 0) {
@@ -108,8 +138,28 @@ public class CompilationProfile {
         }
     }
 
+    /**
+     * Lowers the thresholds of this profile such that the call target is compiled after
+     * {@code callsAndLoop} more calls and loop iterations in the interpreter.
+     */
+    void lowerCompilationThreshold(int callsAndLoop) {
+        this.compilationCallThreshold = Math.min(this.compilationCallThreshold, this.interpreterCallCount + callsAndLoop);
+        this.compilationCallAndLoopThreshold = Math.min(this.compilationCallAndLoopThreshold, this.interpreterCallAndLoopCount + callsAndLoop);
+        this.firstTierCompilationCallAndLoopThreshold = Math.min(this.firstTierCompilationCallAndLoopThreshold, this.compilationCallAndLoopThreshold);
+    }
+
+    /**
+     * Requires the full compilation threshold to be reached again, for compiled code that was
+     * invalidated because it was cold.
+     */
+    void reportEvicted() {
+        ensureProfiling(TruffleMinInvokeThreshold.getValue(), TruffleCompilationThreshold.getValue());
+    }
+
     public void reportInvalidated() {
         invalidationCount++;
+        firstTierCallCount = 0;
+        secondTierRequested = false;
         int reprofile = TruffleInvalidationReprofileCount.getValue();
         ensureProfiling(reprofile, reprofile);
     }
@@ -133,6 +183,31 @@ public class CompilationProfile {
         }
     }
 
+    /**
+     * Notes that new first tier code is compiled, which requests the fully optimized compilation
+     * on its own once the call target is hot enough.
+     */
+    void reportFirstTierCompilation() {
+        secondTierRequested = false;
+    }
+
+    /**
+     * Counts a call executed by first tier code. The count is not exact since first tier code may
+     * run in several threads, and the threshold may have been raised in the meantime, so the
+     * threshold is only required to be reached, not hit exactly.
+     *
+     * @return {@code true} once per first tier code, when the call target becomes hot enough for
+     *         the fully optimized compilation
+     */
+    boolean reportFirstTierCall() {
+        firstTierCallCount++;
+        if (!secondTierRequested && interpreterCallAndLoopCount + firstTierCallCount >= compilationCallAndLoopThreshold) {
+            secondTierRequested = true;
+            return true;
+        }
+        return false;
+    }
+
     public void reportDirectCall() {
 
     }
@@ -166,6 +241,23 @@ public class CompilationProfile {
         ensureProfiling(1, replaceBackoff);
     }
 
+    public double getGraphSizePerASTNode() {
+        return graphSizePerASTNode;
+    }
+
+    /**
+     * Records the size of the graph that partial evaluation produced for {@code astNodeCount}
+     * compiled AST nodes, including the nodes of inlined call targets.
+     */
+    public void reportPartialEvaluationSize(int astNodeCount, int graphNodeCount) {
+        double expansion = (double) graphNodeCount / Math.max(1, astNodeCount);
+        if (graphSizePerASTNode == 0) {
+            graphSizePerASTNode = expansion;
+        } else {
+            graphSizePerASTNode = (graphSizePerASTNode + expansion) / 2;
+        }
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
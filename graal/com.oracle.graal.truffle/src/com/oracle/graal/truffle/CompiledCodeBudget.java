@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompiledCodeBudget;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.truffle.debug.AbstractDebugCompilationListener;
+
+/**
+ * Limits the size of the installed code of all compiled call targets to
+ * {@link TruffleCompilerOptions#TruffleCompiledCodeBudget}. When a compilation exceeds the budget,
+ * compiled call targets are evicted in least recently compiled order, except that targets whose
+ * compiled code was entered since the last eviction get a second chance and are moved to the end.
+ * Evicted call targets continue in the interpreter and are compiled again if they become hot
+ * again. OSR compilations of loops are not counted. Call targets are referenced weakly so that
+ * unused call targets can still be collected together with their code.
+ */
+public class CompiledCodeBudget extends AbstractDebugCompilationListener {
+
+    private final long budget;
+
+    /**
+     * Code size of the compiled call targets, in least recently compiled or used order.
+     */
+    private final LinkedHashMap<TargetReference, Integer> compiledTargets = new LinkedHashMap<>();
+    private long codeSize;
+
+    protected CompiledCodeBudget(long budget) {
+        this.budget = budget;
+    }
+
+    static void install(GraalTruffleRuntime runtime) {
+        int budget = TruffleCompiledCodeBudget.getValue();
+        if (budget > 0) {
+            runtime.addCompilationListener(new CompiledCodeBudget(budget));
+        }
+    }
+
+    @Override
+    public void notifyCompilationSuccess(OptimizedCallTarget target, StructuredGraph graph, CompilationResult result) {
+        if (!isBudgeted(target)) {
+            return;
+        }
+        List<OptimizedCallTarget> evicted;
+        synchronized (this) {
+            remove(target);
+            compiledTargets.put(new TargetReference(target), result.getTargetCodeSize());
+            codeSize += result.getTargetCodeSize();
+            evicted = selectEvicted(target);
+        }
+        for (OptimizedCallTarget evictedTarget : evicted) {
+            evict(evictedTarget);
+        }
+    }
+
+    /**
+     * Returns whether the code size of {@code target} counts against the budget. OSR loops
+     * recompile an invalidated target right away instead of profiling the loop again, so evicting
+     * their code would only make them compile it again.
+     */
+    protected boolean isBudgeted(OptimizedCallTarget target) {
+        return !OptimizedOSRLoopNode.isOSRCallTarget(target);
+    }
+
+    /**
+     * Returns whether the compiled code of {@code target} was entered since the last call of this
+     * method.
+     */
+    protected boolean clearCalledSinceSweep(OptimizedCallTarget target) {
+        return target.clearCalledSinceSweep();
+    }
+
+    protected void evict(OptimizedCallTarget target) {
+        target.evict("compiled code budget exceeded");
+    }
+
+    @Override
+    public synchronized void notifyCompilationInvalidated(OptimizedCallTarget target, Object source, CharSequence reason) {
+        remove(target);
+    }
+
+    private void remove(OptimizedCallTarget target) {
+        Integer size = compiledTargets.remove(new TargetReference(target));
+        if (size != null) {
+            codeSize -= size;
+        }
+    }
+
+    private List<OptimizedCallTarget> selectEvicted(OptimizedCallTarget compiled) {
+        List<OptimizedCallTarget> evicted = new ArrayList<>();
+        List<TargetReference> used = evictUntilWithinBudget(compiled, evicted, true);
+        /*
+         * Targets that were used get their second chance by being moved behind all others, so that
+         * they are the last candidates if the budget is still exceeded.
+         */
+        for (TargetReference reference : used) {
+            Integer size = compiledTargets.remove(reference);
+            if (size != null) {
+                compiledTargets.put(reference, size);
+            }
+        }
+        evictUntilWithinBudget(compiled, evicted, false);
+        return evicted;
+    }
+
+    /**
+     * Evicts compiled call targets other than {@code compiled} in order until the budget is met.
+     *
+     * @param spareUsed if true, targets whose compiled code was entered since the last sweep are
+     *            not evicted but returned
+     */
+    private List<TargetReference> evictUntilWithinBudget(OptimizedCallTarget compiled, List<OptimizedCallTarget> evicted, boolean spareUsed) {
+        List<TargetReference> used = new ArrayList<>();
+        Iterator<Map.Entry<TargetReference, Integer>> iterator = compiledTargets.entrySet().iterator();
+        while (iterator.hasNext() && codeSize > budget) {
+            Map.Entry<TargetReference, Integer> entry = iterator.next();
+            OptimizedCallTarget target = entry.getKey().get();
+            if (target == compiled) {
+                continue;
+            }
+            if (target == null) {
+                // the code of a collected call target is freed by the VM
+                iterator.remove();
+                codeSize -= entry.getValue();
+            } else if (spareUsed && clearCalledSinceSweep(target)) {
+                used.add(entry.getKey());
+            } else {
+                iterator.remove();
+                codeSize -= entry.getValue();
+                evicted.add(target);
+            }
+        }
+        return used;
+    }
+
+    private static final class TargetReference extends WeakReference<OptimizedCallTarget> {
+
+        private final int hashCode;
+
+        TargetReference(OptimizedCallTarget target) {
+            super(target);
+            this.hashCode = System.identityHashCode(target);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof TargetReference) {
+                OptimizedCallTarget target = get();
+                return target != null && target == ((TargetReference) obj).get();
+            }
+            return false;
+        }
+    }
+}
@@ -22,6 +22,8 @@
  */
 package com.oracle.graal.truffle;
 
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMultiTier;
+
 import com.oracle.truffle.api.CompilerOptions;
 
 public class CounterBasedCompilationPolicy implements CompilationPolicy {
@@ -34,6 +36,12 @@ public class CounterBasedCompilationPolicy implements CompilationPolicy {
                         profile.getInterpreterCallAndLoopCount() >= profile.getCompilationCallAndLoopThreshold();
     }
 
+    @Override
+    public boolean shouldCompileFirstTier(CompilationProfile profile, CompilerOptions options) {
+        return TruffleMultiTier.getValue() && !compilationFailed && profile.getInterpreterCallCount() >= profile.getCompilationCallThreshold() &&
+                        profile.getInterpreterCallAndLoopCount() >= profile.getFirstTierCompilationCallAndLoopThreshold();
+    }
+
     @Override
     public void recordCompilationFailure(Throwable t) {
         compilationFailed = true;
@@ -23,6 +23,7 @@
 package com.oracle.graal.truffle;
 
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleInliningMaxCallerSize;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleInliningMaxPredictedGraphSize;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMaximumRecursiveInlining;
 
 import com.oracle.truffle.api.CompilerOptions;
@@ -32,12 +33,22 @@ public class DefaultInliningPolicy implements TruffleInliningPolicy {
     private static final String REASON_RECURSION = "number of recursions > " + TruffleMaximumRecursiveInlining.getValue();
     private static final String REASON_MAXIMUM_NODE_COUNT = "deepNodeCount * callSites  > " + TruffleInliningMaxCallerSize.getValue();
     private static final String REASON_MAXIMUM_TOTAL_NODE_COUNT = "totalNodeCount > " + TruffleInliningMaxCallerSize.getValue();
+    private static final String REASON_MAXIMUM_PREDICTED_GRAPH_SIZE = "predictedGraphSize > " + TruffleInliningMaxPredictedGraphSize.getValue();
 
     @Override
     public double calculateScore(TruffleInliningProfile profile) {
         return profile.getFrequency() / profile.getDeepNodeCount();
     }
 
+    @Override
+    public boolean isAllowed(TruffleInliningProfile profile, int currentNodeCount, int currentPredictedGraphSize, CompilerOptions options) {
+        if ((long) currentPredictedGraphSize + profile.getPredictedGraphSize() > TruffleInliningMaxPredictedGraphSize.getValue()) {
+            profile.setFailedReason(REASON_MAXIMUM_PREDICTED_GRAPH_SIZE);
+            return false;
+        }
+        return isAllowed(profile, currentNodeCount, options);
+    }
+
     @Override
     public boolean isAllowed(TruffleInliningProfile profile, int currentNodeCount, CompilerOptions options) {
         if (profile.getRecursions() > TruffleMaximumRecursiveInlining.getValue()) {
@@ -32,12 +32,24 @@ public final class DefaultTruffleSplittingStrategy implements TruffleSplittingSt
 
     private final OptimizedDirectCallNode call;
 
+    /**
+     * The {@linkplain OptimizedCallTarget#getPolymorphicSpecializeCount() polymorphic
+     * specializations} of the callee when splitting was last considered.
+     */
+    private int polymorphicSpecializeCount;
+
     public DefaultTruffleSplittingStrategy(OptimizedDirectCallNode call) {
         this.call = call;
     }
 
     public void beforeCall(Object[] arguments) {
-        if (call.getCallCount() == 2) {
+        int calls = call.getCallCount();
+        if (calls == 2 || (calls > 2 && call.getCallTarget().getPolymorphicSpecializeCount() != polymorphicSpecializeCount)) {
+            /*
+             * Reconsider splitting whenever the callee became more polymorphic, since this call
+             * site may have contributed types that a split copy would not see.
+             */
+            polymorphicSpecializeCount = call.getCallTarget().getPolymorphicSpecializeCount();
             if (shouldSplit()) {
                 forceSplitting();
             }
@@ -48,7 +60,12 @@ public final class DefaultTruffleSplittingStrategy implements TruffleSplittingSt
         if (call.isCallTargetCloned()) {
             return;
         }
-        call.installSplitCallTarget(call.getCallTarget().cloneUninitialized());
+        OptimizedCallTarget splitTarget = call.getCallTarget().cloneUninitialized();
+        if (splitTarget == null) {
+            return;
+        }
+        splitTarget.runtime.reportSplit(splitTarget);
+        call.installSplitCallTarget(splitTarget);
     }
 
     private boolean shouldSplit() {
@@ -66,6 +83,9 @@ public final class DefaultTruffleSplittingStrategy implements TruffleSplittingSt
         if (nodeCount > TruffleCompilerOptions.TruffleSplittingMaxCalleeSize.getValue()) {
             return false;
         }
+        if (!splitTarget.runtime.isSplitWithinBudget(nodeCount)) {
+            return false;
+        }
 
         // disable recursive splitting for now
         OptimizedCallTarget root = (OptimizedCallTarget) call.getRootNode().getCallTarget();
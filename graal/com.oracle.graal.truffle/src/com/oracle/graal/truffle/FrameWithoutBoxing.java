@@ -55,6 +55,17 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
     public static final byte BOOLEAN_TAG = 6;
     public static final byte BYTE_TAG = 7;
 
+    /*
+     * Frames without slots share their storage arrays, so that materializing such a frame only
+     * allocates the frame object itself. The arrays are replaced when the frame is resized.
+     *
+     * Frames with slots still reserve an object, a primitive and a tag entry per slot, since the
+     * frame intrinsics and NewFrameNode address all three arrays by slot index.
+     */
+    public static final Object[] EMPTY_OBJECT_ARRAY = {};
+    public static final long[] EMPTY_LONG_ARRAY = {};
+    public static final byte[] EMPTY_BYTE_ARRAY = {};
+
     static {
         assert OBJECT_TAG == FrameSlotKind.Object.tag;
         assert ILLEGAL_TAG == FrameSlotKind.Illegal.tag;
@@ -70,6 +81,12 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
         this.descriptor = descriptor;
         this.arguments = arguments;
         int size = descriptor.getSize();
+        if (size == 0) {
+            this.locals = EMPTY_OBJECT_ARRAY;
+            this.primitiveLocals = EMPTY_LONG_ARRAY;
+            this.tags = EMPTY_BYTE_ARRAY;
+            return;
+        }
         this.locals = new Object[size];
         Object defaultValue = descriptor.getDefaultValue();
         if (defaultValue != null) {
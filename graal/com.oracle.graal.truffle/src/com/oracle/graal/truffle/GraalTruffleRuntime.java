@@ -39,6 +39,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import jdk.vm.ci.code.BailoutException;
@@ -57,6 +58,7 @@ import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.debug.TTY;
 import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.truffle.debug.CompilationMetricsListener;
 import com.oracle.graal.truffle.debug.CompilationStatisticsListener;
 import com.oracle.graal.truffle.debug.PrintCallTargetProfiling;
 import com.oracle.graal.truffle.debug.TraceCompilationCallTreeListener;
@@ -111,6 +113,8 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
 
     private final List<GraalTruffleCompilationListener> compilationListeners = new ArrayList<>();
     private final GraalTruffleCompilationListener compilationNotify = new DispatchTruffleCompilationListener();
+    private RecordedCompilationProfiles recordedProfiles;
+    private CompilationMetricsListener compilationMetrics;
 
     protected TruffleCompiler truffleCompiler;
     protected LoopNodeFactory loopNodeFactory;
@@ -118,6 +122,16 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
 
     private final Supplier<GraalRuntime> graalRuntime;
 
+    /**
+     * Sum of the AST sizes of all initialized call targets that are not split copies.
+     */
+    private final AtomicLong callTargetNodeCount = new AtomicLong();
+
+    /**
+     * Sum of the AST sizes of all split copies of call targets.
+     */
+    private final AtomicLong splitNodeCount = new AtomicLong();
+
     public GraalTruffleRuntime(Supplier<GraalRuntime> graalRuntime) {
         this.graalRuntime = graalRuntime;
     }
@@ -161,6 +175,9 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
         TraceSplittingListener.install(this);
         PrintCallTargetProfiling.install(this);
         CompilationStatisticsListener.install(this);
+        compilationMetrics = CompilationMetricsListener.install(this);
+        recordedProfiles = RecordedCompilationProfiles.install(this);
+        CompiledCodeBudget.install(this);
         installShutdownHooks();
         compilationNotify.notifyStartup(this);
     }
@@ -236,6 +253,45 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
         return new OptimizedAssumption(name);
     }
 
+    void reportCallTargetInitialized(OptimizedCallTarget callTarget) {
+        if (callTarget.getSourceCallTarget() == null) {
+            callTargetNodeCount.addAndGet(callTarget.getNonTrivialNodeCount());
+            if (recordedProfiles != null) {
+                recordedProfiles.callTargetInitialized(callTarget);
+            }
+        }
+    }
+
+    void reportSplit(OptimizedCallTarget splitTarget) {
+        splitNodeCount.addAndGet(splitTarget.getNonTrivialNodeCount());
+    }
+
+    /**
+     * Determines if splitting a call target with {@code nodeCount} AST nodes stays within the
+     * global split budget, which limits the size of all split copies relative to the size of the
+     * program.
+     */
+    boolean isSplitWithinBudget(int nodeCount) {
+        return splitNodeCount.get() + nodeCount <= getSplitBudget();
+    }
+
+    public long getSplitNodeCount() {
+        return splitNodeCount.get();
+    }
+
+    public long getSplitBudget() {
+        return (long) (callTargetNodeCount.get() * TruffleCompilerOptions.TruffleSplittingGrowthLimit.getValue());
+    }
+
+    /**
+     * Gets the recorder of recent compilation events, or null if neither
+     * {@link TruffleCompilerOptions#TruffleCompilationMetrics} nor
+     * {@link TruffleCompilerOptions#TruffleCompilationMetricsFile} is set.
+     */
+    public CompilationMetricsListener getCompilationMetrics() {
+        return compilationMetrics;
+    }
+
     public GraalTruffleCompilationListener getCompilationNotify() {
         return compilationNotify;
     }
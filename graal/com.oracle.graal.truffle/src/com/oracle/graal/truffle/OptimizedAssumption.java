@@ -26,7 +26,15 @@ import static com.oracle.graal.truffle.TruffleCompilerOptions.TraceTruffleAssump
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TraceTruffleStackTraceLimit;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import jdk.vm.ci.code.InstalledCode;
@@ -45,7 +53,25 @@ public final class OptimizedAssumption extends AbstractAssumption {
         Entry next;
     }
 
-    private Entry first;
+    /**
+     * Marks the list of dependent code of an invalidated assumption. Code registered after the
+     * assumption was invalidated is invalidated right away.
+     */
+    private static final Entry INVALIDATED = new Entry();
+
+    private static final AtomicReferenceFieldUpdater<OptimizedAssumption, Entry> FIRST_UPDATER = AtomicReferenceFieldUpdater.newUpdater(OptimizedAssumption.class, Entry.class, "first");
+
+    private static final AtomicLong nextId = new AtomicLong();
+
+    /**
+     * Orders the locks taken by {@link #invalidate(Iterable)} so that concurrent batch
+     * invalidations cannot deadlock.
+     */
+    private final long id = nextId.getAndIncrement();
+
+    private volatile Entry first;
+
+    private final ReentrantLock lock = new ReentrantLock();
 
     public OptimizedAssumption(String name) {
         super(name);
@@ -60,49 +86,123 @@ public final class OptimizedAssumption extends AbstractAssumption {
     }
 
     @Override
-    public synchronized void invalidate() {
+    public void invalidate() {
         if (isValid) {
             invalidateImpl();
         }
     }
 
+    /**
+     * The dependent code is invalidated while holding the lock of the assumption, and the
+     * assumption is only marked as invalid afterwards. A racing invalidation therefore either waits
+     * for the lock or sees the assumption as invalid once all the code that depended on it is
+     * invalid. Registering code does not take the lock.
+     */
     @TruffleBoundary
     private void invalidateImpl() {
-        boolean invalidatedInstalledCode = false;
-        Entry e = first;
-        while (e != null) {
+        lock.lock();
+        try {
+            if (isValid) {
+                Map<InstalledCode, OptimizedAssumption> dependentCode = new IdentityHashMap<>();
+                collectDependentCode(dependentCode);
+                invalidateDependentCode(dependentCode);
+                isValid = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Invalidates several assumptions at once. Code that depends on more than one of the
+     * assumptions is invalidated only once, which avoids a deoptimization for each assumption when
+     * a change affects many assumptions at the same time. The locks of the assumptions are taken in
+     * the order of their creation and held until the dependent code is invalid.
+     */
+    @TruffleBoundary
+    public static void invalidate(Iterable<OptimizedAssumption> assumptions) {
+        Map<OptimizedAssumption, Boolean> unique = new IdentityHashMap<>();
+        for (OptimizedAssumption assumption : assumptions) {
+            if (assumption.isValid) {
+                unique.put(assumption, Boolean.TRUE);
+            }
+        }
+        List<OptimizedAssumption> sorted = new ArrayList<>(unique.keySet());
+        Collections.sort(sorted, (a, b) -> Long.compare(a.id, b.id));
+
+        int locked = 0;
+        try {
+            Map<InstalledCode, OptimizedAssumption> dependentCode = new IdentityHashMap<>();
+            List<OptimizedAssumption> invalidated = new ArrayList<>(sorted.size());
+            for (OptimizedAssumption assumption : sorted) {
+                assumption.lock.lock();
+                locked++;
+                if (assumption.isValid) {
+                    assumption.collectDependentCode(dependentCode);
+                    invalidated.add(assumption);
+                }
+            }
+            invalidateDependentCode(dependentCode);
+            for (OptimizedAssumption assumption : invalidated) {
+                assumption.isValid = false;
+            }
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                sorted.get(i).lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Moves the still valid dependent code of this assumption to {@code dependentCode}. Code
+     * registered from now on is invalidated right away. The caller must hold the lock of this
+     * assumption and mark it as invalid once the dependent code is invalid.
+     */
+    private void collectDependentCode(Map<InstalledCode, OptimizedAssumption> dependentCode) {
+        Entry e = FIRST_UPDATER.getAndSet(this, INVALIDATED);
+        while (e != null && e != INVALIDATED) {
             InstalledCode installedCode = e.installedCode.get();
             if (installedCode != null && installedCode.getVersion() == e.version) {
-                invalidateWithReason(installedCode, "assumption invalidated");
-                invalidatedInstalledCode = true;
-                if (TraceTruffleAssumptions.getValue()) {
-                    logInvalidatedInstalledCode(installedCode);
-                }
+                dependentCode.putIfAbsent(installedCode, this);
             }
             e = e.next;
         }
-        first = null;
-        isValid = false;
+    }
+
+    private static void invalidateDependentCode(Map<InstalledCode, OptimizedAssumption> dependentCode) {
+        for (Map.Entry<InstalledCode, OptimizedAssumption> entry : dependentCode.entrySet()) {
+            InstalledCode installedCode = entry.getKey();
+            OptimizedAssumption assumption = entry.getValue();
+            assumption.invalidateWithReason(installedCode, "assumption invalidated");
+            if (TraceTruffleAssumptions.getValue()) {
+                assumption.logInvalidatedInstalledCode(installedCode);
+            }
+        }
 
         if (TraceTruffleAssumptions.getValue()) {
-            if (invalidatedInstalledCode) {
+            if (!dependentCode.isEmpty()) {
                 logStackTrace();
             }
         }
     }
 
-    public synchronized void registerInstalledCode(InstalledCode installedCode) {
-        if (isValid) {
-            Entry e = new Entry();
-            e.installedCode = new WeakReference<>(installedCode);
-            e.version = installedCode.getVersion();
-            e.next = first;
-            first = e;
-        } else {
-            invalidateWithReason(installedCode, "assumption already invalidated when installing code");
-            if (TraceTruffleAssumptions.getValue()) {
-                logInvalidatedInstalledCode(installedCode);
-                logStackTrace();
+    public void registerInstalledCode(InstalledCode installedCode) {
+        Entry e = new Entry();
+        e.installedCode = new WeakReference<>(installedCode);
+        e.version = installedCode.getVersion();
+        while (true) {
+            Entry head = first;
+            if (head == INVALIDATED) {
+                invalidateWithReason(installedCode, "assumption already invalidated when installing code");
+                if (TraceTruffleAssumptions.getValue()) {
+                    logInvalidatedInstalledCode(installedCode);
+                    logStackTrace();
+                }
+                return;
+            }
+            e.next = head;
+            if (FIRST_UPDATER.compareAndSet(this, head, e)) {
+                return;
             }
         }
     }
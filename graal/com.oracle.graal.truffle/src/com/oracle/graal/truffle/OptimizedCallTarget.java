@@ -28,6 +28,7 @@ import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCallTargetP
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationExceptionsAreFatal;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationExceptionsArePrinted;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationExceptionsAreThrown;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompiledCodeBudget;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleReturnTypeSpeculation;
 
 import java.io.PrintWriter;
@@ -49,6 +50,7 @@ import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.CompilerOptions;
 import com.oracle.truffle.api.LoopCountReceiver;
 import com.oracle.truffle.api.OptimizationFailedException;
@@ -61,6 +63,7 @@ import com.oracle.truffle.api.impl.Accessor;
 import com.oracle.truffle.api.impl.DefaultCompilerOptions;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeCost;
 import com.oracle.truffle.api.nodes.NodeUtil;
 import com.oracle.truffle.api.nodes.NodeVisitor;
 import com.oracle.truffle.api.nodes.RootNode;
@@ -99,6 +102,24 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
     private int cloneIndex;
     private boolean initialized;
 
+    /**
+     * Number of node replacements in this call target that produced polymorphic or megamorphic
+     * nodes. Call sites of this call target use it to reconsider splitting.
+     */
+    private int polymorphicSpecializeCount;
+
+    /**
+     * Whether the current or most recent compilation of this call target is a first tier
+     * compilation, i.e. one without inlining that keeps profiling calls in the compiled code.
+     */
+    @CompilationFinal private boolean firstTierCompilation;
+
+    /**
+     * Set when the compiled code of this call target is entered, and cleared by
+     * {@link CompiledCodeBudget} to detect cold compiled code.
+     */
+    private boolean calledSinceSweep;
+
     /**
      * When this call target is inlined, the inlining {@link InstalledCode} registers this
      * assumption. It gets invalidated when a node rewriting is performed. This ensures that all
@@ -171,6 +192,7 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
                 initialized = true;
                 ensureCloned();
                 ACCESSOR.initializeCallTarget(this);
+                runtime.reportCallTargetInitialized(this);
             }
         }
     }
@@ -273,6 +295,41 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
         profiledArgumentTypesAssumption = Truffle.getRuntime().createAssumption("Profiled Argument Types");
     }
 
+    /**
+     * Returns the profiled argument types, or {@code null} if argument types are not profiled or
+     * the profile is no longer valid.
+     */
+    public Class<?>[] getProfiledArgumentTypes() {
+        Assumption typesAssumption = profiledArgumentTypesAssumption;
+        return typesAssumption != null && typesAssumption.isValid() ? profiledArgumentTypes : null;
+    }
+
+    /**
+     * Returns the profiled return type, or {@code null} if the return type is not profiled or the
+     * profile is no longer valid.
+     */
+    public Class<?> getProfiledReturnType() {
+        Assumption returnTypeAssumption = profiledReturnTypeAssumption;
+        return returnTypeAssumption != null && returnTypeAssumption.isValid() ? profiledReturnType : null;
+    }
+
+    /**
+     * Initializes the argument and return type profiles with types recorded in a previous run.
+     * Like for profiles collected in this run, the speculation is invalidated as soon as a value of
+     * a different type is observed.
+     */
+    void initializeRecordedProfile(Class<?>[] argumentTypes, Class<?> returnType) {
+        CompilerAsserts.neverPartOfCompilation();
+        if (argumentTypes != null && profiledArgumentTypesAssumption == null && TruffleArgumentTypeSpeculation.getValue()) {
+            profiledArgumentTypes = argumentTypes;
+            profiledArgumentTypesAssumption = Truffle.getRuntime().createAssumption("Profiled Argument Types");
+        }
+        if (returnType != null && profiledReturnTypeAssumption == null && TruffleReturnTypeSpeculation.getValue()) {
+            profiledReturnType = returnType;
+            profiledReturnTypeAssumption = Truffle.getRuntime().createAssumption("Profiled Return Type");
+        }
+    }
+
     private static Class<?> classOf(Object arg) {
         return arg != null ? arg.getClass() : null;
     }
@@ -304,6 +361,12 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
     public final Object callRoot(Object[] originalArguments) {
         Object[] args = originalArguments;
         if (CompilerDirectives.inCompiledCode()) {
+            if (firstTierCompilation && compilationProfile.reportFirstTierCall()) {
+                compileSecondTier();
+            }
+            if (TruffleCompiledCodeBudget.getValue() > 0 && !calledSinceSweep) {
+                calledSinceSweep = true;
+            }
             Assumption argumentTypesAssumption = this.profiledArgumentTypesAssumption;
             if (argumentTypesAssumption != null && argumentTypesAssumption.isValid()) {
                 args = unsafeCast(castArrayFixedLength(args, profiledArgumentTypes.length), Object[].class, true, true);
@@ -369,21 +432,60 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
                 initialize();
             }
             compilationProfile.reportInterpreterCall();
-            if (!isCompiling() && compilationPolicy.shouldCompile(compilationProfile, getCompilerOptions())) {
-                compile();
+            if (!isCompiling()) {
+                if (compilationPolicy.shouldCompile(compilationProfile, getCompilerOptions())) {
+                    compile();
+                } else if (compilationPolicy.shouldCompileFirstTier(compilationProfile, getCompilerOptions())) {
+                    compile(true);
+                }
             }
         }
     }
 
+    @TruffleBoundary
+    private void compileSecondTier() {
+        compile();
+    }
+
     public final void compile() {
+        compile(false);
+    }
+
+    private void compile(boolean firstTier) {
         if (!isCompiling()) {
             if (!initialized) {
                 initialize();
             }
+            firstTierCompilation = firstTier;
+            if (firstTier) {
+                compilationProfile.reportFirstTierCompilation();
+            }
             runtime.compile(this, TruffleBackgroundCompilation.getValue() && !TruffleCompilationExceptionsAreThrown.getValue());
         }
     }
 
+    /**
+     * Returns whether the compiled code was entered since the last call of this method.
+     */
+    boolean clearCalledSinceSweep() {
+        boolean called = calledSinceSweep;
+        calledSinceSweep = false;
+        return called;
+    }
+
+    /**
+     * Invalidates the compiled code of this cold call target. It is compiled again once it reaches
+     * the compilation threshold again.
+     */
+    void evict(CharSequence reason) {
+        invalidate(null, reason);
+        compilationProfile.reportEvicted();
+    }
+
+    public final boolean isFirstTierCompilation() {
+        return firstTierCompilation;
+    }
+
     public void notifyCompilationFailed(Throwable t) {
         if (t instanceof BailoutException && !((BailoutException) t).isPermanent()) {
             /*
@@ -467,6 +569,10 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
         return superString;
     }
 
+    public final int getPolymorphicSpecializeCount() {
+        return polymorphicSpecializeCount;
+    }
+
     public CompilationProfile getCompilationProfile() {
         return compilationProfile;
     }
@@ -521,6 +627,10 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
         nodeRewritingAssumption.invalidate();
 
         compilationProfile.reportNodeReplaced();
+        NodeCost cost = newNode.getCost();
+        if (cost == NodeCost.POLYMORPHIC || cost == NodeCost.MEGAMORPHIC) {
+            polymorphicSpecializeCount++;
+        }
         if (cancelInstalledTask(newNode, reason)) {
             compilationProfile.reportInvalidated();
         }
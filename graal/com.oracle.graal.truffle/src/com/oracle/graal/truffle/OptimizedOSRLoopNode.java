@@ -22,11 +22,22 @@
  */
 package com.oracle.graal.truffle;
 
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMaximumOSRRecompilations;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.ReplaceObserver;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotTypeException;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.LoopNode;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.RepeatingNode;
@@ -38,21 +49,42 @@ public final class OptimizedOSRLoopNode extends LoopNode implements ReplaceObser
     private int lastLoopCount;
     private OptimizedCallTarget compiledTarget;
 
+    /**
+     * Whether {@link #compiledTarget} was installed at least once, i.e., whether it may be
+     * recompiled after an invalidation.
+     */
+    private boolean compiledTargetInstalled;
+    private int recompilations;
+
     @Child private RepeatingNode repeatableNode;
 
-    private boolean disabled;
+    /**
+     * The slots copied into the frame of the OSR compilation, i.e., the slots read or written in the
+     * loop body. A written slot is copied in as well since the loop may be left before it is
+     * written, in which case the copy back must not overwrite it.
+     */
+    private final FrameSlot[] transferredFrameSlots;
+    private final FrameSlot[] writtenFrameSlots;
 
-    private OptimizedOSRLoopNode(RepeatingNode repeatableNode) {
+    private OptimizedOSRLoopNode(RepeatingNode repeatableNode, FrameSlot[] transferredFrameSlots, FrameSlot[] writtenFrameSlots) {
         this.repeatableNode = repeatableNode;
+        this.transferredFrameSlots = transferredFrameSlots;
+        this.writtenFrameSlots = writtenFrameSlots;
     }
 
     @Override
     public Node copy() {
         OptimizedOSRLoopNode copy = (OptimizedOSRLoopNode) super.copy();
-        copy.compiledTarget = null;
+        copy.setCompiledTarget(null);
         return copy;
     }
 
+    private void setCompiledTarget(OptimizedCallTarget target) {
+        compiledTarget = target;
+        compiledTargetInstalled = false;
+        recompilations = 0;
+    }
+
     @Override
     public RepeatingNode getRepeatingNode() {
         return repeatableNode;
@@ -83,17 +115,14 @@ public final class OptimizedOSRLoopNode extends LoopNode implements ReplaceObser
     private boolean profilingLoop(VirtualFrame frame) {
         CompilationProfile profile = getProfile(getCallTarget());
         int loopCount = 0;
-        boolean localDisabled = this.disabled;
         try {
             while (repeatableNode.executeRepeating(frame)) {
                 loopCount++;
-                if (!localDisabled) {
-                    try {
-                        profile.reportOSR();
-                    } catch (ArithmeticException e) {
-                        compileLoop(frame);
-                        return false;
-                    }
+                try {
+                    profile.reportOSR();
+                } catch (ArithmeticException e) {
+                    compileLoop(frame);
+                    return false;
                 }
             }
         } finally {
@@ -123,18 +152,32 @@ public final class OptimizedOSRLoopNode extends LoopNode implements ReplaceObser
                 if (target == null) {
                     return false;
                 } else if (target.isValid()) {
+                    compiledTargetInstalled = true;
                     Object result = target.callDirect(new Object[]{frame});
                     iterations = lastLoopCount;
                     if (result == Boolean.TRUE) {
                         // loop is done. No further repetitions necessary.
                         return true;
+                    }
+                    /*
+                     * The OSR code deoptimized and left the loop. Invalidate it so that it is not
+                     * entered again only to deoptimize on every iteration. The target is kept and
+                     * recompiled below until the recompilation budget is used up.
+                     */
+                    target.invalidate(this, "OSR compilation left the loop");
+                } else if (!target.isCompiling()) {
+                    if (compiledTargetInstalled && recompilations < TruffleMaximumOSRRecompilations.getValue()) {
+                        /*
+                         * The OSR code was invalidated, e.g., because a node in the loop was
+                         * rewritten. The loop is known to be hot, so it is recompiled right away
+                         * instead of being profiled again.
+                         */
+                        recompilations++;
+                        target.compile();
                     } else {
-                        invalidate(this, "OSR compilation got invalidated");
+                        invalidate(this, "OSR compilation failed or cancelled");
                         return false;
                     }
-                } else if (!target.isCompiling()) {
-                    invalidate(this, "OSR compilation failed or cancelled");
-                    return false;
                 }
             } while (repeatableNode.executeRepeating(frame));
         } finally {
@@ -152,7 +195,7 @@ public final class OptimizedOSRLoopNode extends LoopNode implements ReplaceObser
                  * issue compiles.
                  */
                 if (compiledTarget == null) {
-                    compiledTarget = compileImpl(frame);
+                    setCompiledTarget(compileImpl(frame));
                 }
             }
         });
@@ -164,11 +207,21 @@ public final class OptimizedOSRLoopNode extends LoopNode implements ReplaceObser
         profile.reportOSRCompiledLoop();
 
         if (parentTarget.isValid() || parentTarget.isCompiling()) {
-            disabled = true;
+            /*
+             * The parent is or will soon be compiled, so the loop does not need OSR for now. The
+             * profile was reset above, so OSR is tried again if the parent gets invalidated and
+             * the loop stays hot.
+             */
             return null;
         } else {
             Node parent = getParent();
-            OptimizedCallTarget osrTarget = (OptimizedCallTarget) Truffle.getRuntime().createCallTarget(new OSRRootNode(this, frame.getClass()));
+            RootNode osrRoot;
+            if (transferredFrameSlots != null) {
+                osrRoot = new VirtualizingOSRRootNode(this, frame.getClass(), transferredFrameSlots, writtenFrameSlots);
+            } else {
+                osrRoot = new OSRRootNode(this, frame.getClass());
+            }
+            OptimizedCallTarget osrTarget = (OptimizedCallTarget) Truffle.getRuntime().createCallTarget(osrRoot);
             // to avoid a deopt on first call we provide some profiling information
             osrTarget.profileReturnType(Boolean.TRUE);
             osrTarget.profileReturnType(Boolean.FALSE);
@@ -188,7 +241,11 @@ public final class OptimizedOSRLoopNode extends LoopNode implements ReplaceObser
     }
 
     public boolean nodeReplaced(Node oldNode, Node newNode, CharSequence reason) {
-        invalidate(newNode, reason);
+        OptimizedCallTarget target = this.compiledTarget;
+        if (target != null) {
+            // keep the target such that it can be recompiled, see compilingLoop
+            target.invalidate(newNode, reason);
+        }
         return false;
     }
 
@@ -196,23 +253,50 @@ public final class OptimizedOSRLoopNode extends LoopNode implements ReplaceObser
         OptimizedCallTarget target = this.compiledTarget;
         if (target != null) {
             target.invalidate(source, reason);
-            compiledTarget = null;
+            setCompiledTarget(null);
         }
     }
 
     public static LoopNode create(RepeatingNode repeat) {
         if (TruffleCompilerOptions.TruffleOSR.getValue()) {
-            return new OptimizedOSRLoopNode(repeat);
+            return new OptimizedOSRLoopNode(repeat, null, null);
+        } else {
+            return new OptimizedLoopNode(repeat);
+        }
+    }
+
+    /**
+     * Creates a loop whose OSR compilation copies the given frame slots into a frame of its own
+     * when the loop is entered and copies the written slots back when it is left. This allows the
+     * OSR compilation to keep the local variables in registers instead of accessing the frame of
+     * the interpreter. Only use this if the frame does not escape from the loop body, e.g., by
+     * being materialized, and if the loop body accesses no other slots than the given ones.
+     *
+     * @param readFrameSlots the slots read in the loop body
+     * @param writtenFrameSlots the slots written in the loop body
+     */
+    public static LoopNode createOSRLoop(RepeatingNode repeat, FrameSlot[] readFrameSlots, FrameSlot[] writtenFrameSlots) {
+        if (TruffleCompilerOptions.TruffleOSR.getValue()) {
+            Set<FrameSlot> transferred = new LinkedHashSet<>(Arrays.asList(readFrameSlots));
+            transferred.addAll(Arrays.asList(writtenFrameSlots));
+            return new OptimizedOSRLoopNode(repeat, transferred.toArray(new FrameSlot[transferred.size()]), writtenFrameSlots.clone());
         } else {
             return new OptimizedLoopNode(repeat);
         }
     }
 
+    /**
+     * Determines if {@code target} is the call target of an OSR compilation of a loop.
+     */
+    static boolean isOSRCallTarget(OptimizedCallTarget target) {
+        return target.getRootNode() instanceof OSRRootNode;
+    }
+
     private static class OSRRootNode extends RootNode {
 
-        private final Class<? extends VirtualFrame> clazz;
+        protected final Class<? extends VirtualFrame> clazz;
 
-        @Child private OptimizedOSRLoopNode loopNode;
+        @Child protected OptimizedOSRLoopNode loopNode;
 
         OSRRootNode(OptimizedOSRLoopNode loop, Class<? extends VirtualFrame> clazz) {
             super(TruffleLanguage.class, loop.getSourceSection(), loop.getRootNode().getFrameDescriptor());
@@ -243,4 +327,59 @@ public final class OptimizedOSRLoopNode extends LoopNode implements ReplaceObser
 
     }
 
+    private static final class VirtualizingOSRRootNode extends OSRRootNode {
+
+        @CompilationFinal(dimensions = 1) private final FrameSlot[] transferredFrameSlots;
+        @CompilationFinal(dimensions = 1) private final FrameSlot[] writtenFrameSlots;
+
+        VirtualizingOSRRootNode(OptimizedOSRLoopNode loop, Class<? extends VirtualFrame> clazz, FrameSlot[] transferredFrameSlots, FrameSlot[] writtenFrameSlots) {
+            super(loop, clazz);
+            this.transferredFrameSlots = transferredFrameSlots;
+            this.writtenFrameSlots = writtenFrameSlots;
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            VirtualFrame parentFrame = clazz.cast(frame.getArguments()[0]);
+            VirtualFrame osrFrame = OptimizedCallTarget.createFrame(parentFrame.getFrameDescriptor(), parentFrame.getArguments());
+            transferSlots(parentFrame, osrFrame, transferredFrameSlots);
+            try {
+                while (loopNode.getRepeatingNode().executeRepeating(osrFrame)) {
+                    if (CompilerDirectives.inInterpreter()) {
+                        return Boolean.FALSE;
+                    }
+                }
+                return Boolean.TRUE;
+            } finally {
+                transferSlots(osrFrame, parentFrame, writtenFrameSlots);
+            }
+        }
+
+        @ExplodeLoop
+        private static void transferSlots(Frame source, Frame target, FrameSlot[] slots) {
+            for (int i = 0; i < slots.length; i++) {
+                FrameSlot slot = slots[i];
+                try {
+                    if (source.isBoolean(slot)) {
+                        target.setBoolean(slot, source.getBoolean(slot));
+                    } else if (source.isByte(slot)) {
+                        target.setByte(slot, source.getByte(slot));
+                    } else if (source.isInt(slot)) {
+                        target.setInt(slot, source.getInt(slot));
+                    } else if (source.isLong(slot)) {
+                        target.setLong(slot, source.getLong(slot));
+                    } else if (source.isFloat(slot)) {
+                        target.setFloat(slot, source.getFloat(slot));
+                    } else if (source.isDouble(slot)) {
+                        target.setDouble(slot, source.getDouble(slot));
+                    } else {
+                        target.setObject(slot, source.getValue(slot));
+                    }
+                } catch (FrameSlotTypeException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
 }
@@ -24,6 +24,7 @@ package com.oracle.graal.truffle;
 
 import static com.oracle.graal.nodes.StructuredGraph.NO_PROFILING_INFO;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.PrintTruffleExpansionHistogram;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleGraphCacheCapacity;
 
 import java.lang.invoke.MethodHandle;
 import java.util.ArrayDeque;
@@ -50,6 +51,7 @@ import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.debug.Indent;
 import com.oracle.graal.java.ComputeLoopFrequenciesClosure;
 import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.EncodedGraph;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.ValueNode;
@@ -90,6 +92,7 @@ import com.oracle.graal.truffle.substitutions.TruffleGraphBuilderPlugins;
 import com.oracle.graal.truffle.substitutions.TruffleInvocationPluginProvider;
 import com.oracle.graal.virtual.phases.ea.PartialEscapePhase;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 
@@ -109,6 +112,16 @@ public class PartialEvaluator {
     private final GraphBuilderConfiguration configForParsing;
     private final InvocationPlugins decodingInvocationPlugins;
 
+    /**
+     * Parsed graphs of the interpreter methods, shared by all compilations so that a recompilation
+     * after a node rewrite only pays for the partial evaluation itself. The bytecodes of these
+     * methods do not change, but the graphs outlive the compilation that parsed them. They are
+     * therefore parsed without assumptions and without folding {@link CompilationFinal} fields,
+     * whose values may change before the next compilation. Such fields are folded when the graphs
+     * are decoded during partial evaluation.
+     */
+    private final Map<ResolvedJavaMethod, EncodedGraph> graphCache;
+
     public PartialEvaluator(Providers providers, GraphBuilderConfiguration configForRoot, SnippetReflectionProvider snippetReflection, Architecture architecture) {
         this.providers = providers;
         this.architecture = architecture;
@@ -126,6 +139,22 @@ public class PartialEvaluator {
 
         this.configForParsing = createGraphBuilderConfig(configForRoot, true);
         this.decodingInvocationPlugins = createDecodingInvocationPlugins();
+        this.graphCache = TruffleGraphCacheCapacity.getValue() > 0 ? Collections.synchronizedMap(new GraphCache(TruffleGraphCacheCapacity.getValue())) : null;
+    }
+
+    private static final class GraphCache extends LinkedHashMap<ResolvedJavaMethod, EncodedGraph> {
+        private static final long serialVersionUID = 1L;
+        private final int maxCacheSize;
+
+        GraphCache(int maxCacheSize) {
+            super(16, 0.75F, true);
+            this.maxCacheSize = maxCacheSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ResolvedJavaMethod, EncodedGraph> eldest) {
+            return size() > maxCacheSize;
+        }
     }
 
     public Providers getProviders() {
@@ -337,11 +366,29 @@ public class PartialEvaluator {
             plugins.appendInlineInvokePlugin(new InlineDuringParsingPlugin());
         }
 
+        if (graphCache != null) {
+            return new CachingPEGraphDecoder(providers, getCacheParsingProviders(), newConfig, TruffleCompiler.Optimizations, AllowAssumptions.NO, architecture, graphCache);
+        }
         return new CachingPEGraphDecoder(providers, newConfig, TruffleCompiler.Optimizations, AllowAssumptions.from(graph.getAssumptions() != null), architecture);
     }
 
+    private Providers getCacheParsingProviders() {
+        if (providers.getConstantReflection() instanceof TruffleConstantReflectionProvider) {
+            return providers.copyWith(((TruffleConstantReflectionProvider) providers.getConstantReflection()).getGraalConstantReflection());
+        }
+        return providers;
+    }
+
+    /**
+     * Returns the number of parsed graphs in the graph cache shared by the compilations.
+     */
+    public int getCachedGraphCount() {
+        return graphCache == null ? 0 : graphCache.size();
+    }
+
     protected void doGraphPE(OptimizedCallTarget callTarget, StructuredGraph graph) {
-        callTarget.setInlining(new TruffleInlining(callTarget, new DefaultInliningPolicy()));
+        TruffleInliningPolicy inliningPolicy = callTarget.isFirstTierCompilation() ? new FirstTierInliningPolicy() : new DefaultInliningPolicy();
+        callTarget.setInlining(new TruffleInlining(callTarget, inliningPolicy));
 
         PEGraphDecoder decoder = createGraphDecoder(graph);
 
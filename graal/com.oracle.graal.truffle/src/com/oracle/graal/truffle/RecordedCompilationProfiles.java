@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationProfileFile;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleRecordedCompilationThreshold;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.truffle.debug.AbstractDebugCompilationListener;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.SourceSection;
+
+/**
+ * Records the call targets compiled in a run together with their profiled argument and return
+ * types. When the recording of a previous run is available, the recorded call targets are compiled
+ * after {@link TruffleCompilerOptions#TruffleRecordedCompilationThreshold} calls instead of waiting
+ * for the regular compilation threshold, and their type profiles are initialized with the recorded
+ * types.
+ * <p>
+ * Call targets are identified by the class of their root node and the name and character range of
+ * the root node's source section. Call targets whose root node has no source are not recorded. The
+ * file contains one call target per line, with the tab separated call target key, return type and
+ * comma separated argument types. Unknown types are written as {@code -}.
+ */
+public final class RecordedCompilationProfiles extends AbstractDebugCompilationListener {
+
+    private static final String UNKNOWN_TYPE = "-";
+
+    private final Path file;
+
+    /**
+     * Entries read from the recording of the previous run, by call target key.
+     */
+    private final Map<String, String[]> recorded;
+
+    /**
+     * Keys of the call targets compiled in this run.
+     */
+    private final Set<String> compiled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a recording that is read from and written to {@code file}.
+     */
+    public RecordedCompilationProfiles(GraalTruffleRuntime runtime, Path file) {
+        this.file = file;
+        this.recorded = read(runtime, file);
+    }
+
+    static RecordedCompilationProfiles install(GraalTruffleRuntime runtime) {
+        String fileName = TruffleCompilationProfileFile.getValue();
+        if (fileName == null) {
+            return null;
+        }
+        RecordedCompilationProfiles profiles = new RecordedCompilationProfiles(runtime, Paths.get(fileName));
+        runtime.addCompilationListener(profiles);
+        return profiles;
+    }
+
+    private static Map<String, String[]> read(GraalTruffleRuntime runtime, Path file) {
+        Map<String, String[]> entries = new ConcurrentHashMap<>();
+        if (Files.exists(file)) {
+            try {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    String[] entry = line.split("\t", -1);
+                    if (entry.length == 3) {
+                        entries.put(entry[0], entry);
+                    }
+                }
+            } catch (IOException e) {
+                runtime.log(String.format("[truffle] cannot read compilation profiles from %s: %s", file, e));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Gets the key identifying {@code target} across runs, or null if the target cannot be
+     * identified because its root node has no source.
+     */
+    public static String keyOf(OptimizedCallTarget target) {
+        OptimizedCallTarget source = target.getSourceCallTarget() != null ? target.getSourceCallTarget() : target;
+        RootNode rootNode = source.getRootNode();
+        SourceSection section = rootNode.getSourceSection();
+        if (section == null || section.getSource() == null) {
+            return null;
+        }
+        String key = rootNode.getClass().getName() + "@" + section.getSource().getName() + ":" + section.getCharIndex() + "+" + section.getCharLength();
+        return key.replace('\t', ' ').replace('\n', ' ');
+    }
+
+    /**
+     * Applies the recorded profile, if any, to a call target whose AST was just initialized.
+     */
+    public void callTargetInitialized(OptimizedCallTarget target) {
+        String key = keyOf(target);
+        String[] entry = key == null ? null : recorded.get(key);
+        if (entry == null) {
+            return;
+        }
+        ClassLoader loader = target.getRootNode().getClass().getClassLoader();
+        Class<?>[] argumentTypes = null;
+        if (!entry[2].isEmpty()) {
+            String[] argumentTypeNames = entry[2].split(",");
+            argumentTypes = new Class<?>[argumentTypeNames.length];
+            for (int i = 0; i < argumentTypeNames.length; i++) {
+                argumentTypes[i] = lookupType(argumentTypeNames[i], loader);
+            }
+        }
+        target.initializeRecordedProfile(argumentTypes, lookupType(entry[1], loader));
+        target.getCompilationProfile().lowerCompilationThreshold(TruffleRecordedCompilationThreshold.getValue());
+    }
+
+    private static Class<?> lookupType(String name, ClassLoader loader) {
+        if (name.equals(UNKNOWN_TYPE)) {
+            return null;
+        }
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static String typeName(Class<?> type) {
+        return type == null ? UNKNOWN_TYPE : type.getName();
+    }
+
+    @Override
+    public void notifyCompilationSuccess(OptimizedCallTarget target, StructuredGraph graph, CompilationResult result) {
+        String key = keyOf(target);
+        if (key != null) {
+            compiled.add(key);
+        }
+    }
+
+    @Override
+    public void notifyShutdown(GraalTruffleRuntime runtime) {
+        for (RootCallTarget callTarget : runtime.getCallTargets()) {
+            OptimizedCallTarget target = (OptimizedCallTarget) callTarget;
+            String key = keyOf(target);
+            if (target.getSourceCallTarget() == null && key != null && compiled.contains(key)) {
+                StringBuilder argumentTypes = new StringBuilder();
+                Class<?>[] types = target.getProfiledArgumentTypes();
+                if (types != null) {
+                    for (int i = 0; i < types.length; i++) {
+                        argumentTypes.append(i == 0 ? "" : ",").append(typeName(types[i]));
+                    }
+                }
+                recorded.put(key, new String[]{key, typeName(target.getProfiledReturnType()), argumentTypes.toString()});
+            }
+        }
+
+        /* Call targets recorded in earlier runs but not used in this run are kept. */
+        List<String> lines = new ArrayList<>();
+        for (String[] entry : recorded.values()) {
+            lines.add(String.join("\t", entry));
+        }
+        try {
+            Files.write(file, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            runtime.log(String.format("[truffle] cannot write compilation profiles to %s: %s", file, e));
+        }
+    }
+}
@@ -152,6 +152,10 @@ public abstract class TruffleCompiler {
                 return;
             }
 
+            TruffleInlining inlining = compilable.getInlining();
+            int astNodeCount = compilable.getNonTrivialNodeCount() + (inlining != null ? inlining.getInlinedNodeCount() : 0);
+            compilable.getCompilationProfile().reportPartialEvaluationSize(astNodeCount, graph.getNodeCount());
+
             compilationNotify.notifyCompilationTruffleTierFinished(compilable, graph);
             CompilationResult compilationResult = compileMethodHelper(graph, compilable.toString(), graphBuilderSuite, compilable);
             compilationNotify.notifyCompilationSuccess(compilable, graph, compilationResult);
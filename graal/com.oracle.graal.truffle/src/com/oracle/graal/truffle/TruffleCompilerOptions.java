@@ -56,6 +56,18 @@ public class TruffleCompilerOptions {
     @Option(help = "Defines the maximum timespan in milliseconds that is required for a call target to be queued for compilation.", type = OptionType.User)
     public static final OptionValue<Integer> TruffleTimeThreshold = new OptionValue<>(25000);
 
+    @Option(help = "Compile call targets without inlining in a first tier before the fully optimized compilation", type = OptionType.Expert)
+    public static final OptionValue<Boolean> TruffleMultiTier = new OptionValue<>(false);
+
+    @Option(help = "Compile call target in the first tier when call and loop count exceeds this threshold", type = OptionType.User)
+    public static final OptionValue<Integer> TruffleFirstTierCompilationThreshold = new OptionValue<>(100);
+
+    @Option(help = "Record the compiled call targets to this file at shutdown and compile them early in the next run", type = OptionType.User)
+    public static final OptionValue<String> TruffleCompilationProfileFile = new StableOptionValue<>(null);
+
+    @Option(help = "Compile call targets recorded in the TruffleCompilationProfileFile when call and loop count exceeds this threshold", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleRecordedCompilationThreshold = new OptionValue<>(3);
+
     @Option(help = "Minimum number of calls before a call target is compiled", type = OptionType.Expert)
     public static final OptionValue<Integer> TruffleMinInvokeThreshold = new OptionValue<>(3);
 
@@ -71,6 +83,9 @@ public class TruffleCompilerOptions {
     @Option(help = "Stop inlining if caller's cumulative tree size would exceed this limit", type = OptionType.Expert)
     public static final OptionValue<Integer> TruffleInliningMaxCallerSize = new OptionValue<>(2250);
 
+    @Option(help = "Stop inlining if the graph predicted from previous partial evaluations would exceed this number of nodes", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleInliningMaxPredictedGraphSize = new OptionValue<>(150000);
+
     @Option(help = "Maximum level of recursive inlining", type = OptionType.Expert)
     public static final OptionValue<Integer> TruffleMaximumRecursiveInlining = new OptionValue<>(4);
 
@@ -83,9 +98,15 @@ public class TruffleCompilerOptions {
     @Option(help = "Number of loop iterations until on-stack-replacement compilation is triggered.", type = OptionType.Debug)
     public static final OptionValue<Integer> TruffleOSRCompilationThreshold = new OptionValue<>(100000);
 
+    @Option(help = "Maximum number of times an OSR compilation is recompiled after it was invalidated before the loop is profiled again.", type = OptionType.Debug)
+    public static final OptionValue<Integer> TruffleMaximumOSRRecompilations = new OptionValue<>(5);
+
     @Option(help = "Disable call target splitting if tree size exceeds this limit", type = OptionType.Debug)
     public static final OptionValue<Integer> TruffleSplittingMaxCalleeSize = new OptionValue<>(100);
 
+    @Option(help = "Limit the total size of split call targets to this factor of the total size of all other call targets", type = OptionType.Expert)
+    public static final OptionValue<Double> TruffleSplittingGrowthLimit = new OptionValue<>(1.5);
+
     @Option(help = "Enable asynchronous truffle compilation in background thread", type = OptionType.Expert)
     public static final OptionValue<Boolean> TruffleBackgroundCompilation = new OptionValue<>(true);
 
@@ -165,12 +186,30 @@ public class TruffleCompilerOptions {
     @Option(help = "Print additional more verbose Truffle compilation statistics at the end of a run.", type = OptionType.Debug)
     public static final OptionValue<Boolean> TruffleCompilationStatisticDetails = new OptionValue<>(false);
 
+    @Option(help = "Keep recent Truffle compilation events in memory, see GraalTruffleRuntime.getCompilationMetrics().", type = OptionType.Debug)
+    public static final OptionValue<Boolean> TruffleCompilationMetrics = new OptionValue<>(false);
+
+    @Option(help = "Continuously append Truffle compilation events to this file. Implies TruffleCompilationMetrics.", type = OptionType.Debug)
+    public static final OptionValue<String> TruffleCompilationMetricsFile = new OptionValue<>(null);
+
+    @Option(help = "Number of recent Truffle compilation events kept in memory.", type = OptionType.Debug)
+    public static final OptionValue<Integer> TruffleCompilationMetricsBufferSize = new OptionValue<>(4096);
+
+    @Option(help = "Interval in milliseconds at which recorded Truffle compilation events are written to the TruffleCompilationMetricsFile.", type = OptionType.Debug)
+    public static final OptionValue<Integer> TruffleCompilationMetricsInterval = new OptionValue<>(10000);
+
     @Option(help = "Enable support for simple infopoints in truffle partial evaluations.", type = OptionType.Expert)
     public static final OptionValue<Boolean> TruffleEnableInfopoints = new OptionValue<>(false);
 
     @Option(help = "Run the partial escape analysis iteratively in Truffle compilation.", type = OptionType.Debug)
     public static final OptionValue<Boolean> TruffleIterativePartialEscape = new OptionValue<>(false);
 
+    @Option(help = "Maximum number of parsed method graphs kept for reuse across Truffle compilations (0 disables the cache)", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleGraphCacheCapacity = new StableOptionValue<>(1024);
+
+    @Option(help = "Maximum size in bytes of the installed code of all compiled call targets, cold call targets are invalidated when it is exceeded (0 means no limit)", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleCompiledCodeBudget = new StableOptionValue<>(0);
+
     @Option(help = "Enable/disable builtin profiles in com.oracle.truffle.api.profiles.", type = OptionType.Debug)
     public static final OptionValue<Boolean> TruffleProfilingEnabled = new OptionValue<>(true);
 
@@ -46,6 +46,14 @@ public class TruffleConstantReflectionProvider implements ConstantReflectionProv
         this.metaAccess = metaAccess;
     }
 
+    /**
+     * Returns the underlying constant reflection, which does not fold {@link CompilationFinal}
+     * fields and Truffle AST fields.
+     */
+    public ConstantReflectionProvider getGraalConstantReflection() {
+        return graalConstantReflection;
+    }
+
     public Boolean constantEquals(Constant x, Constant y) {
         return graalConstantReflection.constantEquals(x, y);
     }
@@ -52,7 +52,8 @@ public class TruffleInlining implements Iterable<TruffleInliningDecision> {
     private static List<TruffleInliningDecision> createDecisions(OptimizedCallTarget sourceTarget, TruffleInliningPolicy policy, CompilerOptions options) {
         int nodeCount = sourceTarget.getNonTrivialNodeCount();
         List<TruffleInliningDecision> exploredCallSites = exploreCallSites(new ArrayList<>(Arrays.asList(sourceTarget)), nodeCount, policy);
-        return decideInlining(exploredCallSites, policy, nodeCount, options);
+        int predictedGraphSize = predictGraphSize(nodeCount, sourceTarget, sourceTarget);
+        return decideInlining(exploredCallSites, policy, nodeCount, predictedGraphSize, options);
     }
 
     private static List<TruffleInliningDecision> exploreCallSites(List<OptimizedCallTarget> stack, int callStackNodeCount, TruffleInliningPolicy policy) {
@@ -77,6 +78,7 @@ public class TruffleInlining implements Iterable<TruffleInliningDecision> {
 
         int recursions = countRecursions(callStack);
         int deepNodeCount = nodeCount;
+        int predictedGraphSize = predictGraphSize(nodeCount, currentTarget, callStack.get(0));
         if (callStack.size() < 15 && recursions <= TruffleCompilerOptions.TruffleMaximumRecursiveInlining.getValue()) {
             /*
              * We make a preliminary optimistic inlining decision with best possible characteristics
@@ -85,10 +87,11 @@ public class TruffleInlining implements Iterable<TruffleInliningDecision> {
             final CompilerOptions options = callNode.getRootNode().getCompilerOptions();
             if (policy.isAllowed(new TruffleInliningProfile(callNode, nodeCount, nodeCount, frequency, recursions), callStackNodeCount, options)) {
                 List<TruffleInliningDecision> exploredCallSites = exploreCallSites(callStack, callStackNodeCount + nodeCount, policy);
-                childCallSites = decideInlining(exploredCallSites, policy, nodeCount, options);
+                childCallSites = decideInlining(exploredCallSites, policy, nodeCount, predictedGraphSize, options);
                 for (TruffleInliningDecision childCallSite : childCallSites) {
                     if (childCallSite.isInline()) {
                         deepNodeCount += childCallSite.getProfile().getDeepNodeCount();
+                        predictedGraphSize += childCallSite.getProfile().getPredictedGraphSize();
                     } else {
                         /* we don't need those anymore. */
                         childCallSite.getCallSites().clear();
@@ -98,6 +101,7 @@ public class TruffleInlining implements Iterable<TruffleInliningDecision> {
         }
 
         TruffleInliningProfile profile = new TruffleInliningProfile(callNode, nodeCount, deepNodeCount, frequency, recursions);
+        profile.setPredictedGraphSize(predictedGraphSize);
         profile.setScore(policy.calculateScore(profile));
         return new TruffleInliningDecision(currentTarget, profile, childCallSites);
     }
@@ -106,6 +110,20 @@ public class TruffleInlining implements Iterable<TruffleInliningDecision> {
         return (double) Math.max(1, ocn.getCallCount()) / (double) Math.max(1, target.getCompilationProfile().getInterpreterCallCount());
     }
 
+    /**
+     * Predicts the number of graph nodes that partial evaluation produces for {@code nodeCount} AST
+     * nodes of {@code target}, using the expansion observed in previous compilations of the target
+     * or, if it has not been compiled yet, of the compilation root. Returns 0 if neither has been
+     * compiled.
+     */
+    private static int predictGraphSize(int nodeCount, OptimizedCallTarget target, OptimizedCallTarget compilationRoot) {
+        double expansion = target.getCompilationProfile().getGraphSizePerASTNode();
+        if (expansion == 0) {
+            expansion = compilationRoot.getCompilationProfile().getGraphSizePerASTNode();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, nodeCount * expansion);
+    }
+
     private static int countRecursions(List<OptimizedCallTarget> stack) {
         int count = 0;
         OptimizedCallTarget top = stack.get(stack.size() - 1);
@@ -118,15 +136,18 @@ public class TruffleInlining implements Iterable<TruffleInliningDecision> {
         return count;
     }
 
-    private static List<TruffleInliningDecision> decideInlining(List<TruffleInliningDecision> callSites, TruffleInliningPolicy policy, int nodeCount, CompilerOptions options) {
+    private static List<TruffleInliningDecision> decideInlining(List<TruffleInliningDecision> callSites, TruffleInliningPolicy policy, int nodeCount, int predictedGraphSize,
+                    CompilerOptions options) {
         int deepNodeCount = nodeCount;
+        int deepPredictedGraphSize = predictedGraphSize;
         int index = 0;
         for (TruffleInliningDecision callSite : callSites.stream().sorted().collect(Collectors.toList())) {
             TruffleInliningProfile profile = callSite.getProfile();
             profile.setQueryIndex(index++);
-            if (policy.isAllowed(profile, deepNodeCount, options)) {
+            if (policy.isAllowed(profile, deepNodeCount, deepPredictedGraphSize, options)) {
                 callSite.setInline(true);
                 deepNodeCount += profile.getDeepNodeCount();
+                deepPredictedGraphSize += profile.getPredictedGraphSize();
             }
         }
         return callSites;
@@ -28,6 +28,16 @@ public interface TruffleInliningPolicy {
 
     boolean isAllowed(TruffleInliningProfile profile, int currentNodeCount, CompilerOptions options);
 
+    /**
+     * Like {@link #isAllowed(TruffleInliningProfile, int, CompilerOptions)}, but also given the
+     * {@linkplain TruffleInliningProfile#getPredictedGraphSize() predicted} partial evaluation graph
+     * size of the caller, which is 0 if no prediction is available.
+     */
+    @SuppressWarnings("unused")
+    default boolean isAllowed(TruffleInliningProfile profile, int currentNodeCount, int currentPredictedGraphSize, CompilerOptions options) {
+        return isAllowed(profile, currentNodeCount, options);
+    }
+
     double calculateScore(TruffleInliningProfile profile);
 
 }
@@ -36,6 +36,7 @@ public class TruffleInliningProfile {
     private String failedReason;
     private int queryIndex = -1;
     private double score;
+    private int predictedGraphSize;
 
     public TruffleInliningProfile(OptimizedDirectCallNode callNode, int nodeCount, int deepNodeCount, double frequency, int recursions) {
         this.callNode = callNode;
@@ -97,9 +98,22 @@ public class TruffleInliningProfile {
         return deepNodeCount;
     }
 
+    /**
+     * Gets the predicted number of nodes that partial evaluation of the call site, including its
+     * inlined call sites, produces, or 0 if no prediction is available.
+     */
+    public int getPredictedGraphSize() {
+        return predictedGraphSize;
+    }
+
+    public void setPredictedGraphSize(int predictedGraphSize) {
+        this.predictedGraphSize = predictedGraphSize;
+    }
+
     public Map<String, Object> getDebugProperties() {
         Map<String, Object> properties = new LinkedHashMap<>();
         properties.put("ASTSize", String.format("%5d/%5d", nodeCount, deepNodeCount));
+        properties.put("PESize", String.format("%7d", predictedGraphSize));
         properties.put("frequency", String.format("%8.4f", getFrequency()));
         properties.put("score", String.format("%8.4f", getScore()));
         properties.put(String.format("index=%3d, force=%s, callSites=%2d", queryIndex, (isForced() ? "Y" : "N"), getCallSites()), "");
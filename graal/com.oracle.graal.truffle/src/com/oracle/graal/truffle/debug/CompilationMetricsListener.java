@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.debug;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationMetrics;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationMetricsBufferSize;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationMetricsFile;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationMetricsInterval;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.truffle.GraalTruffleRuntime;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.OptimizedDirectCallNode;
+import com.oracle.graal.truffle.TruffleInlining;
+
+/**
+ * Records Truffle compilation events in a ring buffer while the program runs, unlike
+ * {@link CompilationStatisticsListener} which only prints aggregated statistics at shutdown. The
+ * installed instance is available from {@link GraalTruffleRuntime#getCompilationMetrics()}. If a
+ * {@link com.oracle.graal.truffle.TruffleCompilerOptions#TruffleCompilationMetricsFile metrics
+ * file} is specified, the recorded events are appended to it periodically and at shutdown.
+ * <p>
+ * Every event is one line with the tab separated timestamp in milliseconds, the event kind, the
+ * call target and space separated {@code key=value} pairs. Backslashes, tabs and line separators
+ * in the call target and the values are escaped as in Java string literals. Durations are in
+ * microseconds. Events that are overwritten in the ring buffer before they are written are
+ * reported with a {@code dropped} event.
+ */
+public final class CompilationMetricsListener extends AbstractDebugCompilationListener {
+
+    private final String[] events;
+    private long eventCount;
+    private long writtenCount;
+    private Path file;
+
+    /**
+     * Serializes the appends to the metrics file, so that events are written in the order they
+     * were recorded. Recording only takes the lock on {@code this}, so it is not blocked by I/O.
+     */
+    private final Object writeLock = new Object();
+
+    private final Map<OptimizedCallTarget, Long> queueTimestamps = new ConcurrentHashMap<>();
+    private final ThreadLocal<long[]> compilationTimestamps = new ThreadLocal<>();
+
+    public CompilationMetricsListener(int capacity) {
+        this.events = new String[capacity];
+    }
+
+    public static CompilationMetricsListener install(GraalTruffleRuntime runtime) {
+        String fileName = TruffleCompilationMetricsFile.getValue();
+        if (fileName == null && !TruffleCompilationMetrics.getValue()) {
+            return null;
+        }
+        CompilationMetricsListener listener = new CompilationMetricsListener(TruffleCompilationMetricsBufferSize.getValue());
+        runtime.addCompilationListener(listener);
+        if (fileName != null) {
+            listener.startWriter(runtime, Paths.get(fileName), TruffleCompilationMetricsInterval.getValue());
+        }
+        return listener;
+    }
+
+    private void startWriter(GraalTruffleRuntime runtime, Path metricsFile, long interval) {
+        this.file = metricsFile;
+        Thread writer = new Thread("TruffleCompilationMetrics") {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        Thread.sleep(interval);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    write(runtime, metricsFile);
+                }
+            }
+        };
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private synchronized void record(String kind, Object target, String details) {
+        events[(int) (eventCount++ % events.length)] = System.currentTimeMillis() + "\t" + kind + "\t" + escape(String.valueOf(target)) + "\t" + escape(details);
+    }
+
+    /**
+     * Escapes backslashes and the tab and line separators that failure and invalidation reasons
+     * may contain, so that every event stays on one line with four fields.
+     */
+    private static String escape(String value) {
+        if (value.indexOf('\\') == -1 && value.indexOf('\t') == -1 && value.indexOf('\r') == -1 && value.indexOf('\n') == -1) {
+            return value;
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\r", "\\r").replace("\n", "\\n");
+    }
+
+    /**
+     * Returns the recorded events that are still in the ring buffer, oldest first.
+     */
+    public synchronized List<String> getRecentEvents() {
+        return eventsSince(Math.max(0, eventCount - events.length));
+    }
+
+    private List<String> eventsSince(long index) {
+        List<String> result = new ArrayList<>();
+        for (long i = index; i < eventCount; i++) {
+            result.add(events[(int) (i % events.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * Appends the events recorded since the last call to {@code metricsFile}.
+     */
+    public void write(GraalTruffleRuntime runtime, Path metricsFile) {
+        synchronized (writeLock) {
+            List<String> lines;
+            synchronized (this) {
+                long first = Math.max(writtenCount, eventCount - events.length);
+                lines = eventsSince(first);
+                if (first > writtenCount) {
+                    lines.add(0, System.currentTimeMillis() + "\tdropped\t-\tevents=" + (first - writtenCount));
+                }
+                writtenCount = eventCount;
+            }
+            if (!lines.isEmpty()) {
+                try {
+                    Files.write(metricsFile, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } catch (IOException e) {
+                    runtime.log(String.format("[truffle] cannot write compilation metrics to %s: %s", metricsFile, e));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void notifyCompilationSplit(OptimizedDirectCallNode callNode) {
+        record("split", callNode.getCallTarget(), "");
+    }
+
+    @Override
+    public void notifyCompilationQueued(OptimizedCallTarget target) {
+        long now = System.nanoTime();
+        queueTimestamps.put(target, now);
+        long hotTimestamp = target.getCompilationProfile().getTimestamp();
+        record("queued", target, String.format("calls=%d hotToQueue=%d", target.getCompilationProfile().getInterpreterCallCount(), hotTimestamp == 0 ? 0 : micros(now - hotTimestamp)));
+    }
+
+    @Override
+    public void notifyCompilationDequeued(OptimizedCallTarget target, Object source, CharSequence reason) {
+        queueTimestamps.remove(target);
+        record("dequeued", target, "reason=" + reason);
+    }
+
+    @Override
+    public void notifyCompilationStarted(OptimizedCallTarget target) {
+        long now = System.nanoTime();
+        compilationTimestamps.set(new long[]{now, now, now});
+        Long queued = queueTimestamps.remove(target);
+        record("started", target, "queueTime=" + (queued == null ? 0 : micros(now - queued)));
+    }
+
+    @Override
+    public void notifyCompilationTruffleTierFinished(OptimizedCallTarget target, StructuredGraph graph) {
+        long[] timestamps = compilationTimestamps.get();
+        timestamps[1] = System.nanoTime();
+        TruffleInlining inlining = target.getInlining();
+        record("truffleTier", target, String.format("time=%d astNodes=%d nodes=%d calls=%d inlined=%d", micros(timestamps[1] - timestamps[0]), target.getNonTrivialNodeCount(),
+                        graph.getNodeCount(), inlining == null ? 0 : inlining.countCalls(), inlining == null ? 0 : inlining.countInlinedCalls()));
+    }
+
+    @Override
+    public void notifyCompilationGraalTierFinished(OptimizedCallTarget target, StructuredGraph graph) {
+        long[] timestamps = compilationTimestamps.get();
+        timestamps[2] = System.nanoTime();
+        record("graalTier", target, String.format("time=%d nodes=%d", micros(timestamps[2] - timestamps[1]), graph.getNodeCount()));
+    }
+
+    @Override
+    public void notifyCompilationSuccess(OptimizedCallTarget target, StructuredGraph graph, CompilationResult result) {
+        long[] timestamps = compilationTimestamps.get();
+        long now = System.nanoTime();
+        record("success", target, String.format("time=%d installTime=%d codeSize=%d", micros(now - timestamps[0]), micros(now - timestamps[2]), result.getTargetCodeSize()));
+    }
+
+    @Override
+    public void notifyCompilationFailed(OptimizedCallTarget target, StructuredGraph graph, Throwable t) {
+        record("failed", target, "reason=" + t);
+    }
+
+    @Override
+    public void notifyCompilationInvalidated(OptimizedCallTarget target, Object source, CharSequence reason) {
+        record("invalidated", target, String.format("invalidations=%d reason=%s source=%s", target.getCompilationProfile().getInvalidationCount(), reason, source));
+    }
+
+    @Override
+    public void notifyShutdown(GraalTruffleRuntime runtime) {
+        if (file != null) {
+            write(runtime, file);
+        }
+    }
+}
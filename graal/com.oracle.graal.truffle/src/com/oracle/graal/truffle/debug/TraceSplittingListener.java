@@ -24,18 +24,23 @@ package com.oracle.graal.truffle.debug;
 
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TraceTruffleSplitting;
 
+import java.util.Map;
+
 import com.oracle.graal.truffle.GraalTruffleRuntime;
 import com.oracle.graal.truffle.OptimizedCallTarget;
 import com.oracle.graal.truffle.OptimizedDirectCallNode;
 
 public final class TraceSplittingListener extends AbstractDebugCompilationListener {
 
-    private TraceSplittingListener() {
+    private final GraalTruffleRuntime runtime;
+
+    private TraceSplittingListener(GraalTruffleRuntime runtime) {
+        this.runtime = runtime;
     }
 
     public static void install(GraalTruffleRuntime runtime) {
         if (TraceTruffleSplitting.getValue()) {
-            runtime.addCompilationListener(new TraceSplittingListener());
+            runtime.addCompilationListener(new TraceSplittingListener(runtime));
         }
     }
 
@@ -45,7 +50,11 @@ public final class TraceSplittingListener extends AbstractDebugCompilationListen
     public void notifyCompilationSplit(OptimizedDirectCallNode callNode) {
         OptimizedCallTarget callTarget = callNode.getCallTarget();
         String label = String.format("split %3s-%-4s-%-4s ", splitCount++, callNode.getCurrentCallTarget().getCloneIndex(), callNode.getCallCount());
-        log(callTarget, 0, label, callTarget.toString(), callTarget.getDebugProperties());
+        Map<String, Object> properties = callTarget.getDebugProperties();
+        properties.put("Splits", callTarget.getCloneIndex());
+        properties.put("Polymorphic", callTarget.getPolymorphicSpecializeCount());
+        properties.put("SplitNodes/Budget", String.format("%d/%d", runtime.getSplitNodeCount(), runtime.getSplitBudget()));
+        log(callTarget, 0, label, callTarget.toString(), properties);
     }
 
 }
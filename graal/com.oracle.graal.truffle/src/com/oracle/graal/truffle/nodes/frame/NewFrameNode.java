@@ -28,6 +28,7 @@ import java.util.List;
 
 import jdk.vm.ci.common.JVMCIError;
 import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.MetaAccessProvider;
 import jdk.vm.ci.meta.ResolvedJavaField;
 import jdk.vm.ci.meta.ResolvedJavaType;
 
@@ -56,6 +57,7 @@ import com.oracle.graal.nodes.virtual.LockState;
 import com.oracle.graal.nodes.virtual.VirtualArrayNode;
 import com.oracle.graal.nodes.virtual.VirtualInstanceNode;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
+import com.oracle.graal.truffle.FrameWithoutBoxing;
 import com.oracle.graal.truffle.OptimizedAssumption;
 import com.oracle.graal.truffle.OptimizedCallTarget;
 import com.oracle.graal.truffle.nodes.AssumptionValidAssumption;
@@ -202,25 +204,33 @@ public final class NewFrameNode extends FixedWithNextNode implements IterableNod
             graph().getAssumptions().record(new AssumptionValidAssumption((OptimizedAssumption) frameDescriptor.getVersion()));
         }
 
-        tool.createVirtualObject(virtualFrameObjectArray, objectArrayEntryState, Collections.<MonitorIdNode> emptyList(), false);
-        if (virtualFramePrimitiveArray != null) {
-            tool.createVirtualObject(virtualFramePrimitiveArray, primitiveArrayEntryState, Collections.<MonitorIdNode> emptyList(), false);
-        }
-        if (virtualFrameTagArray != null) {
-            tool.createVirtualObject(virtualFrameTagArray, tagArrayEntryState, Collections.<MonitorIdNode> emptyList(), false);
-        }
-
         assert frameFields.length == 5 || frameFields.length == 3;
         ValueNode[] frameEntryState = new ValueNode[frameFields.length];
         List<ResolvedJavaField> frameFieldList = Arrays.asList(frameFields);
         frameEntryState[frameFieldList.indexOf(descriptorField)] = getDescriptor();
         frameEntryState[frameFieldList.indexOf(argumentsField)] = getArguments();
-        frameEntryState[frameFieldList.indexOf(localsField)] = virtualFrameObjectArray;
-        if (primitiveLocalsField != null) {
-            frameEntryState[frameFieldList.indexOf(primitiveLocalsField)] = virtualFramePrimitiveArray;
-        }
-        if (tagsField != null) {
-            frameEntryState[frameFieldList.indexOf(tagsField)] = virtualFrameTagArray;
+
+        if (frameSize == 0 && primitiveLocalsField != null) {
+            /* Use the storage shared by all frames without slots, see FrameWithoutBoxing. */
+            MetaAccessProvider metaAccess = tool.getMetaAccessProvider();
+            frameEntryState[frameFieldList.indexOf(localsField)] = ConstantNode.forConstant(snippetReflection.forObject(FrameWithoutBoxing.EMPTY_OBJECT_ARRAY), metaAccess, graph());
+            frameEntryState[frameFieldList.indexOf(primitiveLocalsField)] = ConstantNode.forConstant(snippetReflection.forObject(FrameWithoutBoxing.EMPTY_LONG_ARRAY), metaAccess, graph());
+            frameEntryState[frameFieldList.indexOf(tagsField)] = ConstantNode.forConstant(snippetReflection.forObject(FrameWithoutBoxing.EMPTY_BYTE_ARRAY), metaAccess, graph());
+        } else {
+            tool.createVirtualObject(virtualFrameObjectArray, objectArrayEntryState, Collections.<MonitorIdNode> emptyList(), false);
+            if (virtualFramePrimitiveArray != null) {
+                tool.createVirtualObject(virtualFramePrimitiveArray, primitiveArrayEntryState, Collections.<MonitorIdNode> emptyList(), false);
+            }
+            if (virtualFrameTagArray != null) {
+                tool.createVirtualObject(virtualFrameTagArray, tagArrayEntryState, Collections.<MonitorIdNode> emptyList(), false);
+            }
+            frameEntryState[frameFieldList.indexOf(localsField)] = virtualFrameObjectArray;
+            if (primitiveLocalsField != null) {
+                frameEntryState[frameFieldList.indexOf(primitiveLocalsField)] = virtualFramePrimitiveArray;
+            }
+            if (tagsField != null) {
+                frameEntryState[frameFieldList.indexOf(tagsField)] = virtualFrameTagArray;
+            }
         }
         tool.createVirtualObject(virtualFrame, frameEntryState, Collections.<MonitorIdNode> emptyList(), false);
         tool.replaceWithVirtual(virtualFrame);